@@ -1,6 +1,41 @@
+import service.AuthenticationService;
+import service.ElectionHost;
+import service.ElectionService;
+import ui.ElectionHttpServer;
+import ui.ElectionUI;
+import util.ElectionLogger;
+import util.MetricsRegistry;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+
 public class Main {
-    public static void main(String[] args) {
-        ElectionUI ui = new ElectionUI();
+    // Usage: java Main [--http <port>]
+    // With --http, polling stations can register, log in and vote over HTTP while the
+    // console UI keeps running for the operator; the console can add further elections, which
+    // share the same voters and logins. Metrics are published over JMX under "voting"
+    // and, with --http, as text at /metrics.
+    public static void main(String[] args) throws Exception {
+        // Without it the JDK HTTP server's responses wait on Nagle's algorithm; see ElectionHttpServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        MetricsRegistry.getDefault().enableJmx("voting");
+        ElectionHost host = new ElectionHost(new ElectionLogger());
+        ElectionService electionService = host.createElection("General Election 2024",
+            LocalDateTime.now().plusDays(30));
+        AuthenticationService authService = host.getAuthenticationService();
+        ElectionHttpServer httpServer = null;
+        if (args.length == 2 && args[0].equals("--http")) {
+            httpServer = new ElectionHttpServer(electionService, authService,
+                new InetSocketAddress(Integer.parseInt(args[1])));
+            httpServer.start();
+            System.out.println("HTTP front end listening on port " + httpServer.getAddress().getPort());
+        }
+        ElectionUI ui = new ElectionUI(host, electionService);
         ui.start();
+        if (httpServer != null) {
+            httpServer.close();
+        }
+        host.close();
     }
 }
@@ -0,0 +1,91 @@
+package bench;
+
+import model.*;
+import service.ElectionService;
+import exception.VotingException;
+import util.ElectionLogger;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Voters who haven't voted yet, for benchmarks of the vote path. A voter votes once, so these
+// benchmarks run in SingleShotTime mode over a fixed batch of calls per thread, and every
+// iteration gets a fresh open election with exactly as many registered voters as the batch
+// can use.
+@State(Scope.Benchmark)
+public class Ballots {
+    private static final int CANDIDATES = 100;
+    private static final int STATIONS = 100;
+
+    ElectionService service;
+    String[] voterIds;
+    String[] candidateIds;
+    String[] stations;
+    private ElectionLogger logger;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp(BenchmarkParams params) throws VotingException {
+        BenchSupport.cheapPasswordHashing();
+        int batch = Math.max(params.getWarmup().getBatchSize(), params.getMeasurement().getBatchSize());
+        int needed = params.getThreads() * batch * ballotsPerCall();
+
+        logger = BenchSupport.quietLogger();
+        service = newService(logger);
+        candidateIds = new String[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party " + (i % 10), "", "", "");
+            service.addCandidate(candidate);
+            candidateIds[i] = candidate.getId();
+        }
+        stations = new String[STATIONS];
+        for (int i = 0; i < STATIONS; i++) {
+            stations[i] = "STATION-" + i;
+        }
+        service.openRegistration();
+        voterIds = new String[needed];
+        for (int i = 0; i < needed; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            voterIds[i] = voter.getId();
+        }
+        service.openVoting();
+        next.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        logger.close();
+    }
+
+    ElectionService newService(ElectionLogger logger) {
+        return new ElectionService("Ballots", LocalDateTime.now(), logger);
+    }
+
+    // Voters one benchmark call uses, e.g. the size of a batch
+    int ballotsPerCall() {
+        return 1;
+    }
+
+    // Hands out `count` voters who haven't voted, returning the first
+    int take(int count) {
+        int first = next.getAndAdd(count);
+        if (first + count > voterIds.length) {
+            throw new IllegalStateException("Out of voters: run this benchmark in SingleShotTime mode");
+        }
+        return first;
+    }
+
+    void castVote() throws VotingException {
+        int i = take(1);
+        service.castVote(voterIds[i], candidateIds[i % CANDIDATES], stations[i % STATIONS]);
+    }
+}
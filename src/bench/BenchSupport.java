@@ -0,0 +1,20 @@
+package bench;
+
+import util.ElectionLogger;
+import util.PasswordHasher;
+
+final class BenchSupport {
+    private BenchSupport() {
+    }
+
+    // Logger that neither echoes nor writes a file, so benchmarks measure the service, not I/O.
+    static ElectionLogger quietLogger() {
+        return new ElectionLogger(null, 65536, ElectionLogger.OverflowPolicy.DROP_AND_COUNT, false, 0);
+    }
+
+    // Fixtures create up to millions of voters; at the production KDF cost that alone would take
+    // hours, so fixture passwords are hashed with a single PBKDF2 iteration.
+    static void cheapPasswordHashing() {
+        PasswordHasher.setDefault(new PasswordHasher(1));
+    }
+}
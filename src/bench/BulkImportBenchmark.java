@@ -0,0 +1,60 @@
+package bench;
+
+import service.ElectionService;
+import service.ImportReport;
+
+import java.io.BufferedWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+// Generates a voter CSV (every 1000th row repeats an earlier national ID) and measures
+// ElectionService.importVoters wall time and peak heap.
+// Usage: java bench.BulkImportBenchmark [rows]
+public class BulkImportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Path csv = Files.createTempFile("voters", ".csv");
+        try {
+            writeCsv(csv, rows);
+            System.out.printf("Generated %d rows (%d MB)%n", rows, Files.size(csv) >> 20);
+
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+
+            ElectionService service = new ElectionService("Import", LocalDateTime.now(), BenchSupport.quietLogger());
+            service.openRegistration();
+            ImportReport report = service.importVoters(csv);
+
+            long peakHeap = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peakHeap += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.println(report);
+            System.out.printf("Throughput: %.0f rows/sec%n", report.getRowsRead() / (report.getElapsedMillis() / 1000.0));
+            System.out.printf("Peak heap: %d MB%n", peakHeap >> 20);
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    private static void writeCsv(Path csv, int rows) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("name,email,nationalId,password,status\n");
+            for (int i = 0; i < rows; i++) {
+                int nationalId = i % 1000 == 999 ? i - 500 : i;
+                writer.write("Voter " + i + ",voter" + i + "@example.org,NID" + nationalId + ",pw" + i + ",VERIFIED\n");
+            }
+        }
+    }
+}
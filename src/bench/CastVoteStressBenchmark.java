@@ -0,0 +1,98 @@
+package bench;
+
+import model.*;
+import service.ElectionService;
+import exception.VotingException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Multi-threaded castVote stress run: every voter is attempted by two threads,
+// so it checks one-vote-per-voter under contention and reports throughput per thread count.
+// Usage: java bench.CastVoteStressBenchmark [voters] [candidates] [maxThreads]
+public class CastVoteStressBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int voterCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int candidateCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("castVote stress: %d voters, %d candidates%n", voterCount, candidateCount);
+        System.out.printf("%8s %14s %12s %10s%n", "threads", "votes/sec", "accepted", "rejected");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(threads, voterCount, candidateCount);
+        }
+    }
+
+    private static void run(int threads, int voterCount, int candidateCount) throws Exception {
+        ElectionService service = new ElectionService("Stress", LocalDateTime.now(), BenchSupport.quietLogger());
+        List<String> candidateIds = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party " + i, "", "", "");
+            service.addCandidate(candidate);
+            candidateIds.add(candidate.getId());
+        }
+        service.openRegistration();
+        String[] voterIds = new String[voterCount];
+        for (int i = 0; i < voterCount; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            voterIds[i] = voter.getId();
+        }
+        service.openVoting();
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Each thread walks every voter whose index falls in its slice, and also the
+                // next thread's slice, so every voter is contended by two threads.
+                for (int i = 0; i < voterCount; i++) {
+                    int slice = i % threads;
+                    if (slice != offset && slice != (offset + 1) % threads) {
+                        continue;
+                    }
+                    try {
+                        service.castVote(voterIds[i], candidateIds.get(i % candidateCount), "STATION-" + slice);
+                        accepted.incrementAndGet();
+                    } catch (VotingException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        service.closeElection();
+        int tallied = service.getResults().values().stream().mapToInt(Integer::intValue).sum();
+        if (accepted.get() != voterCount || tallied != voterCount
+                || service.getStatistics().getTotalVotes() != voterCount) {
+            throw new IllegalStateException("One-vote-per-voter violated: accepted=" + accepted.get()
+                + ", tallied=" + tallied + ", voters=" + voterCount);
+        }
+
+        System.out.printf("%8d %14.0f %12d %10d%n", threads,
+            accepted.get() / (elapsedNanos / 1e9), accepted.get(), rejected.get());
+    }
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares two JMH result files written with -rf csv, row by row: same benchmark, mode, thread
+// count and parameters. Secondary results such as gc.alloc.rate.norm from -prof gc are rows of
+// their own. Whether up is better depends on the mode: throughput rows want a positive change,
+// time rows (avgt, ss, sample) a negative one.
+// Usage: java -cp target/benchmarks.jar bench.CompareResults baseline.csv current.csv
+public class CompareResults {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CompareResults baseline.csv current.csv");
+        }
+        Map<String, String[]> baseline = read(args[0]);
+        Map<String, String[]> current = read(args[1]);
+        System.out.printf("%-72s %14s %14s %9s  %s%n", "benchmark", "baseline", "current", "change", "unit");
+        for (Map.Entry<String, String[]> row : current.entrySet()) {
+            String[] before = baseline.get(row.getKey());
+            if (before == null) {
+                continue;
+            }
+            double was = Double.parseDouble(before[4]);
+            double now = Double.parseDouble(row.getValue()[4]);
+            System.out.printf("%-72s %14.3f %14.3f %+8.1f%%  %s%n", row.getKey(), was, now,
+                was == 0 ? 0 : (now - was) / was * 100, row.getValue()[6]);
+        }
+    }
+
+    // Rows keyed by benchmark, mode, threads and any parameter columns
+    private static Map<String, String[]> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = split(line);
+            StringBuilder key = new StringBuilder(fields[0]).append(' ').append(fields[1])
+                .append(" t=").append(fields[2]);
+            for (int i = 7; i < fields.length; i++) {
+                if (!fields[i].isEmpty()) {
+                    key.append(' ').append(fields[i]);
+                }
+            }
+            rows.put(key.toString(), fields);
+        }
+        return rows;
+    }
+
+    // JMH quotes every text field; numbers are bare
+    private static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,832 @@
+package bench;
+
+import model.*;
+import service.AuthenticationService;
+import service.ElectionService;
+import service.ImportReport;
+import exception.RejectReason;
+import exception.VotingException;
+import util.LatencyHistogram;
+import util.PasswordHasher;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Rehearses polling day against ElectionService and AuthenticationService: candidates are
+// added, registration opens and the electorate is registered in bulk, voting opens and the day
+// is replayed station by station, then the election closes and results are served to a crowd.
+//
+// Each station gets a log-normal share of the electorate and its own jittered copy of the
+// hourly arrival curve, with a surge in the first minutes as the queue at the doors comes in.
+// Every simulated minute, the number of a station's voters who arrive is drawn from what is
+// left of its curve, so exactly the scripted turnout arrives by the end of the day. Each
+// arriving voter is looked up, logs in (some first with a wrong password, some twice), votes,
+// sometimes resubmits the ballot, and logs out; dashboards poll live results all the while.
+//
+// A station's arrivals and its voters' choices come from one seeded random stream, and each
+// station is replayed by one thread, so a scenario drives the same traffic and ends in the
+// same tally on every run; the outcome fingerprint printed at the end shows that it did. A run
+// where it changes shed work it should have absorbed, e.g. voters walked away after logins
+// were refused for too long.
+//
+// Per phase it reports throughput and latency percentiles per operation, refusals by reason,
+// peak and retained heap and GC time, and extrapolates the retained heap to project.voters.
+// With day.seconds set the day is paced in real time and the lag behind schedule is reported;
+// otherwise it runs flat out. --out saves a CSV and --baseline compares against an earlier one.
+//
+// Usage: java -Xmx16g bench.ElectionDaySimulator [--scenario file.properties] [--key value ...]
+//          [--out file.csv] [--baseline file.csv]
+// Scenario keys and their defaults are listed in SimulationScenario.
+public class ElectionDaySimulator {
+    private static final String PASSWORD = "polling-day";
+    private static final int MINUTES_PER_HOUR = 60;
+    // A voter whose login keeps being shed gives up after this many attempts, 1 ms apart
+    private static final int MAX_LOGIN_ATTEMPTS = 1000;
+    private static final long LOGIN_BACKOFF_NANOS = 1_000_000;
+    // Share of polls that ask for the turnout report, which is built per request
+    private static final int TURNOUT_EVERY = 50;
+
+    enum Op {
+        OPEN_REGISTRATION("openRegistration"),
+        REGISTER("registerVoter"),
+        IMPORT("importVoters (rows)"),
+        OPEN_VOTING("openVoting"),
+        FIND_VOTER("findVoterByEmail"),
+        LOGIN("login"),
+        LOGIN_WRONG_PASSWORD("login (wrong password)"),
+        LOGIN_SHED("login (shed, retried)"),
+        VOTE("castVote"),
+        VOTE_REJECTED("castVote (refused)"),
+        LOGOUT("logout"),
+        CLOSE("closeElection"),
+        LIVE_RESULTS("getLiveResults"),
+        STATISTICS("getStatistics"),
+        RESULTS("getResults"),
+        TURNOUT("getTurnoutReport"),
+        SCHEDULE_LAG("schedule lag (per minute)");
+
+        final String label;
+
+        Op(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Op[] OPS = Op.values();
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    // One thread's counts and latencies for one phase
+    private static final class Recorder {
+        final long[] counts = new long[OPS.length];
+        final LatencyHistogram[] latency = new LatencyHistogram[OPS.length];
+        // Refusals by reason, plus a last slot for failures that carry none
+        final long[] rejects = new long[REASONS.length + 1];
+        long gaveUp;
+
+        Recorder() {
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new LatencyHistogram();
+            }
+        }
+
+        void record(Op op, long started) {
+            counts[op.ordinal()]++;
+            latency[op.ordinal()].record(System.nanoTime() - started);
+        }
+
+        // One call that did count units of work, e.g. an import of count rows
+        void record(Op op, long count, long started) {
+            counts[op.ordinal()] += count;
+            latency[op.ordinal()].record(System.nanoTime() - started);
+        }
+
+        void reject(VotingException e, long started) {
+            record(Op.VOTE_REJECTED, started);
+            RejectReason reason = e.getReason();
+            rejects[reason == null ? REASONS.length : reason.ordinal()]++;
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                latency[i].merge(other.latency[i]);
+            }
+            for (int i = 0; i < rejects.length; i++) {
+                rejects[i] += other.rejects[i];
+            }
+            gaveUp += other.gaveUp;
+        }
+    }
+
+    private static final class Phase {
+        final String name;
+        final long startedNanos = System.nanoTime();
+        final long startGcCount;
+        final long startGcMillis;
+        long nanos;
+        Recorder recorder;
+        long heapPeak;
+        long heapRetained;
+        long gcCount;
+        long gcMillis;
+
+        Phase(String name, long gcCount, long gcMillis) {
+            this.name = name;
+            this.startGcCount = gcCount;
+            this.startGcMillis = gcMillis;
+        }
+
+        double seconds() {
+            return nanos / 1e9;
+        }
+    }
+
+    // A voting station: its voters are firstVoter .. firstVoter + size - 1, of whom the first
+    // `turnout` arrive during the day in the order they are drawn
+    private static final class Station {
+        final String name;
+        final int firstVoter;
+        final boolean faulty;
+        final double[] hourWeights;
+        final SplittableRandom random;
+        int toArrive;
+        int arrived;
+        double weightLeft;
+
+        Station(String name, int firstVoter, int turnout, boolean faulty, double[] hourWeights,
+                SplittableRandom random, double dayWeight) {
+            this.name = name;
+            this.firstVoter = firstVoter;
+            this.toArrive = turnout;
+            this.faulty = faulty;
+            this.hourWeights = hourWeights;
+            this.random = random;
+            this.weightLeft = dayWeight;
+        }
+
+        // How many voters arrive in this minute: a binomial draw of those still to come, with
+        // the minute's share of the weight left in the day, so the last minute takes the rest
+        int arrivals(double weight, boolean lastMinute) {
+            int count;
+            if (lastMinute || weight >= weightLeft) {
+                count = toArrive;
+            } else {
+                count = binomial(random, toArrive, weight / weightLeft);
+            }
+            weightLeft -= weight;
+            toArrive -= count;
+            return count;
+        }
+
+        int nextVoter() {
+            return firstVoter + arrived++;
+        }
+    }
+
+    private interface Work {
+        void run(int thread, Recorder recorder) throws Exception;
+    }
+
+    private final SimulationScenario scenario;
+    private final ElectionService service;
+    private final AuthenticationService auth;
+    private final String[] candidateIds;
+    private final double[] candidateWeights;
+    private final List<Phase> phases = new ArrayList<>();
+    private long baselineHeap;
+    private long fingerprint;
+
+    private ElectionDaySimulator(SimulationScenario scenario) {
+        this.scenario = scenario;
+        this.service = new ElectionService("Polling Day Rehearsal", LocalDateTime.now(), BenchSupport.quietLogger());
+        this.auth = new AuthenticationService();
+        this.candidateIds = new String[scenario.candidates];
+        this.candidateWeights = new double[scenario.candidates];
+        double total = 0;
+        for (int c = 0; c < scenario.candidates; c++) {
+            total += 1 / Math.pow(c + 1, scenario.popularity);
+            candidateWeights[c] = total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> overrides = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            String key = args[i].substring(2);
+            boolean option = key.equals("scenario") || key.equals("out") || key.equals("baseline");
+            (option ? options : overrides).put(key, args[i + 1]);
+        }
+        SimulationScenario scenario = SimulationScenario.load(
+            options.containsKey("scenario") ? Paths.get(options.get("scenario")) : null, overrides);
+        PasswordHasher.setDefault(new PasswordHasher(scenario.kdfIterations));
+        System.out.println("Scenario:");
+        scenario.describe().forEach(line -> System.out.println("  " + line));
+
+        ElectionDaySimulator simulator = new ElectionDaySimulator(scenario);
+        simulator.run();
+        List<String[]> rows = simulator.rows();
+        if (options.containsKey("out")) {
+            simulator.writeCsv(Paths.get(options.get("out")), rows);
+        }
+        if (options.containsKey("baseline")) {
+            simulator.compare(Paths.get(options.get("baseline")), rows);
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        for (int c = 0; c < candidateIds.length; c++) {
+            Candidate candidate = new Candidate("Candidate " + c, "Party " + (c % 8), "", "", "");
+            service.addCandidate(candidate);
+            candidateIds[c] = candidate.getId();
+        }
+        Station[] stations = layOutStations();
+        baselineHeap = retainedHeap();
+
+        register();
+        vote(stations);
+        close();
+
+        long voters = scenario.voters;
+        long retained = phases.get(phases.size() - 2).heapRetained - baselineHeap;
+        System.out.printf("%nRetained heap after voting: %,d bytes per voter, about %.1f GB for %,d voters%n",
+            retained / voters, (double) retained / voters * scenario.projectVoters / (1L << 30),
+            scenario.projectVoters);
+        System.out.printf("Outcome fingerprint: %016x%n", fingerprint);
+    }
+
+    // Sizes stations and gives each its curve and random stream, all from the scenario seed
+    private Station[] layOutStations() {
+        SplittableRandom seed = new SplittableRandom(scenario.seed);
+        double[] shares = new double[scenario.stations];
+        double total = 0;
+        for (int s = 0; s < shares.length; s++) {
+            shares[s] = Math.exp(0.5 * seed.nextGaussian());
+            total += shares[s];
+        }
+        // Every station gets at least one voter; the rest are shared out by weight
+        int[] sizes = new int[shares.length];
+        int remaining = scenario.voters - shares.length;
+        int assigned = 0;
+        for (int s = 0; s < sizes.length; s++) {
+            sizes[s] = 1 + (int) (remaining * shares[s] / total);
+            assigned += sizes[s];
+        }
+        for (int s = 0; assigned < scenario.voters; s = (s + 1) % sizes.length) {
+            sizes[s]++;
+            assigned++;
+        }
+
+        Station[] stations = new Station[sizes.length];
+        int firstVoter = 0;
+        for (int s = 0; s < stations.length; s++) {
+            SplittableRandom random = seed.split();
+            double[] hourWeights = new double[scenario.hours()];
+            for (int h = 0; h < hourWeights.length; h++) {
+                hourWeights[h] = scenario.hourlyCurve[h] * (1 + scenario.stationJitter * (2 * random.nextDouble() - 1));
+            }
+            double dayWeight = 0;
+            for (int minute = 0; minute < scenario.hours() * MINUTES_PER_HOUR; minute++) {
+                dayWeight += minuteWeight(hourWeights, minute);
+            }
+            boolean faulty = random.nextDouble() < scenario.faultyStations;
+            stations[s] = new Station(String.format("STATION-%05d", s + 1), firstVoter,
+                (int) Math.round(sizes[s] * scenario.turnout), faulty, hourWeights, random, dayWeight);
+            firstVoter += sizes[s];
+        }
+        return stations;
+    }
+
+    private double minuteWeight(double[] hourWeights, int minute) {
+        double weight = hourWeights[minute / MINUTES_PER_HOUR];
+        return minute < scenario.spikeMinutes ? weight * scenario.spikeFactor : weight;
+    }
+
+    // Phase 1: openRegistration, then the whole electorate through importVoters() or registerVoter()
+    private void register() throws Exception {
+        Path csv = null;
+        if (scenario.importRegistration) {
+            long started = System.nanoTime();
+            csv = Files.createTempFile("electorate", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+                writer.write("name,email,nationalId,password,status\n");
+                for (int i = 0; i < scenario.voters; i++) {
+                    writer.write("Voter " + i + "," + email(i) + "," + nationalId(i) + "," + PASSWORD + ","
+                        + (isVerified(i) ? "VERIFIED" : "PENDING_VERIFICATION") + "\n");
+                }
+            }
+            System.out.printf("%nWrote the %,d-voter import file in %.1f s%n",
+                scenario.voters, (System.nanoTime() - started) / 1e9);
+        }
+
+        Phase phase = begin("registration");
+        Recorder recorder = new Recorder();
+        long started = System.nanoTime();
+        service.openRegistration();
+        recorder.record(Op.OPEN_REGISTRATION, started);
+        if (csv != null) {
+            try {
+                started = System.nanoTime();
+                ImportReport report = service.importVoters(csv);
+                recorder.record(Op.IMPORT, report.getImported(), started);
+                if (report.getRejected() > 0) {
+                    System.out.println("Import refused rows: " + report);
+                }
+            } finally {
+                Files.deleteIfExists(csv);
+            }
+        } else {
+            recorder.merge(runThreads("register", scenario.threads, (thread, mine) -> {
+                int from = (int) ((long) scenario.voters * thread / scenario.threads);
+                int to = (int) ((long) scenario.voters * (thread + 1) / scenario.threads);
+                for (int i = from; i < to; i++) {
+                    Voter voter = new Voter("Voter " + i, email(i), nationalId(i), PASSWORD);
+                    if (isVerified(i)) {
+                        voter.setStatus(Voter.VoterStatus.VERIFIED);
+                    }
+                    long begun = System.nanoTime();
+                    service.registerVoter(voter);
+                    mine.record(Op.REGISTER, begun);
+                }
+            }));
+        }
+        end(phase, recorder);
+    }
+
+    // Phase 2: openVoting, then the day replayed minute by minute with the dashboards polling
+    private void vote(Station[] stations) throws Exception {
+        Phase phase = begin("voting");
+        Recorder recorder = new Recorder();
+        long started = System.nanoTime();
+        service.openVoting();
+        recorder.record(Op.OPEN_VOTING, started);
+
+        AtomicBoolean dayOver = new AtomicBoolean();
+        Recorder[] pollerRecorders = new Recorder[scenario.pollers];
+        Thread[] pollers = new Thread[scenario.pollers];
+        for (int p = 0; p < pollers.length; p++) {
+            Recorder mine = pollerRecorders[p] = new Recorder();
+            pollers[p] = new Thread(() -> pollLive(mine, dayOver), "poller-" + p);
+            pollers[p].setDaemon(true);
+            pollers[p].start();
+        }
+
+        int minutes = scenario.hours() * MINUTES_PER_HOUR;
+        double minuteNanos = scenario.daySeconds * 1e9 / minutes;
+        long dayStart = System.nanoTime();
+        try {
+            recorder.merge(runThreads("station", scenario.threads, (thread, mine) -> {
+                List<Station> own = new ArrayList<>();
+                for (int s = thread; s < stations.length; s += scenario.threads) {
+                    own.add(stations[s]);
+                }
+                int[] due = new int[own.size()];
+                for (int minute = 0; minute < minutes; minute++) {
+                    if (minuteNanos > 0) {
+                        awaitMinute(dayStart + (long) (minute * minuteNanos), mine);
+                    }
+                    int left = 0;
+                    for (int j = 0; j < due.length; j++) {
+                        Station station = own.get(j);
+                        due[j] = station.arrivals(minuteWeight(station.hourWeights, minute), minute == minutes - 1);
+                        left += due[j];
+                    }
+                    // Voters at different stations of this thread take turns within the minute
+                    while (left > 0) {
+                        for (int j = 0; j < due.length; j++) {
+                            if (due[j] > 0) {
+                                due[j]--;
+                                left--;
+                                castBallot(own.get(j), mine);
+                            }
+                        }
+                    }
+                }
+            }));
+        } finally {
+            dayOver.set(true);
+            for (int p = 0; p < pollers.length; p++) {
+                pollers[p].join();
+                recorder.merge(pollerRecorders[p]);
+            }
+        }
+        end(phase, recorder);
+    }
+
+    private void awaitMinute(long due, Recorder recorder) {
+        long now;
+        while ((now = System.nanoTime()) < due) {
+            LockSupport.parkNanos(due - now);
+        }
+        recorder.counts[Op.SCHEDULE_LAG.ordinal()]++;
+        recorder.latency[Op.SCHEDULE_LAG.ordinal()].record(now - due);
+    }
+
+    // One voter's visit. Every random draw is made up front, so the station's stream advances
+    // the same way whatever the service answers.
+    private void castBallot(Station station, Recorder recorder) {
+        SplittableRandom random = station.random;
+        int voter = station.nextVoter();
+        boolean wrongPassword = random.nextDouble() < scenario.wrongPassword;
+        boolean repeatLogin = random.nextDouble() < scenario.repeatLogin;
+        boolean duplicate = random.nextDouble() < scenario.duplicateVote;
+        int retries = 1 + random.nextInt(scenario.voteRetries);
+        int resubmits = station.faulty ? scenario.voteRetries : duplicate ? retries : 0;
+        String candidateId = candidateIds[pickCandidate(random.nextDouble())];
+
+        long started = System.nanoTime();
+        Voter record = service.findVoterByEmail(email(voter));
+        recorder.record(Op.FIND_VOTER, started);
+        if (wrongPassword) {
+            started = System.nanoTime();
+            try {
+                auth.logout(auth.login(record, PASSWORD + "?"));
+            } catch (VotingException expected) {
+                // Refused as it should be
+            }
+            recorder.record(Op.LOGIN_WRONG_PASSWORD, started);
+        }
+        String session = login(record, recorder);
+        if (session == null) {
+            return;
+        }
+        String secondSession = repeatLogin ? login(record, recorder) : null;
+
+        for (int attempt = 0; attempt <= resubmits; attempt++) {
+            started = System.nanoTime();
+            try {
+                service.castVote(auth.getVoterId(session), candidateId, station.name);
+                recorder.record(Op.VOTE, started);
+            } catch (VotingException e) {
+                recorder.reject(e, started);
+            }
+        }
+
+        started = System.nanoTime();
+        auth.logout(session);
+        recorder.record(Op.LOGOUT, started);
+        if (secondSession != null) {
+            started = System.nanoTime();
+            auth.logout(secondSession);
+            recorder.record(Op.LOGOUT, started);
+        }
+    }
+
+    // Logs in with the right password, retrying while the credential check sheds load; null if
+    // the voter gave up
+    private String login(Voter voter, Recorder recorder) {
+        for (int attempt = 1; ; attempt++) {
+            long started = System.nanoTime();
+            try {
+                String session = auth.login(voter, PASSWORD);
+                recorder.record(Op.LOGIN, started);
+                return session;
+            } catch (VotingException e) {
+                recorder.record(Op.LOGIN_SHED, started);
+                if (attempt == MAX_LOGIN_ATTEMPTS) {
+                    recorder.gaveUp++;
+                    return null;
+                }
+                LockSupport.parkNanos(LOGIN_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    private void pollLive(Recorder recorder, AtomicBoolean dayOver) {
+        long interval = scenario.pollRate > 0 ? (long) (1e9 / scenario.pollRate) : 0;
+        long next = System.nanoTime();
+        for (int poll = 0; !dayOver.get(); poll++) {
+            if (interval > 0) {
+                next += interval;
+                long now;
+                while ((now = System.nanoTime()) < next && !dayOver.get()) {
+                    LockSupport.parkNanos(next - now);
+                }
+            }
+            long started = System.nanoTime();
+            if (poll % TURNOUT_EVERY == TURNOUT_EVERY - 1) {
+                service.getTurnoutReport();
+                recorder.record(Op.TURNOUT, started);
+            } else if (poll % 2 == 0) {
+                service.getLiveResults();
+                recorder.record(Op.LIVE_RESULTS, started);
+            } else {
+                service.getStatistics();
+                recorder.record(Op.STATISTICS, started);
+            }
+        }
+    }
+
+    // Phase 3: closeElection, then the results-night crowd
+    private void close() throws Exception {
+        Phase phase = begin("close");
+        Recorder recorder = new Recorder();
+        long started = System.nanoTime();
+        service.closeElection();
+        recorder.record(Op.CLOSE, started);
+        int pollers = Math.max(1, scenario.pollers);
+        recorder.merge(runThreads("results", pollers, (thread, mine) -> {
+            int polls = scenario.resultsPolls / pollers + (thread < scenario.resultsPolls % pollers ? 1 : 0);
+            for (int poll = 0; poll < polls; poll++) {
+                long begun = System.nanoTime();
+                if (poll % TURNOUT_EVERY == TURNOUT_EVERY - 1) {
+                    service.getTurnoutReport();
+                    mine.record(Op.TURNOUT, begun);
+                } else {
+                    service.getResults();
+                    mine.record(Op.RESULTS, begun);
+                }
+            }
+        }));
+        end(phase, recorder);
+
+        // The tally in candidate order, what was refused and who gave up
+        Map<String, Integer> results = new TreeMap<>(service.getResults());
+        long hash = scenario.seed;
+        for (Map.Entry<String, Integer> result : results.entrySet()) {
+            hash = mix(hash ^ result.getKey().hashCode());
+            hash = mix(hash ^ result.getValue());
+        }
+        Recorder voting = phases.get(1).recorder;
+        for (long rejects : voting.rejects) {
+            hash = mix(hash ^ rejects);
+        }
+        fingerprint = mix(hash ^ voting.gaveUp);
+    }
+
+    private static Recorder runThreads(String name, int threads, Work work) throws Exception {
+        Recorder[] recorders = new Recorder[threads];
+        Thread[] workers = new Thread[threads];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Recorder recorder = recorders[t] = new Recorder();
+            workers[t] = new Thread(() -> {
+                try {
+                    work.run(thread, recorder);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, name + "-" + t);
+            workers[t].start();
+        }
+        Recorder merged = new Recorder();
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            merged.merge(recorders[t]);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException(name + " thread failed", failure.get());
+        }
+        return merged;
+    }
+
+    private Phase begin(String name) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        return new Phase(name, gcCount(), gcMillis());
+    }
+
+    private void end(Phase phase, Recorder recorder) {
+        phase.nanos = System.nanoTime() - phase.startedNanos;
+        phase.recorder = recorder;
+        phase.gcCount = gcCount() - phase.startGcCount;
+        phase.gcMillis = gcMillis() - phase.startGcMillis;
+        // Sum of each pool's own peak: an upper bound on the heap in use at any one moment
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                phase.heapPeak += pool.getPeakUsage().getUsed();
+            }
+        }
+        phase.heapRetained = retainedHeap();
+        phases.add(phase);
+        print(phase);
+    }
+
+    private void print(Phase phase) {
+        System.out.printf("%n== %s: %.1f s, heap peak %,d MB, retained %,d MB, GC %d collections / %,d ms%n",
+            phase.name, phase.seconds(), phase.heapPeak >> 20, phase.heapRetained >> 20, phase.gcCount, phase.gcMillis);
+        System.out.printf("%-28s %12s %12s %10s %10s %10s %12s%n",
+            "operation", "count", "ops/s", "p50 ns", "p99 ns", "p99.9 ns", "max ns");
+        Recorder recorder = phase.recorder;
+        for (Op op : OPS) {
+            long count = recorder.counts[op.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            LatencyHistogram latency = recorder.latency[op.ordinal()];
+            System.out.printf("%-28s %,12d %12.0f %10d %10d %10d %12d%n", op.label, count, count / phase.seconds(),
+                latency.percentile(50), latency.percentile(99), latency.percentile(99.9), latency.max());
+        }
+        StringBuilder refused = new StringBuilder();
+        for (int i = 0; i < recorder.rejects.length; i++) {
+            if (recorder.rejects[i] > 0) {
+                refused.append(String.format(" %s %,d", i < REASONS.length ? REASONS[i].label() : "other",
+                    recorder.rejects[i]));
+            }
+        }
+        if (refused.length() > 0) {
+            System.out.println("Refused:" + refused);
+        }
+        if (recorder.gaveUp > 0) {
+            System.out.printf("Voters who gave up after %d shed logins: %,d%n", MAX_LOGIN_ATTEMPTS, recorder.gaveUp);
+        }
+    }
+
+    // One row per operation and per phase figure: phase,metric,count,per_sec,p50_ns,p99_ns,p999_ns.
+    // Heap, GC and refusal rows carry their value in count.
+    private List<String[]> rows() {
+        List<String[]> rows = new ArrayList<>();
+        for (Phase phase : phases) {
+            Recorder recorder = phase.recorder;
+            for (Op op : OPS) {
+                long count = recorder.counts[op.ordinal()];
+                if (count > 0) {
+                    LatencyHistogram latency = recorder.latency[op.ordinal()];
+                    rows.add(new String[] {phase.name, op.label, String.valueOf(count),
+                        String.format("%.1f", count / phase.seconds()), String.valueOf(latency.percentile(50)),
+                        String.valueOf(latency.percentile(99)), String.valueOf(latency.percentile(99.9))});
+                }
+            }
+            for (int i = 0; i < recorder.rejects.length; i++) {
+                if (recorder.rejects[i] > 0) {
+                    rows.add(value(phase, "refused " + (i < REASONS.length ? REASONS[i].label() : "other"),
+                        recorder.rejects[i]));
+                }
+            }
+            rows.add(value(phase, "gave_up", recorder.gaveUp));
+            rows.add(value(phase, "elapsed_ms", phase.nanos / 1_000_000));
+            rows.add(value(phase, "heap_peak_bytes", phase.heapPeak));
+            rows.add(value(phase, "heap_retained_bytes", phase.heapRetained));
+            rows.add(value(phase, "gc_ms", phase.gcMillis));
+        }
+        return rows;
+    }
+
+    private static String[] value(Phase phase, String metric, long value) {
+        return new String[] {phase.name, metric, String.valueOf(value), "0", "0", "0", "0"};
+    }
+
+    // The scenario and fingerprint go first as # lines, so a comparison can tell whether the
+    // two runs drove the same traffic
+    private void writeCsv(Path file, List<String[]> rows) throws IOException {
+        List<String> lines = new ArrayList<>();
+        scenario.describe().forEach(line -> lines.add("# " + line));
+        lines.add(String.format("# fingerprint=%016x", fingerprint));
+        lines.add("phase,metric,count,per_sec,p50_ns,p99_ns,p999_ns");
+        for (String[] row : rows) {
+            lines.add(String.join(",", row));
+        }
+        Files.write(file, lines);
+        System.out.println("Results written to " + file);
+    }
+
+    private void compare(Path baselineFile, List<String[]> rows) throws IOException {
+        Map<String, String> baselineScenario = new HashMap<>();
+        Map<String, String[]> baseline = new HashMap<>();
+        List<String> lines = Files.readAllLines(baselineFile);
+        for (String line : lines) {
+            if (line.startsWith("# ")) {
+                int split = line.indexOf('=');
+                baselineScenario.put(line.substring(2, split), line.substring(split + 1));
+            } else if (!line.startsWith("phase,")) {
+                String[] fields = line.split(",");
+                baseline.put(fields[0] + "/" + fields[1], fields);
+            }
+        }
+
+        System.out.printf("%nAgainst baseline %s:%n", baselineFile);
+        for (String difference : scenario.differences(baselineScenario)) {
+            System.out.println("  scenario " + difference);
+        }
+        String before = baselineScenario.get("fingerprint");
+        if (before != null && !before.equals(String.format("%016x", fingerprint))) {
+            System.out.println("  outcome fingerprint differs: " + before + " -> " + String.format("%016x", fingerprint));
+        }
+        System.out.printf("%-12s %-28s %14s %12s %12s%n", "phase", "metric", "count delta", "per_sec delta", "p99 delta");
+        for (String[] row : rows) {
+            String[] was = baseline.get(row[0] + "/" + row[1]);
+            if (was == null) {
+                continue;
+            }
+            System.out.printf("%-12s %-28s %+13.1f%% %+12.1f%% %+11.1f%%%n", row[0], row[1],
+                percentChange(Double.parseDouble(was[2]), Double.parseDouble(row[2])),
+                percentChange(Double.parseDouble(was[3]), Double.parseDouble(row[3])),
+                percentChange(Double.parseDouble(was[5]), Double.parseDouble(row[5])));
+        }
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+
+    private int pickCandidate(double draw) {
+        double target = draw * candidateWeights[candidateWeights.length - 1];
+        int index = Arrays.binarySearch(candidateWeights, target);
+        return Math.min(index < 0 ? -index - 1 : index, candidateWeights.length - 1);
+    }
+
+    private static String email(int voter) {
+        return "voter" + voter + "@rehearsal.example";
+    }
+
+    private static String nationalId(int voter) {
+        return "RH" + voter;
+    }
+
+    // Whether a voter was verified at registration, fixed by the seed and the voter's number
+    private boolean isVerified(int voter) {
+        return (mix(scenario.seed + voter * 0x9E3779B97F4A7C15L) >>> 11) * 0x1.0p-53 >= scenario.unverified;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Exact for small n, inversion for small means, normal approximation otherwise
+    private static int binomial(SplittableRandom random, int n, double p) {
+        if (n == 0 || p <= 0) {
+            return 0;
+        }
+        if (p >= 1) {
+            return n;
+        }
+        if (n <= 32) {
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (random.nextDouble() < p) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        double mean = n * p;
+        double variance = mean * (1 - p);
+        if (variance >= 10) {
+            long draw = Math.round(mean + Math.sqrt(variance) * random.nextGaussian());
+            return (int) Math.max(0, Math.min(n, draw));
+        }
+        double odds = p / (1 - p);
+        double a = (n + 1) * odds;
+        double probability = Math.pow(1 - p, n);
+        double u = random.nextDouble();
+        int k = 0;
+        while (u > probability && k < n) {
+            u -= probability;
+            k++;
+            probability *= a / k - odds;
+        }
+        return k;
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,267 @@
+package bench;
+
+import model.*;
+import service.AuthenticationService;
+import service.BatchResult;
+import service.ElectionService;
+import service.VoteBatch;
+import exception.VotingException;
+import util.ElectionLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Benchmark suite for the service hot paths. Reads, logins and rejections run in throughput
+// mode against one open (or closed) election; votes run in SingleShotTime mode over a fixed
+// batch per thread, since each voter votes once. -prof gc adds allocated bytes per operation
+// (gc.alloc.rate.norm) and -bm sample latency percentiles; CompareResults checks a CSV written
+// with -rf csv against an earlier one, so each change can be checked against the last run.
+//
+// Usage: mvn -P benchmarks package
+//        java -jar target/benchmarks.jar ElectionServiceBenchmarks [-t threads] [-p voters=1000000]
+//          [-prof gc] [-rf csv -rff results.csv]
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ElectionServiceBenchmarks {
+    private static final int VOTED = 1024;
+    private static final int BATCH_SIZE = 100;
+
+    // An open election whose first VOTED voters have voted, plus logged-in sessions
+    @State(Scope.Benchmark)
+    public static class Open {
+        @Param("1000000")
+        public int voters;
+        @Param("1000")
+        public int candidates;
+
+        ElectionService service;
+        AuthenticationService auth;
+        Voter[] voterList;
+        String[] candidateIds;
+        String[] sessions;
+        private ElectionLogger logger;
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws VotingException {
+            BenchSupport.cheapPasswordHashing();
+            logger = BenchSupport.quietLogger();
+            service = new ElectionService("Benchmark", LocalDateTime.now(), logger);
+            candidateIds = new String[candidates];
+            for (int i = 0; i < candidates; i++) {
+                Candidate candidate = new Candidate("Candidate " + i, "Party " + (i % 20), "", "", "");
+                service.addCandidate(candidate);
+                candidateIds[i] = candidate.getId();
+            }
+            service.openRegistration();
+            voterList = new Voter[voters];
+            for (int i = 0; i < voters; i++) {
+                voterList[i] = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw" + i);
+                voterList[i].setStatus(Voter.VoterStatus.VERIFIED);
+                service.registerVoter(voterList[i]);
+            }
+            service.openVoting();
+            for (int i = 0; i < VOTED; i++) {
+                service.castVote(voterList[i].getId(), candidateIds[i % candidates], "STATION-1");
+            }
+            auth = new AuthenticationService();
+            sessions = new String[Math.min(voters, 100_000)];
+            for (int i = 0; i < sessions.length; i++) {
+                sessions[i] = auth.login(voterList[i], "pw" + i);
+            }
+            if (closed()) {
+                service.closeElection();
+            }
+        }
+
+        boolean closed() {
+            return false;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            logger.close();
+        }
+
+        int next() {
+            return next.getAndIncrement() & Integer.MAX_VALUE;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Closed extends Open {
+        @Override
+        boolean closed() {
+            return true;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Registration {
+        ElectionService service;
+        private ElectionLogger logger;
+        final AtomicLong next = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() throws VotingException {
+            BenchSupport.cheapPasswordHashing();
+            logger = BenchSupport.quietLogger();
+            service = new ElectionService("Registration", LocalDateTime.now(), logger);
+            service.openRegistration();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            logger.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Logger {
+        ElectionLogger logger;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            logger = new ElectionLogger(null, 65536, ElectionLogger.OverflowPolicy.BLOCK, false, 1000);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            logger.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchBallots extends Ballots {
+        private final AtomicLong nextBatch = new AtomicLong();
+
+        @Override
+        int ballotsPerCall() {
+            return BATCH_SIZE;
+        }
+    }
+
+    @Benchmark
+    public void loggerLogAction(Logger state) {
+        state.logger.logAction("Vote cast by voter ID: benchmark");
+    }
+
+    @Benchmark
+    public void registerVoter(Registration state) throws VotingException {
+        long n = state.next.getAndIncrement();
+        state.service.registerVoter(new Voter("New " + n, "new" + n + "@example.org", "NEW" + n, "pw"));
+    }
+
+    @Benchmark
+    public String login(Open state) throws VotingException {
+        int i = state.next() % state.voters;
+        return state.auth.login(state.voterList[i], "pw" + i);
+    }
+
+    @Benchmark
+    public String getVoterId(Open state) throws VotingException {
+        return state.auth.getVoterId(state.sessions[state.next() % state.sessions.length]);
+    }
+
+    // Reject paths, as a station client retrying a bad ballot in a loop would hit them
+    @Benchmark
+    public VotingException castVoteRejectedUnknownVoter(Open state) {
+        return rejection(state.service, "no-such-voter", state.candidateIds[0]);
+    }
+
+    // Voters past the first VOTED haven't voted, so the candidate check is reached
+    @Benchmark
+    public VotingException castVoteRejectedUnknownCandidate(Open state) {
+        int i = VOTED + (state.next() & (VOTED - 1));
+        return rejection(state.service, state.voterList[i].getId(), "no-such-candidate");
+    }
+
+    @Benchmark
+    public VotingException castVoteRejectedAlreadyVoted(Open state) {
+        int i = state.next() & (VOTED - 1);
+        return rejection(state.service, state.voterList[i].getId(), state.candidateIds[i % state.candidates]);
+    }
+
+    @Benchmark
+    public VotingException castVoteRejectedElectionClosed(Closed state) {
+        int i = VOTED + (state.next() & (VOTED - 1));
+        return rejection(state.service, state.voterList[i].getId(), state.candidateIds[0]);
+    }
+
+    private static VotingException rejection(ElectionService service, String voterId, String candidateId) {
+        try {
+            service.castVote(voterId, candidateId, "STATION-1");
+        } catch (VotingException expected) {
+            return expected;
+        }
+        throw new IllegalStateException("Expected a rejection");
+    }
+
+    // Score is the time each thread takes for its batch of 50,000 votes
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = 50_000)
+    @Measurement(iterations = 10, batchSize = 50_000)
+    public void castVote(Ballots ballots) throws VotingException {
+        ballots.castVote();
+    }
+
+    // Score is the time each thread takes for its 500 batches of BATCH_SIZE votes
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = 500)
+    @Measurement(iterations = 10, batchSize = 500)
+    public BatchResult castVotes(BatchBallots ballots) throws VotingException {
+        int first = ballots.take(BATCH_SIZE);
+        List<VoteBatch.Ballot> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = first; i < first + BATCH_SIZE; i++) {
+            batch.add(new VoteBatch.Ballot(ballots.voterIds[i], ballots.candidateIds[i % ballots.candidateIds.length]));
+        }
+        return ballots.service.castVotes(new VoteBatch("B" + ballots.nextBatch.getAndIncrement(),
+            ballots.stations[first % ballots.stations.length], batch));
+    }
+
+    @Benchmark
+    public ElectionService.ElectionStatistics getStatistics(Open state) {
+        return state.service.getStatistics();
+    }
+
+    @Benchmark
+    public List<Candidate> getCandidates(Open state) {
+        return state.service.getCandidates();
+    }
+
+    @Benchmark
+    public List<Candidate> getTopCandidates(Open state) {
+        return state.service.getTopCandidates(10);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getResults(Closed state) throws VotingException {
+        return state.service.getResults();
+    }
+}
@@ -0,0 +1,140 @@
+package bench;
+
+import model.*;
+import service.AuthenticationService;
+import service.ElectionService;
+import ui.ElectionHttpServer;
+import util.LatencyHistogram;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator for the HTTP front end. Starts the server in-process on a free port with a
+// fixture election, then drives N concurrent clients from a small async HttpClient pool, so
+// 10K clients don't need 10K client threads. Each client logs in, casts its vote, then polls
+// statistics until time is up. Reports requests/sec and latency percentiles per endpoint.
+//
+// Usage: java -Xmx4g -Dsun.net.httpserver.nodelay=true bench.HttpLoadGenerator [clients] [seconds]
+// Each client keeps a connection open, so the fd limit must allow about 2 x clients.
+// On JDK 17.0.9, several thousand keep-alive clients can leave the built-in server's dispatcher
+// spinning on CancelledKeyException when it re-registers a connection; running with
+// -Dsun.net.httpserver.maxIdleConnections=0 avoids that by closing connections after each
+// response, at a large throughput cost.
+public class HttpLoadGenerator {
+
+    private static final class Endpoint {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(long nanos) {
+            latency.record(nanos);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        ElectionService service = new ElectionService("Load", LocalDateTime.now(), BenchSupport.quietLogger());
+        String[] candidateIds = new String[10];
+        for (int i = 0; i < candidateIds.length; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party " + i, "", "", "");
+            service.addCandidate(candidate);
+            candidateIds[i] = candidate.getId();
+        }
+        service.openRegistration();
+        for (int i = 0; i < clients; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw" + i);
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+        }
+        service.openVoting();
+
+        try (ElectionHttpServer server = new ElectionHttpServer(service, new AuthenticationService(),
+                new InetSocketAddress("127.0.0.1", 0))) {
+            server.start();
+            String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/";
+            ExecutorService clientPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            HttpClient http = HttpClient.newBuilder()
+                .executor(clientPool)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+            Endpoint login = new Endpoint("POST /api/sessions");
+            Endpoint vote = new Endpoint("POST /api/votes");
+            Endpoint stats = new Endpoint("GET /api/statistics");
+            long start = System.nanoTime();
+            long end = start + Duration.ofSeconds(seconds).toNanos();
+
+            CompletableFuture<?>[] running = new CompletableFuture<?>[clients];
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                HttpRequest loginRequest = HttpRequest.newBuilder(URI.create(base + "sessions"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"voter" + client + "@example.org\",\"password\":\"pw" + client + "\"}"))
+                    .build();
+                running[i] = send(http, loginRequest, login).thenCompose(response -> {
+                    String sessionId = response.body().replaceAll(".*\"sessionId\":\"([^\"]+)\".*", "$1");
+                    HttpRequest voteRequest = HttpRequest.newBuilder(URI.create(base + "votes"))
+                        .header("Authorization", "Bearer " + sessionId)
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"candidateId\":\""
+                            + candidateIds[client % candidateIds.length] + "\",\"station\":\"STATION-"
+                            + (client % 100) + "\"}"))
+                        .build();
+                    return send(http, voteRequest, vote);
+                }).thenCompose(response -> poll(http, URI.create(base + "statistics"), stats, end));
+            }
+            CompletableFuture.allOf(running).exceptionally(e -> null).join();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d clients for %.1f s (%d votes recorded)%n", clients, elapsed,
+                service.getStatistics().getTotalVotes());
+            System.out.printf("%-22s %10s %10s %10s %10s %10s %10s %8s%n",
+                "endpoint", "requests", "req/s", "p50 us", "p99 us", "p99.9 us", "max us", "failed");
+            long total = 0;
+            for (Endpoint endpoint : new Endpoint[]{login, vote, stats}) {
+                LatencyHistogram latency = endpoint.latency;
+                total += latency.count();
+                System.out.printf("%-22s %10d %10.0f %10d %10d %10d %10d %8d%n", endpoint.name,
+                    latency.count(), latency.count() / elapsed, latency.percentile(50) / 1000,
+                    latency.percentile(99) / 1000, latency.percentile(99.9) / 1000, latency.max() / 1000,
+                    endpoint.failures.sum());
+            }
+            System.out.printf("Total: %.0f req/s%n", total / elapsed);
+            clientPool.shutdownNow();
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> send(HttpClient http, HttpRequest request, Endpoint endpoint) {
+        long begin = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            endpoint.record(System.nanoTime() - begin);
+            if (error != null || response.statusCode() >= 400) {
+                endpoint.failures.increment();
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> poll(HttpClient http, URI uri, Endpoint endpoint, long end) {
+        if (System.nanoTime() >= end) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return send(http, HttpRequest.newBuilder(uri).GET().build(), endpoint)
+            .thenCompose(response -> poll(http, uri, endpoint, end));
+    }
+}
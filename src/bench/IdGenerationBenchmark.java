@@ -0,0 +1,127 @@
+package bench;
+
+import util.ConcurrentLongMap;
+import util.Ids;
+import util.TimeOrderedIdGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// ID generation and ID-keyed lookup, before and after: UUID.randomUUID() strings in a
+// ConcurrentHashMap against time-ordered 64-bit IDs in a ConcurrentLongMap. Run at several
+// thread counts (-t) and with -prof gc for allocated bytes per operation. main() reports the
+// retained heap of each map, which JMH doesn't measure.
+// Usage: java -jar target/benchmarks.jar IdGenerationBenchmark [-t threads] [-p entries=1000000]
+//        java -Xmx4g -cp target/benchmarks.jar bench.IdGenerationBenchmark [entries]
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IdGenerationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Maps {
+        @Param("1000000")
+        public int entries;
+
+        final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        String[] uuidKeys;
+        Map<String, Object> uuidMap;
+        String[] idKeys;
+        ConcurrentLongMap<Object> idMap;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            uuidKeys = new String[entries];
+            uuidMap = new ConcurrentHashMap<>();
+            fillUuids(uuidKeys, uuidMap);
+            idKeys = new String[entries];
+            idMap = new ConcurrentLongMap<>();
+            fillIds(generator, idKeys, idMap);
+        }
+    }
+
+    @Benchmark
+    public String uuidRandomUUID() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String idsNextString() {
+        return Ids.nextString();
+    }
+
+    @Benchmark
+    public long timeOrderedNextId(Maps maps) {
+        return maps.generator.nextId();
+    }
+
+    @Benchmark
+    public Object concurrentHashMapGetUuid(Maps maps) {
+        return maps.uuidMap.get(maps.uuidKeys[ThreadLocalRandom.current().nextInt(maps.entries)]);
+    }
+
+    @Benchmark
+    public Object concurrentLongMapGetId(Maps maps) {
+        return maps.idMap.get(Ids.parse(maps.idKeys[ThreadLocalRandom.current().nextInt(maps.entries)]));
+    }
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long before = usedHeap();
+        String[] uuidKeys = new String[entries];
+        Map<String, Object> uuidMap = new ConcurrentHashMap<>();
+        fillUuids(uuidKeys, uuidMap);
+        long uuidBytes = usedHeap() - before;
+
+        before = usedHeap();
+        String[] idKeys = new String[entries];
+        ConcurrentLongMap<Object> idMap = new ConcurrentLongMap<>();
+        fillIds(new TimeOrderedIdGenerator(), idKeys, idMap);
+        long idBytes = usedHeap() - before;
+        // The sizes keep both maps reachable until both are measured
+        System.out.printf("Retained per entry (key strings included): UUID + ConcurrentHashMap %.1f B, "
+            + "64-bit ID + ConcurrentLongMap %.1f B (%d and %d entries)%n", (double) uuidBytes / entries,
+            (double) idBytes / entries, uuidMap.size(), idMap.size());
+    }
+
+    private static void fillUuids(String[] keys, Map<String, Object> map) {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            map.put(keys[i], Boolean.TRUE);
+        }
+    }
+
+    private static void fillIds(TimeOrderedIdGenerator generator, String[] keys, ConcurrentLongMap<Object> map) {
+        for (int i = 0; i < keys.length; i++) {
+            long id = generator.nextId();
+            keys[i] = Ids.format(id);
+            map.putIfAbsent(id, Boolean.TRUE);
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,107 @@
+package bench;
+
+import model.*;
+import persistence.VoteJournal;
+import service.ElectionService;
+import exception.VotingException;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Builds a journaled election, casts one vote per voter from many threads (measuring how many
+// votes share each fsync), then recovers a fresh service from the journal and times the replay.
+// Usage: java bench.JournalRecoveryBenchmark [voters] [threads] [groupCommitMicros]
+public class JournalRecoveryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int voterCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long groupCommitMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+        Path dir = Files.createTempDirectory("journal-bench");
+        Path journalFile = dir.resolve("election.journal");
+        Path roll = dir.resolve("roll.csv");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(roll, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < voterCount; i++) {
+                    writer.write("Voter " + i + ",voter" + i + "@example.org,NID" + i + ",pw,VERIFIED\n");
+                }
+            }
+
+            List<String> candidateIds = new ArrayList<>();
+            String[] voterIds = new String[voterCount];
+            long syncs;
+            long castNanos;
+            try (VoteJournal journal = new VoteJournal(journalFile, groupCommitMicros, 1 << 20)) {
+                ElectionService service = ElectionService.recover("Journal", LocalDateTime.now(),
+                    BenchSupport.quietLogger(), journal);
+                for (int i = 0; i < 20; i++) {
+                    Candidate candidate = new Candidate("Candidate " + i, "Party " + i, "", "", "");
+                    service.addCandidate(candidate);
+                    candidateIds.add(candidate.getId());
+                }
+                service.openRegistration();
+                service.importVoters(roll);
+                for (int i = 0; i < voterCount; i++) {
+                    voterIds[i] = service.findVoterByNationalId("NID" + i).getId();
+                }
+                service.openVoting();
+
+                long syncsBefore = journal.getSyncCount();
+                AtomicInteger next = new AtomicInteger();
+                List<Thread> workers = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    Thread worker = new Thread(() -> {
+                        for (int i = next.getAndIncrement(); i < voterCount; i = next.getAndIncrement()) {
+                            try {
+                                service.castVote(voterIds[i], candidateIds.get(i % candidateIds.size()), "STATION-" + (i % 100));
+                            } catch (VotingException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                    });
+                    worker.start();
+                    workers.add(worker);
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                castNanos = System.nanoTime() - start;
+                syncs = journal.getSyncCount() - syncsBefore;
+            }
+
+            System.out.printf("Journaled %d votes with %d threads, group commit %d us: %.0f votes/sec, %.1f votes per fsync%n",
+                voterCount, threads, groupCommitMicros, voterCount / (castNanos / 1e9), (double) voterCount / syncs);
+            System.out.printf("Journal size: %d MB%n", Files.size(journalFile) >> 20);
+
+            System.gc();
+            long start = System.nanoTime();
+            try (VoteJournal journal = new VoteJournal(journalFile)) {
+                ElectionService recovered = ElectionService.recover("Journal", LocalDateTime.now(),
+                    BenchSupport.quietLogger(), journal);
+                long recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+                ElectionService.ElectionStatistics stats = recovered.getStatistics();
+                if (stats.getTotalVotes() != voterCount || stats.getStatus() != ElectionService.ElectionStatus.VOTING_OPEN) {
+                    throw new IllegalStateException("Recovered state mismatch: " + stats.getTotalVotes() + " votes");
+                }
+                System.out.printf("Recovered %d voters and %d votes in %d ms%n",
+                    stats.getTotalVoters(), stats.getTotalVotes(), recoveryMillis);
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package bench;
+
+import service.ElectionService;
+import exception.VotingException;
+import util.Counter;
+import util.ElectionLogger;
+import util.InstrumentedLock;
+import util.LatencyTimer;
+import util.MetricsRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Cost of the metrics instrumentation: the raw instruments against their uninstrumented
+// equivalents, then castVote on an election built with the default registry disabled against
+// one built with it enabled. With -prof gc, B/op should match between the two castVote runs;
+// the instruments themselves should show 0.
+// Usage: java -jar target/benchmarks.jar MetricsOverheadBenchmark [-t threads] [-prof gc]
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MetricsOverheadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Instruments {
+        Counter counter;
+        LatencyTimer timer;
+        InstrumentedLock instrumented;
+        final ReentrantLock plain = new ReentrantLock();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            MetricsRegistry registry = MetricsRegistry.create();
+            counter = registry.counter("bench_counter_total", "Benchmark counter");
+            timer = registry.timer("bench_timer_seconds", "Benchmark timer");
+            instrumented = new InstrumentedLock(
+                registry.counter("bench_lock_contended_total", "Benchmark lock contention"),
+                registry.timer("bench_lock_wait_seconds", "Benchmark lock wait"),
+                registry.timer("bench_lock_held_seconds", "Benchmark lock hold"));
+        }
+    }
+
+    // Ballots on an election built while the default registry was enabled or disabled
+    @State(Scope.Benchmark)
+    public static class MeteredBallots extends Ballots {
+        @Param({"true", "false"})
+        public boolean metrics;
+
+        @Override
+        ElectionService newService(ElectionLogger logger) {
+            MetricsRegistry enabled = MetricsRegistry.getDefault();
+            if (!metrics) {
+                MetricsRegistry.setDefault(MetricsRegistry.disabled());
+            }
+            try {
+                return super.newService(logger);
+            } finally {
+                MetricsRegistry.setDefault(enabled);
+            }
+        }
+    }
+
+    @Benchmark
+    public void counterIncrement(Instruments state) {
+        state.counter.increment();
+    }
+
+    @Benchmark
+    public void latencyTimerRecord(Instruments state) {
+        state.timer.record(1000);
+    }
+
+    @Benchmark
+    public void reentrantLockUnlock(Instruments state) {
+        state.plain.lock();
+        state.plain.unlock();
+    }
+
+    @Benchmark
+    public void instrumentedLockUnlock(Instruments state) {
+        state.instrumented.lock();
+        state.instrumented.unlock();
+    }
+
+    // Score is the time each thread takes for its batch of 50,000 votes
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = 50_000)
+    @Measurement(iterations = 10, batchSize = 50_000)
+    public void castVote(MeteredBallots ballots) throws VotingException {
+        ballots.castVote();
+    }
+}
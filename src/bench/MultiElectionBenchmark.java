@@ -0,0 +1,187 @@
+package bench;
+
+import model.*;
+import service.ElectionHost;
+import service.ElectionService;
+import exception.VotingException;
+
+import util.ElectionLogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Many elections on one ElectionHost sharing one voter registry. main() reports retained heap
+// per election (empty, then after voting) and threads added by hosting them, then has one voter
+// log in once and vote in every election with that session. The JMH benchmarks compare castVote
+// when consecutive votes go to different elections against all votes going to one.
+// Usage: java -cp target/benchmarks.jar bench.MultiElectionBenchmark [elections] [voters]
+//        java -jar target/benchmarks.jar MultiElectionBenchmark [-t threads] [-p elections=100]
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MultiElectionBenchmark {
+
+    // A fresh host per iteration with `elections` open elections and enough voters for every
+    // thread's batch, whether the votes are spread over the elections or all go to one
+    @State(Scope.Benchmark)
+    public static class Hosted {
+        @Param("100")
+        public int elections;
+
+        ElectionHost host;
+        ElectionService[] contests;
+        String[][] candidateIds;
+        ElectionService single;
+        String[] singleCandidates;
+        String[] voterIds;
+        private ElectionLogger logger;
+        private final AtomicLong next = new AtomicLong();
+
+        @Setup(Level.Iteration)
+        public void setUp(BenchmarkParams params) throws VotingException {
+            BenchSupport.cheapPasswordHashing();
+            logger = BenchSupport.quietLogger();
+            host = new ElectionHost(logger);
+            int needed = params.getThreads() * Math.max(params.getWarmup().getBatchSize(),
+                params.getMeasurement().getBatchSize());
+            voterIds = new String[needed];
+            for (int i = 0; i < needed; i++) {
+                Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+                voter.setStatus(Voter.VoterStatus.VERIFIED);
+                host.registerVoter(voter);
+                voterIds[i] = voter.getId();
+            }
+            contests = new ElectionService[elections];
+            candidateIds = new String[elections][];
+            for (int e = 0; e < elections; e++) {
+                contests[e] = openElection(host, "Contest " + e);
+                candidateIds[e] = contests[e].getCandidates().stream().map(Candidate::getId).toArray(String[]::new);
+            }
+            single = openElection(host, "Single");
+            singleCandidates = single.getCandidates().stream().map(Candidate::getId).toArray(String[]::new);
+            next.set(0);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            host.close();
+            logger.close();
+        }
+    }
+
+    // Score is the time each thread takes for its batch of 50,000 votes
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = 50_000)
+    @Measurement(iterations = 10, batchSize = 50_000)
+    public void castVoteAcrossElections(Hosted state) throws VotingException {
+        long i = state.next.getAndIncrement();
+        int e = (int) (i % state.elections);
+        int voter = (int) (i / state.elections);
+        state.contests[e].castVote(state.voterIds[voter], state.candidateIds[e][voter % state.candidateIds[e].length],
+            "STATION-1");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = 50_000)
+    @Measurement(iterations = 10, batchSize = 50_000)
+    public void castVoteInOneElection(Hosted state) throws VotingException {
+        int voter = (int) state.next.getAndIncrement();
+        state.single.castVote(state.voterIds[voter], state.singleCandidates[voter % state.singleCandidates.length],
+            "STATION-1");
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int electionCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int voterCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        ElectionHost host = new ElectionHost(BenchSupport.quietLogger());
+        long start = usedHeap();
+        String[] voterIds = new String[voterCount];
+        for (int i = 0; i < voterCount; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            host.registerVoter(voter);
+            voterIds[i] = voter.getId();
+        }
+        long registered = usedHeap();
+        System.out.printf("Shared registry: %,d voters, %,d bytes%n", voterCount, registered - start);
+
+        int threadsBefore = Thread.activeCount();
+        ElectionService[] elections = new ElectionService[electionCount];
+        String[][] candidateIds = new String[electionCount][];
+        for (int e = 0; e < electionCount; e++) {
+            elections[e] = openElection(host, "Contest " + e);
+            List<Candidate> candidates = elections[e].getCandidates();
+            candidateIds[e] = candidates.stream().map(Candidate::getId).toArray(String[]::new);
+        }
+        long hosted = usedHeap();
+        System.out.printf("%d elections: %,d bytes each before voting, %d threads added%n",
+            electionCount, (hosted - registered) / electionCount, Thread.activeCount() - threadsBefore);
+
+        for (int voter = 0; voter < voterCount; voter++) {
+            for (int e = 0; e < electionCount; e++) {
+                elections[e].castVote(voterIds[voter], candidateIds[e][voter % candidateIds[e].length], "STATION-1");
+            }
+        }
+        long votes = (long) voterCount * electionCount;
+        long voted = usedHeap();
+        System.out.printf("After %,d votes: %,d bytes per election, %.1f bytes per vote%n",
+            votes, (voted - registered) / electionCount, (double) (voted - hosted) / votes);
+
+        Voter voter = new Voter("Roaming Voter", "roaming@example.org", "NID-ROAMING", "pw");
+        voter.setStatus(Voter.VoterStatus.VERIFIED);
+        host.registerVoter(voter);
+        String session = host.getAuthenticationService().login(voter, "pw");
+        for (int e = 0; e < electionCount; e++) {
+            host.castVote(session, elections[e].getElectionName(), candidateIds[e][0], "STATION-2");
+        }
+        try {
+            host.castVote(session, elections[0].getElectionName(), candidateIds[0][0], "STATION-2");
+            throw new IllegalStateException("Second vote in the same election was accepted");
+        } catch (VotingException expected) {
+            System.out.printf("One session voted in %d elections; a second vote was refused: %s%n",
+                electionCount, expected.getMessage());
+        }
+        host.close();
+    }
+
+    private static ElectionService openElection(ElectionHost host, String name) throws VotingException {
+        ElectionService election = host.createElection(name, LocalDateTime.now());
+        for (int c = 0; c < 10; c++) {
+            election.addCandidate(new Candidate(name + " candidate " + c, "Party " + c, "", "", ""));
+        }
+        election.openRegistration();
+        election.openVoting();
+        return election;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
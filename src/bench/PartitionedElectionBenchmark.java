@@ -0,0 +1,87 @@
+package bench;
+
+import model.*;
+import service.ElectionService;
+import service.PartitionedElectionService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs one election across in-process shards: registers voters through the coordinator, casts
+// every vote from several threads, closes, and checks that the merged results and statistics
+// add up to exactly the number of votes cast. Also reports how evenly voters were spread.
+// Usage: java bench.PartitionedElectionBenchmark [voters] [shards] [threads]
+public class PartitionedElectionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int voterCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int shardCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        PartitionedElectionService election = new PartitionedElectionService("Partitioned",
+            LocalDateTime.now(), shardCount, BenchSupport.quietLogger());
+        String[] candidateIds = new String[10];
+        for (int i = 0; i < candidateIds.length; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party " + i, "", "", "");
+            election.addCandidate(candidate);
+            candidateIds[i] = candidate.getId();
+        }
+        election.openRegistration();
+
+        long start = System.nanoTime();
+        String[] voterIds = new String[voterCount];
+        int[] perShard = new int[shardCount];
+        for (int i = 0; i < voterCount; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            election.registerVoter(voter);
+            voterIds[i] = voter.getId();
+            perShard[election.shardFor(voter.getId())]++;
+        }
+        System.out.printf("Registered %d voters on %d shards in %d ms%n", voterCount, shardCount,
+            (System.nanoTime() - start) / 1_000_000);
+        for (int shard = 0; shard < shardCount; shard++) {
+            System.out.printf("  shard %d: %d voters (%.1f%%)%n", shard, perShard[shard],
+                100.0 * perShard[shard] / voterCount);
+        }
+
+        election.openVoting();
+        AtomicInteger next = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < voterCount) {
+                    try {
+                        election.castVote(voterIds[i], candidateIds[i % candidateIds.length], "STATION-" + (i % 100));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Cast %d votes with %d threads: %.0f votes/s%n", voterCount, threads,
+            voterCount / (elapsed / 1e9));
+
+        election.closeElection();
+        Map<String, Integer> results = election.getResults();
+        long total = results.values().stream().mapToLong(Integer::longValue).sum();
+        ElectionService.ElectionStatistics stats = election.getStatistics();
+        System.out.printf("Merged results: %d votes, statistics: %d votes of %d voters (%.1f%%), status %s%n",
+            total, stats.getTotalVotes(), stats.getTotalVoters(), stats.getTurnoutPercentage(), stats.getStatus());
+        if (total != voterCount || stats.getTotalVotes() != voterCount) {
+            throw new IllegalStateException("Merged tallies don't match the votes cast");
+        }
+    }
+}
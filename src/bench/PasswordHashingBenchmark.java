@@ -0,0 +1,148 @@
+package bench;
+
+import model.*;
+import service.AuthenticationService;
+import service.CredentialVerifier;
+import service.SessionStore;
+import exception.VotingException;
+import util.PasswordHasher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Login cost at several PBKDF2 settings: cold logins (every attempt runs the KDF), warm logins
+// (served from the verification cache) and castVote while a login storm runs, to check that the
+// bounded verifier pool keeps the vote path responsive. Refused logins count as operations,
+// since answering "try again" quickly is the point of admission control; the refusals are
+// printed at the end of each trial.
+// Usage: java -jar target/benchmarks.jar PasswordHashingBenchmark [-p cost=10000,100000,210000]
+//          [-p stormThreads=32]
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PasswordHashingBenchmark {
+    private static final int LOGIN_VOTERS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Logins {
+        @Param({"10000", "100000", "210000"})
+        public int cost;
+
+        Voter[] loginVoters;
+        CredentialVerifier coldVerifier;
+        CredentialVerifier warmVerifier;
+        AuthenticationService cold;
+        AuthenticationService warm;
+        final LongAdder refused = new LongAdder();
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws VotingException {
+            PasswordHasher hasher = new PasswordHasher(cost);
+            loginVoters = new Voter[LOGIN_VOTERS];
+            for (int i = 0; i < LOGIN_VOTERS; i++) {
+                loginVoters[i] = new Voter("Login " + i, "login" + i + "@example.org", "LOGIN" + i, hasher.hash("pw" + i));
+            }
+            // A zero TTL disables the cache, so every cold login pays the KDF
+            int cores = Runtime.getRuntime().availableProcessors();
+            coldVerifier = new CredentialVerifier(Math.max(1, cores / 2), 256, 2000, 0, 0);
+            cold = new AuthenticationService(new SessionStore(), coldVerifier);
+            warmVerifier = new CredentialVerifier();
+            warm = new AuthenticationService(new SessionStore(), warmVerifier);
+            for (int i = 0; i < LOGIN_VOTERS; i++) {
+                warm.login(loginVoters[i], "pw" + i);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.out.printf("%n  refused: %d, warm cache hits: %d%n", refused.sum(), warmVerifier.getCacheHitCount());
+            coldVerifier.close();
+            warmVerifier.close();
+        }
+
+        void login(AuthenticationService auth) {
+            int i = (next.getAndIncrement() & Integer.MAX_VALUE) % LOGIN_VOTERS;
+            try {
+                auth.logout(auth.login(loginVoters[i], "pw" + i));
+            } catch (VotingException e) {
+                refused.increment();
+            }
+        }
+    }
+
+    // Cold logins from stormThreads background threads for as long as each iteration runs
+    @State(Scope.Benchmark)
+    public static class Storm extends Logins {
+        @Param("32")
+        public int stormThreads;
+
+        private final AtomicBoolean storming = new AtomicBoolean();
+        private Thread[] storm;
+
+        @Setup(Level.Iteration)
+        public void startStorm() {
+            storming.set(true);
+            storm = new Thread[stormThreads];
+            for (int t = 0; t < stormThreads; t++) {
+                storm[t] = new Thread(() -> {
+                    while (storming.get()) {
+                        login(cold);
+                    }
+                }, "login-storm-" + t);
+                storm[t].start();
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void stopStorm() throws InterruptedException {
+            storming.set(false);
+            for (Thread thread : storm) {
+                thread.join();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void loginCold(Logins logins) {
+        logins.login(logins.cold);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void loginWarm(Logins logins) {
+        logins.login(logins.warm);
+    }
+
+    // Score is the time each thread takes for its batch of 50,000 votes; compare with
+    // ElectionServiceBenchmarks.castVote for the same batch without a storm
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(Threads.MAX)
+    @Warmup(iterations = 3, batchSize = 50_000)
+    @Measurement(iterations = 5, batchSize = 50_000)
+    public void castVoteDuringStorm(Ballots ballots, Storm storm) throws VotingException {
+        ballots.castVote();
+    }
+}
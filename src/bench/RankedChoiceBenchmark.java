@@ -0,0 +1,133 @@
+package bench;
+
+import service.RankedChoiceTabulator;
+import service.TabulationResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Tabulates a synthetic ranked-choice contest: seeded ballots ranking 1-6 candidates with
+// Zipf-like popularity, counted by RankedChoiceTabulator and, for one seat, by a naive IRV that
+// rescans every ballot each round. Prints the rounds and checks both counts agree.
+// Usage: java -Xmx4g bench.RankedChoiceBenchmark [ballots] [candidates] [seats]
+public class RankedChoiceBenchmark {
+    private static final int MAX_RANKS = 6;
+
+    public static void main(String[] args) {
+        int ballotCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int candidateCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int seats = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        List<String> candidates = new ArrayList<>();
+        for (int c = 0; c < candidateCount; c++) {
+            candidates.add("Candidate " + c);
+        }
+        long start = System.nanoTime();
+        int[][] ballots = generate(ballotCount, candidateCount, 42);
+        System.out.printf("Generated %d ballots over %d candidates in %d ms%n", ballotCount, candidateCount,
+            (System.nanoTime() - start) / 1_000_000);
+
+        RankedChoiceTabulator.BallotSource source = new RankedChoiceTabulator.BallotSource() {
+            @Override
+            public int size() { return ballots.length; }
+
+            @Override
+            public int[] ballot(int index) { return ballots[index]; }
+        };
+        RankedChoiceTabulator tabulator = new RankedChoiceTabulator();
+        TabulationResult result = null;
+        for (int run = 1; run <= 5; run++) {
+            start = System.nanoTime();
+            result = tabulator.tabulate(candidates, source, seats);
+            System.out.printf("Tabulator run %d: %d ms%n", run, (System.nanoTime() - start) / 1_000_000);
+        }
+        System.out.println(result);
+
+        if (seats == 1) {
+            start = System.nanoTime();
+            String winner = rescanEveryRound(candidates, ballots);
+            System.out.printf("Naive rescan IRV: %d ms, winner %s%n", (System.nanoTime() - start) / 1_000_000, winner);
+            if (!winner.equals(result.getWinners().get(0))) {
+                throw new IllegalStateException("Tabulator and rescan disagree on the winner");
+            }
+        }
+    }
+
+    // Ranks a random number of candidates, drawn without replacement with weight 1 / (c + 1)
+    private static int[][] generate(int ballotCount, int candidateCount, long seed) {
+        double[] popularity = new double[candidateCount];
+        for (int c = 0; c < candidateCount; c++) {
+            popularity[c] = 1.0 / (c + 1);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] ballots = new int[ballotCount][];
+        boolean[] taken = new boolean[candidateCount];
+        for (int i = 0; i < ballotCount; i++) {
+            int ranks = 1 + Math.min(random.nextInt(MAX_RANKS), random.nextInt(MAX_RANKS));
+            ranks = Math.min(ranks, candidateCount);
+            int[] ballot = new int[ranks];
+            double remaining = 0;
+            for (double weight : popularity) {
+                remaining += weight;
+            }
+            Arrays.fill(taken, false);
+            for (int r = 0; r < ranks; r++) {
+                double pick = random.nextDouble() * remaining;
+                int chosen = -1;
+                for (int c = 0; c < candidateCount; c++) {
+                    if (!taken[c]) {
+                        chosen = c;
+                        pick -= popularity[c];
+                        if (pick <= 0) {
+                            break;
+                        }
+                    }
+                }
+                taken[chosen] = true;
+                remaining -= popularity[chosen];
+                ballot[r] = chosen;
+            }
+            ballots[i] = ballot;
+        }
+        return ballots;
+    }
+
+    // The straightforward way: every round walks every ballot to its first continuing choice
+    private static String rescanEveryRound(List<String> candidates, int[][] ballots) {
+        boolean[] continuing = new boolean[candidates.size()];
+        Arrays.fill(continuing, true);
+        int remaining = candidates.size();
+        while (true) {
+            long[] tally = new long[candidates.size()];
+            long total = 0;
+            for (int[] ballot : ballots) {
+                for (int ordinal : ballot) {
+                    if (continuing[ordinal]) {
+                        tally[ordinal]++;
+                        total++;
+                        break;
+                    }
+                }
+            }
+            int leader = -1;
+            int loser = -1;
+            for (int c = 0; c < tally.length; c++) {
+                if (continuing[c]) {
+                    if (leader < 0 || tally[c] > tally[leader]) {
+                        leader = c;
+                    }
+                    if (loser < 0 || tally[c] <= tally[loser]) {
+                        loser = c;
+                    }
+                }
+            }
+            if (remaining == 1 || tally[leader] * 2 > total) {
+                return candidates.get(leader);
+            }
+            continuing[loser] = false;
+            remaining--;
+        }
+    }
+}
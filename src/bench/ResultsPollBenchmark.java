@@ -0,0 +1,91 @@
+package bench;
+
+import model.*;
+import service.ElectionService;
+import service.ResultsSnapshot;
+import exception.VotingException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Dashboard polling while votes stream in: pollers call getLiveResults in a tight loop and
+// check every snapshot is self-consistent (total = sum of candidate votes, versions never go back).
+// Usage: java bench.ResultsPollBenchmark [voters] [candidates] [pollerThreads]
+public class ResultsPollBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int voterCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int candidateCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int pollers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        ElectionService service = new ElectionService("Polling", LocalDateTime.now(), BenchSupport.quietLogger());
+        List<String> candidateIds = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party " + (i % 10), "", "", "");
+            service.addCandidate(candidate);
+            candidateIds.add(candidate.getId());
+        }
+        service.openRegistration();
+        String[] voterIds = new String[voterCount];
+        for (int i = 0; i < voterCount; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            voterIds[i] = voter.getId();
+        }
+        service.openVoting();
+
+        AtomicInteger next = new AtomicInteger();
+        Thread voterThread = new Thread(() -> {
+            for (int i = next.getAndIncrement(); i < voterCount; i = next.getAndIncrement()) {
+                try {
+                    // Skewed so the leaderboard keeps reshuffling near the top
+                    int candidate = (int) (Math.abs((long) i * 2654435761L) % candidateCount) % (1 + i % candidateCount);
+                    service.castVote(voterIds[i], candidateIds.get(candidate), "STATION-1");
+                } catch (VotingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        LongAdder polls = new LongAdder();
+        LongAdder pollNanos = new LongAdder();
+        List<Thread> pollerThreads = new ArrayList<>();
+        for (int p = 0; p < pollers; p++) {
+            Thread poller = new Thread(() -> {
+                long lastVersion = 0;
+                while (voterThread.isAlive()) {
+                    long start = System.nanoTime();
+                    ResultsSnapshot snapshot = service.getLiveResults();
+                    pollNanos.add(System.nanoTime() - start);
+                    polls.increment();
+                    long sum = snapshot.getRanked().stream().mapToLong(ResultsSnapshot.CandidateResult::getVotes).sum();
+                    if (sum != snapshot.getTotalVotes() || snapshot.getVersion() < lastVersion) {
+                        throw new IllegalStateException("Torn snapshot at version " + snapshot.getVersion());
+                    }
+                    lastVersion = snapshot.getVersion();
+                }
+            });
+            pollerThreads.add(poller);
+        }
+
+        long start = System.nanoTime();
+        voterThread.start();
+        pollerThreads.forEach(Thread::start);
+        voterThread.join();
+        for (Thread poller : pollerThreads) {
+            poller.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        ResultsSnapshot last = service.getLiveResults();
+        System.out.printf("%d votes, %d candidates: %.0f votes/sec alongside %d pollers%n",
+            voterCount, candidateCount, voterCount / seconds, pollers);
+        System.out.printf("%d polls, %.0f ns average poll, %d snapshots published%n",
+            polls.sum(), (double) pollNanos.sum() / polls.sum(), last.getVersion());
+    }
+}
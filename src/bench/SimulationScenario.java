@@ -0,0 +1,208 @@
+package bench;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// The knobs of one ElectionDaySimulator run. A scenario is a properties file of the keys below
+// (anything not set keeps its default) plus any --key value overrides on the command line, so
+// a rehearsal can be scripted, kept next to its results and re-run unchanged. Unknown keys are
+// refused rather than ignored, as a typo would otherwise silently fall back to a default.
+//
+// Keys that shape the workload (all but threads, pollers, poll.rate, day.seconds, kdf.iterations
+// and project.voters) fix, together with the seed, which voters arrive at which station and
+// minute and what each of them does, so two runs of the same scenario drive the same traffic.
+final class SimulationScenario {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    private static final List<String> LOAD_ONLY = Arrays.asList(
+        "threads", "pollers", "poll.rate", "day.seconds", "kdf.iterations", "project.voters");
+
+    static {
+        DEFAULTS.put("seed", "20261103");
+        DEFAULTS.put("voters", "1000000");
+        // Share of registered voters who come to vote; each station gets its share exactly
+        DEFAULTS.put("turnout", "0.65");
+        // Registered but never verified: they log in and are refused at the ballot
+        DEFAULTS.put("voters.unverified", "0.005");
+        DEFAULTS.put("stations", "2000");
+        // Station sizes are log-normal; each station's hourly curve is scaled by up to +/- jitter
+        DEFAULTS.put("stations.jitter", "0.25");
+        // Share of stations whose terminals resubmit every ballot vote.retries times
+        DEFAULTS.put("stations.faulty", "0.01");
+        DEFAULTS.put("candidates", "12");
+        // Zipf exponent of candidate support; 0 spreads votes evenly
+        DEFAULTS.put("candidates.popularity", "0.8");
+        // "import" registers through importVoters() from a generated CSV, "direct" through
+        // registerVoter() per voter
+        DEFAULTS.put("registration", "import");
+        // Relative arrival weight of each hour of polling day, opening hour first
+        DEFAULTS.put("day.curve", "2.2,1.6,1.2,1.0,1.0,1.3,1.2,1.0,0.9,1.1,1.5,1.3");
+        // The queue at the doors: the first spike.minutes arrive spike.factor times faster still
+        DEFAULTS.put("day.spike_minutes", "20");
+        DEFAULTS.put("day.spike_factor", "3.0");
+        // Real seconds the day is compressed into; 0 replays it as fast as the service allows
+        DEFAULTS.put("day.seconds", "0");
+        // Voters whose first login attempt has the wrong password
+        DEFAULTS.put("login.wrong_password", "0.03");
+        // Voters whose client logs in a second time (refresh, double tap), opening another session
+        DEFAULTS.put("login.repeat", "0.05");
+        // Voters who submit their ballot again after it was accepted, and how many times
+        DEFAULTS.put("vote.duplicate", "0.02");
+        DEFAULTS.put("vote.retries", "2");
+        DEFAULTS.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        // Dashboards polling live results and statistics while voting is open
+        DEFAULTS.put("pollers", "2");
+        // Polls per second per poller; 0 polls back to back
+        DEFAULTS.put("poll.rate", "20");
+        // Result requests served after close, spread over the pollers
+        DEFAULTS.put("results.polls", "20000");
+        DEFAULTS.put("kdf.iterations", "1");
+        // Heap figures are also extrapolated to this many voters
+        DEFAULTS.put("project.voters", "10000000");
+    }
+
+    final Map<String, String> values;
+    final long seed;
+    final int voters;
+    final double turnout;
+    final double unverified;
+    final int stations;
+    final double stationJitter;
+    final double faultyStations;
+    final int candidates;
+    final double popularity;
+    final boolean importRegistration;
+    final double[] hourlyCurve;
+    final int spikeMinutes;
+    final double spikeFactor;
+    final double daySeconds;
+    final double wrongPassword;
+    final double repeatLogin;
+    final double duplicateVote;
+    final int voteRetries;
+    final int threads;
+    final int pollers;
+    final double pollRate;
+    final int resultsPolls;
+    final int kdfIterations;
+    final long projectVoters;
+
+    private SimulationScenario(Map<String, String> values) {
+        this.values = values;
+        this.seed = Long.parseLong(get("seed"));
+        this.voters = positive("voters");
+        this.turnout = share("turnout");
+        this.unverified = share("voters.unverified");
+        this.stations = positive("stations");
+        this.stationJitter = share("stations.jitter");
+        this.faultyStations = share("stations.faulty");
+        this.candidates = positive("candidates");
+        this.popularity = Double.parseDouble(get("candidates.popularity"));
+        String registration = get("registration");
+        if (!registration.equals("import") && !registration.equals("direct")) {
+            throw new IllegalArgumentException("registration must be import or direct, got " + registration);
+        }
+        this.importRegistration = registration.equals("import");
+        String[] hours = get("day.curve").split(",");
+        this.hourlyCurve = new double[hours.length];
+        for (int i = 0; i < hours.length; i++) {
+            hourlyCurve[i] = Double.parseDouble(hours[i].trim());
+            if (hourlyCurve[i] < 0) {
+                throw new IllegalArgumentException("day.curve weights must not be negative");
+            }
+        }
+        this.spikeMinutes = Integer.parseInt(get("day.spike_minutes"));
+        this.spikeFactor = Double.parseDouble(get("day.spike_factor"));
+        this.daySeconds = Double.parseDouble(get("day.seconds"));
+        this.wrongPassword = share("login.wrong_password");
+        this.repeatLogin = share("login.repeat");
+        this.duplicateVote = share("vote.duplicate");
+        this.voteRetries = positive("vote.retries");
+        this.threads = positive("threads");
+        this.pollers = Integer.parseInt(get("pollers"));
+        this.pollRate = Double.parseDouble(get("poll.rate"));
+        this.resultsPolls = Integer.parseInt(get("results.polls"));
+        this.kdfIterations = positive("kdf.iterations");
+        this.projectVoters = Long.parseLong(get("project.voters"));
+        if (stations > voters) {
+            throw new IllegalArgumentException("More stations than voters");
+        }
+    }
+
+    // The scenario file (may be null) with the overrides applied on top
+    static SimulationScenario load(Path file, Map<String, String> overrides) throws IOException {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        if (file != null) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+            for (String key : properties.stringPropertyNames()) {
+                set(values, key, properties.getProperty(key).trim());
+            }
+        }
+        for (Map.Entry<String, String> override : overrides.entrySet()) {
+            set(values, override.getKey(), override.getValue());
+        }
+        return new SimulationScenario(values);
+    }
+
+    private static void set(Map<String, String> values, String key, String value) {
+        if (!DEFAULTS.containsKey(key)) {
+            throw new IllegalArgumentException("Unknown scenario key: " + key);
+        }
+        values.put(key, value);
+    }
+
+    int hours() {
+        return hourlyCurve.length;
+    }
+
+    // key=value lines in a fixed order, for the report and the CSV header
+    List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        values.forEach((key, value) -> lines.add(key + "=" + value));
+        return lines;
+    }
+
+    // Keys whose values differ from another run's description, flagged when they change the
+    // traffic itself rather than just how hard it is driven
+    List<String> differences(Map<String, String> other) {
+        List<String> differences = new ArrayList<>();
+        values.forEach((key, value) -> {
+            String before = other.get(key);
+            if (before != null && !before.equals(value)) {
+                differences.add(String.format("%s: %s -> %s%s", key, before, value,
+                    LOAD_ONLY.contains(key) ? "" : " (different workload)"));
+            }
+        });
+        return differences;
+    }
+
+    private String get(String key) {
+        return values.get(key);
+    }
+
+    private int positive(String key) {
+        int value = Integer.parseInt(get(key));
+        if (value <= 0) {
+            throw new IllegalArgumentException(key + " must be positive, got " + value);
+        }
+        return value;
+    }
+
+    private double share(String key) {
+        double value = Double.parseDouble(get(key));
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(key + " must be between 0 and 1, got " + value);
+        }
+        return value;
+    }
+}
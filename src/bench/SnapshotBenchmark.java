@@ -0,0 +1,118 @@
+package bench;
+
+import model.*;
+import service.ElectionService;
+import service.SnapshotSummary;
+import exception.VotingException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes a snapshot of an election while voter threads keep casting, then restores a fresh
+// service from it. Reports write and restore times, file size, the vote rate before and during
+// the write and the slowest castVote while it ran. Half the voters have voted before the write.
+// Usage: java -Xmx8g bench.SnapshotBenchmark [voters] [voterThreads]
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int voterCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        Path dir = Files.createTempDirectory("snapshot-bench");
+        Path file = dir.resolve("election.snap");
+        try {
+            writeWhileVoting(file, voterCount, threads);
+
+            long readStart = System.nanoTime();
+            SnapshotSummary read = SnapshotSummary.read(file);
+            System.out.printf("Summary read (checksum + header) in %d ms%n", (System.nanoTime() - readStart) / 1_000_000);
+
+            // The original election is unreachable by now, so the restored one has the heap
+            System.gc();
+            long restoreStart = System.nanoTime();
+            ElectionService restored = ElectionService.restore(file, BenchSupport.quietLogger());
+            long restoreNanos = System.nanoTime() - restoreStart;
+            long restoredVotes = restored.getLiveResults().getTotalVotes();
+            System.out.printf("Restore: %d voters, %d votes in %d ms%n",
+                restored.getStatistics().getTotalVoters(), restoredVotes, restoreNanos / 1_000_000);
+            if (restoredVotes != read.getVotes()) {
+                throw new IllegalStateException("Restored " + restoredVotes + " votes, snapshot has " + read.getVotes());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void writeWhileVoting(Path file, int voterCount, int threads) throws Exception {
+        ElectionService service = new ElectionService("Snapshot", LocalDateTime.now(), BenchSupport.quietLogger());
+        List<String> candidateIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party " + i, "", "", "");
+            service.addCandidate(candidate);
+            candidateIds.add(candidate.getId());
+        }
+        service.openRegistration();
+        String[] voterIds = new String[voterCount];
+        for (int i = 0; i < voterCount; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            voterIds[i] = voter.getId();
+        }
+        service.openVoting();
+        for (int i = 0; i < voterCount / 2; i++) {
+            service.castVote(voterIds[i], candidateIds.get(i % candidateIds.size()), "STATION-" + (i % 100));
+        }
+
+        AtomicInteger next = new AtomicInteger(voterCount / 2);
+        AtomicBoolean writing = new AtomicBoolean();
+        AtomicLong slowestDuringWrite = new AtomicLong();
+        List<Thread> voters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread voter = new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < voterCount; i = next.getAndIncrement()) {
+                    long start = System.nanoTime();
+                    try {
+                        service.castVote(voterIds[i], candidateIds.get(i % candidateIds.size()), "STATION-" + (i % 100));
+                    } catch (VotingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    if (writing.get()) {
+                        slowestDuringWrite.accumulateAndGet(System.nanoTime() - start, Math::max);
+                    }
+                }
+            });
+            voters.add(voter);
+        }
+
+        voters.forEach(Thread::start);
+        int before = next.get();
+        long beforeStart = System.nanoTime();
+        Thread.sleep(500);
+        double rateBefore = (next.get() - before) / ((System.nanoTime() - beforeStart) / 1e9);
+
+        writing.set(true);
+        int during = next.get();
+        long writeStart = System.nanoTime();
+        SnapshotSummary summary = service.writeSnapshot(file);
+        long writeNanos = System.nanoTime() - writeStart;
+        double rateDuring = (next.get() - during) / (writeNanos / 1e9);
+        writing.set(false);
+        for (Thread voter : voters) {
+            voter.join();
+        }
+
+        System.out.printf("Snapshot: %d voters, %d votes, %.1f MB written in %d ms%n",
+            summary.getVoters(), summary.getVotes(), summary.getBytes() / 1e6, writeNanos / 1_000_000);
+        System.out.printf("Votes/s before the write %.0f, during it %.0f; slowest castVote during it %.2f ms%n",
+            rateBefore, rateDuring, slowestDuringWrite.get() / 1e6);
+    }
+}
@@ -0,0 +1,121 @@
+package bench;
+
+import model.*;
+import service.ElectionService;
+import service.InclusionProof;
+import service.LedgerVerification;
+import service.VoteLedger;
+import service.VoteStore;
+import util.Ids;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Vote ledger costs: sealing throughput over a prefilled vote store, castVote throughput with
+// and without the ledger following along, parallel verification time at 1..N workers, and
+// inclusion proof latency.
+// Usage: java -Xmx4g bench.VoteLedgerBenchmark [votes] [hashThreads] [castVotes]
+public class VoteLedgerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.cheapPasswordHashing();
+        int voteCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int hashThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int castCount = args.length > 2 ? Integer.parseInt(args[2]) : 500_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        VoteStore store = new VoteStore();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < voteCount; i++) {
+            store.append(Ids.format(i + 1), "CANDIDATE-" + (i % 20), "STATION-" + (i % 100), now + i);
+        }
+
+        long start = System.nanoTime();
+        VoteLedger ledger = new VoteLedger(store, 1024, 1000, hashThreads);
+        ledger.flush();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Sealed %d votes into %d blocks with %d hash threads in %d ms: %.0f votes/s%n",
+            voteCount, ledger.getBlockCount(), hashThreads, elapsed / 1_000_000, voteCount / (elapsed / 1e9));
+
+        for (int workers = 1; workers <= cores; workers *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            LedgerVerification result = pool.submit(ledger::verify).get();
+            System.out.printf("Verify with %d worker(s): %s%n", workers, result);
+            pool.shutdown();
+        }
+
+        SplittableRandom random = new SplittableRandom(7);
+        int proofs = 10_000;
+        int pathLength = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < proofs; i++) {
+            InclusionProof proof = ledger.prove(random.nextInt(voteCount));
+            if (!proof.verify()) {
+                throw new IllegalStateException("Proof failed to verify: " + proof);
+            }
+            pathLength += proof.getPathLength();
+        }
+        System.out.printf("Inclusion proof (prove + verify): %.1f us each, %.1f sibling hashes on average%n",
+            (System.nanoTime() - start) / 1e3 / proofs, (double) pathLength / proofs);
+        ledger.close();
+
+        castVotes(castCount, false);
+        castVotes(castCount, true);
+    }
+
+    private static void castVotes(int count, boolean withLedger) throws Exception {
+        ElectionService service = new ElectionService("Ledger", LocalDateTime.now(), BenchSupport.quietLogger());
+        String[] candidateIds = new String[20];
+        for (int i = 0; i < candidateIds.length; i++) {
+            Candidate candidate = new Candidate("Candidate " + i, "Party", "", "", "");
+            service.addCandidate(candidate);
+            candidateIds[i] = candidate.getId();
+        }
+        service.openRegistration();
+        String[] voterIds = new String[count];
+        for (int i = 0; i < count; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            voterIds[i] = voter.getId();
+        }
+        service.openVoting();
+        VoteLedger ledger = withLedger ? service.enableLedger() : null;
+
+        AtomicInteger next = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < Runtime.getRuntime().availableProcessors(); t++) {
+            Thread worker = new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < count) {
+                    try {
+                        service.castVote(voterIds[i], candidateIds[i % candidateIds.length], "STATION-" + (i % 100));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        String lag = "";
+        if (ledger != null) {
+            int sealedAtEnd = ledger.getSealedVotes();
+            long flushStart = System.nanoTime();
+            service.closeElection();
+            lag = String.format(", %d sealed when voting stopped, rest sealed %d ms later; %s", sealedAtEnd,
+                (System.nanoTime() - flushStart) / 1_000_000, ledger.verify());
+        }
+        System.out.printf("castVote %s ledger: %.0f votes/s%s%n", withLedger ? "with" : "without",
+            count / (elapsed / 1e9), lag);
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import model.Vote;
+import service.VoteStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Retained heap per vote: the previous Set<Vote> (ConcurrentHashMap-backed) against VoteStore.
+// Voter and candidate ID strings are created up front and shared by both, as they would be
+// in the service where Voter and Candidate objects already own them.
+// Usage: java bench.VoteStoreFootprintBenchmark [votes]
+public class VoteStoreFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int voteCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        String[] voterIds = new String[voteCount];
+        for (int i = 0; i < voteCount; i++) {
+            voterIds[i] = UUID.randomUUID().toString();
+        }
+        String[] candidateIds = new String[20];
+        for (int i = 0; i < candidateIds.length; i++) {
+            candidateIds[i] = UUID.randomUUID().toString();
+        }
+        String[] stations = new String[100];
+        for (int i = 0; i < stations.length; i++) {
+            stations[i] = "STATION-" + i;
+        }
+
+        long before = usedHeap();
+        Set<Vote> objectVotes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        for (int i = 0; i < voteCount; i++) {
+            objectVotes.add(new Vote(voterIds[i], candidateIds[i % candidateIds.length], stations[i % stations.length]));
+        }
+        long objectBytes = usedHeap() - before;
+        report("Set<Vote>", objectBytes, voteCount, objectVotes.size());
+        objectVotes = null;
+
+        before = usedHeap();
+        VoteStore store = new VoteStore();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < voteCount; i++) {
+            store.append(voterIds[i], candidateIds[i % candidateIds.length], stations[i % stations.length], now + i);
+        }
+        long storeBytes = usedHeap() - before;
+        report("VoteStore", storeBytes, voteCount, store.size());
+        System.out.printf("Reduction: %.1fx%n", (double) objectBytes / storeBytes);
+    }
+
+    private static void report(String name, long bytes, int votes, int size) {
+        System.out.printf("%-10s %,d votes retained %,d bytes = %.1f bytes/vote%n", name, size, bytes, (double) bytes / votes);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
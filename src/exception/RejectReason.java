@@ -0,0 +1,40 @@
+package exception;
+
+import java.util.Locale;
+
+// Why a vote, a login, or a request made with a voter's session, was refused. Each reason has one
+// stackless VotingException made up front, so a refusal costs no allocation, stack walk or
+// message formatting; that matters when a faulty station client retries the same bad ballot in
+// a loop and nearly every request is a reject. Status rejections name the required and current
+// status, so ValidationUtil keeps one preallocated exception per pair for ELECTION_STATUS.
+public enum RejectReason {
+    ELECTION_STATUS("Invalid election status"),
+    UNKNOWN_VOTER("Voter not found"),
+    VOTER_NOT_VERIFIED("Voter is not verified"),
+    ALREADY_VOTED("Voter has already cast their vote"),
+    UNKNOWN_CANDIDATE("Candidate not found"),
+    EMPTY_RANKING("A ranked ballot must rank at least one candidate"),
+    DUPLICATE_RANKING("Candidate ranked more than once"),
+    INVALID_STATION("Voting station name is too long"),
+    INVALID_SESSION("Invalid session"),
+    INVALID_CREDENTIALS("Invalid credentials"),
+    VERIFIER_BUSY("Too many login attempts in progress, please try again shortly"),
+    VERIFIER_TIMEOUT("Login timed out, please try again shortly");
+
+    private final VotingException exception;
+    private final String label;
+
+    RejectReason(String message) {
+        this.exception = new VotingException(this, message);
+        this.label = name().toLowerCase(Locale.ROOT);
+    }
+
+    public VotingException exception() {
+        return exception;
+    }
+
+    // Metric label value, e.g. "already_voted"
+    public String label() {
+        return label;
+    }
+}
@@ -2,7 +2,24 @@
 package exception;
 
 public class VotingException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final RejectReason reason;
+
     public VotingException(String message) {
         super(message);
+        this.reason = null;
+    }
+
+    // For preallocated rejections that are thrown again and again from any thread: no stack
+    // trace and no suppressed exceptions, so nothing about the instance ever changes
+    public VotingException(RejectReason reason, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+    }
+
+    // Null for failures that aren't a validation rejection, e.g. a journal write error
+    public RejectReason getReason() {
+        return reason;
     }
 }
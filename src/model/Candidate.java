@@ -1,24 +1,31 @@
 package model;
 
-import java.util.UUID;
+import util.Ids;
+
+import java.util.concurrent.atomic.LongAdder;
 
 public class Candidate {
     private final String id;
     private final String name;
     private final String party;
     private final String manifesto;
-    private int voteCount;
+    private final LongAdder voteCount;
     private String imageUrl;
     private String background;
 
     public Candidate(String name, String party, String manifesto, String imageUrl, String background) {
-        this.id = UUID.randomUUID().toString();
+        this(Ids.nextString(), name, party, manifesto, imageUrl, background);
+    }
+
+    // Restores a previously added candidate; the vote count starts at zero and is rebuilt from votes
+    public Candidate(String id, String name, String party, String manifesto, String imageUrl, String background) {
+        this.id = id;
         this.name = name;
         this.party = party;
         this.manifesto = manifesto;
         this.imageUrl = imageUrl;
         this.background = background;
-        this.voteCount = 0;
+        this.voteCount = new LongAdder();
     }
 
     // Getters
@@ -26,16 +33,17 @@ public class Candidate {
     public String getName() { return name; }
     public String getParty() { return party; }
     public String getManifesto() { return manifesto; }
-    public int getVoteCount() { return voteCount; }
+    public int getVoteCount() { return voteCount.intValue(); }
     public String getImageUrl() { return imageUrl; }
     public String getBackground() { return background; }
 
-    public synchronized void incrementVote() {
-        this.voteCount++;
+    // Striped counter: concurrent votes for the same candidate don't contend on one field
+    public void incrementVote() {
+        voteCount.increment();
     }
 
     @Override
     public String toString() {
-        return String.format("Candidate: %s (%s) - %s votes", name, party, voteCount);
+        return String.format("Candidate: %s (%s) - %s votes", name, party, getVoteCount());
     }
 }
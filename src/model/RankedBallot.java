@@ -0,0 +1,37 @@
+package model;
+
+import util.Ids;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A ranked-choice ballot: candidate IDs in order of preference, first choice first
+public class RankedBallot {
+    private final String id;
+    private final String voterId;
+    private final List<String> preferences;
+    private final LocalDateTime timestamp;
+    private final String votingStation;
+
+    public RankedBallot(String voterId, List<String> preferences, String votingStation) {
+        this(Ids.nextString(), voterId, preferences, LocalDateTime.now(), votingStation);
+    }
+
+    // Restores a recorded ballot, e.g. when replaying the vote journal
+    public RankedBallot(String id, String voterId, List<String> preferences, LocalDateTime timestamp,
+                        String votingStation) {
+        this.id = id;
+        this.voterId = voterId;
+        this.preferences = List.copyOf(preferences);
+        this.timestamp = timestamp;
+        this.votingStation = votingStation;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getVoterId() { return voterId; }
+    public List<String> getPreferences() { return preferences; }
+    public String getFirstChoice() { return preferences.isEmpty() ? null : preferences.get(0); }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getVotingStation() { return votingStation; }
+}
@@ -1,8 +1,9 @@
 // src/model/Vote.java
 package model;
 
+import util.Ids;
+
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 public class Vote {
     private final String id;
@@ -12,10 +13,15 @@ public class Vote {
     private final String votingStation;
 
     public Vote(String voterId, String candidateId, String votingStation) {
-        this.id = UUID.randomUUID().toString();
+        this(Ids.nextString(), voterId, candidateId, LocalDateTime.now(), votingStation);
+    }
+
+    // Restores a recorded vote, e.g. when replaying the vote journal
+    public Vote(String id, String voterId, String candidateId, LocalDateTime timestamp, String votingStation) {
+        this.id = id;
         this.voterId = voterId;
         this.candidateId = candidateId;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
         this.votingStation = votingStation;
     }
 
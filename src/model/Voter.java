@@ -0,0 +1,74 @@
+package model;
+
+import util.Ids;
+import util.PasswordHasher;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class Voter {
+    private final String id;
+    private final long numericId;
+    private final String name;
+    private final String email;
+    private final String nationalId;
+    private final LocalDateTime registrationDate;
+    private final AtomicBoolean hasVoted;
+    private final String credential;
+    private volatile VoterStatus status;
+
+    public enum VoterStatus {
+        PENDING_VERIFICATION,
+        VERIFIED,
+        BLOCKED
+    }
+
+    // Plaintext passwords are hashed with the default PasswordHasher on the calling thread; an
+    // already hashed credential (from AuthenticationService.hashPassword or an import file) is
+    // kept as is
+    public Voter(String name, String email, String nationalId, String password) {
+        this(Ids.nextString(), name, email, nationalId,
+            PasswordHasher.isHashed(password) ? password : PasswordHasher.getDefault().hash(password),
+            LocalDateTime.now(), VoterStatus.PENDING_VERIFICATION);
+    }
+
+    // Restores a previously registered voter, e.g. when replaying the vote journal
+    public Voter(String id, String name, String email, String nationalId, String credential,
+                 LocalDateTime registrationDate, VoterStatus status) {
+        this.id = id;
+        this.numericId = Ids.parse(id);
+        this.name = name;
+        this.email = email;
+        this.nationalId = nationalId;
+        this.credential = credential;
+        this.registrationDate = registrationDate;
+        this.status = status;
+        this.hasVoted = new AtomicBoolean(false);
+    }
+
+    // Getters
+    public String getId() { return id; }
+    // The ID parsed once by Ids.parse, so lookups keyed by it don't re-parse; -1 for legacy IDs
+    public long getNumericId() { return numericId; }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public String getNationalId() { return nationalId; }
+    public LocalDateTime getRegistrationDate() { return registrationDate; }
+    public boolean hasVoted() { return hasVoted.get(); }
+    public VoterStatus getStatus() { return status; }
+    // Stored password hash, only for persistence; never display or log it
+    public String getCredential() { return credential; }
+
+    // Setters
+    public void setHasVoted(boolean hasVoted) { this.hasVoted.set(hasVoted); }
+    public void setStatus(VoterStatus status) { this.status = status; }
+
+    // Atomically claims this voter's single vote; only one caller ever gets true
+    public boolean markVoted() {
+        return hasVoted.compareAndSet(false, true);
+    }
+
+    public boolean verifyPassword(String inputPassword) {
+        return PasswordHasher.verify(inputPassword, credential);
+    }
+}
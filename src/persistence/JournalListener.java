@@ -0,0 +1,22 @@
+package persistence;
+
+import model.Candidate;
+import model.RankedBallot;
+import model.Vote;
+import model.Voter;
+import service.BatchResult;
+import service.ElectionService.ElectionStatus;
+import service.VoteBatch;
+import service.VoteLedger;
+import java.time.LocalDateTime;
+
+// Receives journal records in the order they were committed during replay.
+public interface JournalListener {
+    void onStatus(ElectionStatus status);
+    void onCandidate(Candidate candidate);
+    void onVoter(Voter voter);
+    void onVote(Vote vote);
+    void onVoteBatch(VoteBatch batch, BatchResult.Outcome[] outcomes, LocalDateTime castAt);
+    void onRankedBallot(RankedBallot ballot);
+    void onLedgerBlock(VoteLedger.Block block, String[] voterIds);
+}
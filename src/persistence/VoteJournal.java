@@ -0,0 +1,568 @@
+package persistence;
+
+import model.Candidate;
+import model.RankedBallot;
+import model.Vote;
+import model.Voter;
+import service.BatchResult;
+import service.ElectionService.ElectionStatus;
+import service.VoteBatch;
+import service.VoteLedger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Append-only write-ahead journal of election mutations.
+//
+// File layout: an 8-byte header ("VJNL" + format version), then one batch per flusher write:
+//   [int "VBAT"][int bodyLength][int crc32c(body)][int crc32c(first 12 bytes + file offset)]
+// followed by a body of records [int payloadLength][byte type][payload].
+// Callers encode their record on their own thread, append it, and wait in awaitDurable()
+// until a single flusher thread has written and fsynced the batch containing it, so many
+// concurrent votes share one fsync (group commit). The flusher waits up to groupCommitMicros
+// after the first pending record to let a batch grow, unless maxBatchBytes is reached first.
+public class VoteJournal implements AutoCloseable {
+    private static final int MAGIC = 0x564A4E4C; // "VJNL"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int BATCH_MAGIC = 0x56424154; // "VBAT"
+    private static final int BATCH_HEADER_BYTES = 16;
+    private static final int RECORD_OVERHEAD = 4 + 1;
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private static final byte STATUS = 1;
+    private static final byte CANDIDATE = 2;
+    private static final byte VOTER = 3;
+    private static final byte VOTE = 4;
+    private static final byte VOTE_BATCH = 5;
+    private static final byte RANKED_BALLOT = 6;
+    private static final byte LEDGER_BLOCK = 7;
+
+    private final FileChannel channel;
+    private final long groupCommitNanos;
+    private final int maxBatchBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition batchDurable = lock.newCondition();
+    private ByteBuffer pending;
+    private ByteBuffer writing;
+    private long appendedSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean running = true;
+    private boolean replayed;
+    private Thread flusher;
+
+    private long syncCount;
+
+    // Only touched by the flusher thread
+    private final ByteBuffer batchHeader = ByteBuffer.allocate(BATCH_HEADER_BYTES);
+    private final CRC32C batchCrc = new CRC32C();
+
+    public VoteJournal(Path file) throws IOException {
+        this(file, 200, 1 << 20);
+    }
+
+    public VoteJournal(Path file, long groupCommitMicros, int maxBatchBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        this.maxBatchBytes = maxBatchBytes;
+        this.pending = ByteBuffer.allocate(maxBatchBytes);
+        this.writing = ByteBuffer.allocate(maxBatchBytes);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    // Replays every record through read-only memory mappings. Each flusher write is one batch
+    // whose header checksums both the body and itself, and a batch is forced before the next
+    // one is written. A crash can therefore damage any record of the last batch, leaving intact
+    // or zero-filled bytes after it, but never a batch that was already forced. Replay stops at
+    // the first damaged batch: if no intact batch follows it anywhere in the file, it is the
+    // torn tail of the last write and is truncated, so new batches append after the last
+    // durable one. An intact batch after the damage means durable data was corrupted, and
+    // recovery fails rather than dropping it. Must be called once before the first append.
+    // Returns the number of records replayed.
+    public long replay(JournalListener listener) throws IOException {
+        if (replayed) {
+            throw new IllegalStateException("Journal already replayed");
+        }
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a vote journal or unsupported version");
+        }
+
+        long position = HEADER_BYTES;
+        long records = 0;
+        long windowSize = MAP_WINDOW;
+        boolean damaged = false;
+        CRC32C crc = new CRC32C();
+        while (position < size && !damaged) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(windowSize, size - position));
+            boolean lastWindow = position + window.capacity() == size;
+            windowSize = MAP_WINDOW;
+            int consumed = 0;
+            while (consumed < window.capacity()) {
+                long offset = position + consumed;
+                int available = window.capacity() - consumed;
+                if (available < BATCH_HEADER_BYTES) {
+                    damaged = lastWindow;
+                    break;
+                }
+                int bodyLength = bodyLength(window, consumed, offset, crc);
+                if (bodyLength < 0 || offset + BATCH_HEADER_BYTES + bodyLength > size) {
+                    damaged = true;
+                    break;
+                }
+                if (BATCH_HEADER_BYTES + bodyLength > available) {
+                    // Remap from this batch; one larger than a window gets a window of its own
+                    windowSize = Math.max(MAP_WINDOW, BATCH_HEADER_BYTES + bodyLength);
+                    break;
+                }
+                ByteBuffer body = window.slice(consumed + BATCH_HEADER_BYTES, bodyLength);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != window.getInt(consumed + 8)) {
+                    damaged = true;
+                    break;
+                }
+                records += replayBatch(body, offset, listener);
+                consumed += BATCH_HEADER_BYTES + bodyLength;
+            }
+            position += consumed;
+        }
+
+        if (damaged && intactBatchAfter(position, size, crc)) {
+            throw new IOException("Journal batch at offset " + position
+                + " is damaged and is followed by durable batches");
+        }
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        replayed = true;
+        startFlusher();
+        return records;
+    }
+
+    public long appendStatus(ElectionStatus status) throws IOException {
+        return append(STATUS, out -> out.writeByte(status.ordinal()));
+    }
+
+    public long appendCandidate(Candidate candidate) throws IOException {
+        return append(CANDIDATE, out -> {
+            writeString(out, candidate.getId());
+            writeString(out, candidate.getName());
+            writeString(out, candidate.getParty());
+            writeString(out, candidate.getManifesto());
+            writeString(out, candidate.getImageUrl());
+            writeString(out, candidate.getBackground());
+        });
+    }
+
+    public long appendVoter(Voter voter) throws IOException {
+        return append(VOTER, out -> {
+            writeString(out, voter.getId());
+            writeString(out, voter.getName());
+            writeString(out, voter.getEmail());
+            writeString(out, voter.getNationalId());
+            writeString(out, voter.getCredential());
+            writeTimestamp(out, voter.getRegistrationDate());
+            out.writeByte(voter.getStatus().ordinal());
+        });
+    }
+
+    public long appendVote(Vote vote) throws IOException {
+        return append(VOTE, out -> {
+            writeString(out, vote.getId());
+            writeString(out, vote.getVoterId());
+            writeString(out, vote.getCandidateId());
+            writeTimestamp(out, vote.getTimestamp());
+            writeString(out, vote.getVotingStation());
+        });
+    }
+
+    // One record for a whole station upload, rejected ballots included, so replay restores
+    // the exact per-ballot result that retries of the same batch ID must get back
+    public long appendVoteBatch(VoteBatch batch, BatchResult.Outcome[] outcomes, LocalDateTime castAt)
+            throws IOException {
+        return append(VOTE_BATCH, out -> {
+            writeString(out, batch.getBatchId());
+            writeString(out, batch.getVotingStation());
+            writeTimestamp(out, castAt);
+            out.writeInt(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                VoteBatch.Ballot ballot = batch.getBallots().get(i);
+                writeString(out, ballot.getVoterId());
+                writeString(out, ballot.getCandidateId());
+                out.writeByte(outcomes[i].ordinal());
+            }
+        });
+    }
+
+    public long appendRankedBallot(RankedBallot ballot) throws IOException {
+        return append(RANKED_BALLOT, out -> {
+            writeString(out, ballot.getId());
+            writeString(out, ballot.getVoterId());
+            out.writeInt(ballot.getPreferences().size());
+            for (String candidateId : ballot.getPreferences()) {
+                writeString(out, candidateId);
+            }
+            writeTimestamp(out, ballot.getTimestamp());
+            writeString(out, ballot.getVotingStation());
+        });
+    }
+
+    // A sealed ledger block with the voter IDs of its votes in sealed order, so recovery can
+    // rebuild the store in the order the block hashes commit to
+    public long appendLedgerBlock(VoteLedger.Block block, String[] voterIds) throws IOException {
+        return append(LEDGER_BLOCK, out -> {
+            out.writeLong(block.getNumber());
+            out.writeInt(block.getFirstIndex());
+            out.write(block.getPreviousHash());
+            out.write(block.getMerkleRoot());
+            out.writeInt(voterIds.length);
+            for (String voterId : voterIds) {
+                writeString(out, voterId);
+            }
+        });
+    }
+
+    // Blocks until the record with the given sequence number (and everything before it) is on disk.
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new IOException("Journal write failed", failure);
+                }
+                batchDurable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            running = false;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private long append(byte type, RecordWriter writer) throws IOException {
+        if (!replayed) {
+            throw new IllegalStateException("Journal must be replayed before appending");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writer.write(out);
+        byte[] payload = bytes.toByteArray();
+        int recordBytes = RECORD_OVERHEAD + payload.length;
+        if (recordBytes > maxBatchBytes) {
+            throw new IOException("Journal record of " + recordBytes + " bytes exceeds batch size");
+        }
+
+        lock.lock();
+        try {
+            while (pending.remaining() < recordBytes) {
+                if (failure != null) {
+                    throw new IOException("Journal write failed", failure);
+                }
+                if (!running) {
+                    throw new IOException("Journal is closed");
+                }
+                batchDurable.awaitUninterruptibly();
+            }
+            if (!running) {
+                throw new IOException("Journal is closed");
+            }
+            pending.putInt(payload.length).put(type).put(payload);
+            workAvailable.signal();
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startFlusher() {
+        flusher = new Thread(this::flushLoop, "vote-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long batchSequence;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && running) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                long deadline = System.nanoTime() + groupCommitNanos;
+                long remaining = groupCommitNanos;
+                while (running && remaining > 0 && pending.position() < maxBatchBytes / 2) {
+                    try {
+                        remaining = workAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                    remaining = Math.min(remaining, deadline - System.nanoTime());
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                batchSequence = appendedSequence;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                writing.flip();
+                ByteBuffer[] batch = {frame(writing, channel.position()), writing};
+                while (writing.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                writing.clear();
+            }
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                    running = false;
+                } else {
+                    durableSequence = batchSequence;
+                    syncCount++;
+                }
+                batchDurable.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ByteBuffer frame(ByteBuffer body, long offset) {
+        batchCrc.reset();
+        batchCrc.update(body.duplicate());
+        batchHeader.clear().putInt(BATCH_MAGIC).putInt(body.remaining()).putInt((int) batchCrc.getValue());
+        batchHeader.putInt(headerCrc(batchHeader, 0, offset, batchCrc));
+        return batchHeader.flip();
+    }
+
+    // The header checksum covers the batch's own file offset, so record bytes inside a torn
+    // batch can't pass for a batch header when scanning past damage
+    private static int headerCrc(ByteBuffer buffer, int at, long offset, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(at, 12));
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (offset >>> shift));
+        }
+        return (int) crc.getValue();
+    }
+
+    // Body length of the batch whose header starts at `at`, or -1 if the header is not intact
+    private static int bodyLength(ByteBuffer buffer, int at, long offset, CRC32C crc) {
+        if (buffer.getInt(at) != BATCH_MAGIC || buffer.getInt(at + 12) != headerCrc(buffer, at, offset, crc)) {
+            return -1;
+        }
+        int bodyLength = buffer.getInt(at + 4);
+        return bodyLength <= Integer.MAX_VALUE - BATCH_HEADER_BYTES ? bodyLength : -1;
+    }
+
+    // Records inside a batch that passed its checksum were written whole, so any of them
+    // failing to parse is a bug or corruption the checksum missed, never a torn write
+    private long replayBatch(ByteBuffer body, long offset, JournalListener listener) throws IOException {
+        long records = 0;
+        while (body.hasRemaining()) {
+            int length = body.remaining() >= RECORD_OVERHEAD ? body.getInt() : -1;
+            if (length < 0 || (long) length + 1 > body.remaining()) {
+                throw new IOException("Malformed journal record in batch at offset " + offset);
+            }
+            byte type = body.get();
+            ByteBuffer payload = body.slice(body.position(), length);
+            body.position(body.position() + length);
+            dispatch(type, payload, listener);
+            records++;
+        }
+        return records;
+    }
+
+    // Looks for an intact batch at any offset after the damaged one
+    private boolean intactBatchAfter(long damagedAt, long size, CRC32C crc) throws IOException {
+        long position = damagedAt + 1;
+        while (size - position >= BATCH_HEADER_BYTES) {
+            long windowSize = Math.min(MAP_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            int last = (int) windowSize - BATCH_HEADER_BYTES;
+            for (int at = 0; at <= last; at++) {
+                long offset = position + at;
+                int bodyLength = bodyLength(window, at, offset, crc);
+                if (bodyLength < 0 || offset + BATCH_HEADER_BYTES + bodyLength > size) {
+                    continue;
+                }
+                crc.reset();
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset + BATCH_HEADER_BYTES, bodyLength));
+                if ((int) crc.getValue() == window.getInt(at + 8)) {
+                    return true;
+                }
+            }
+            position += last + 1;
+        }
+        return false;
+    }
+
+    private void dispatch(byte type, ByteBuffer payload, JournalListener listener) throws IOException {
+        try {
+            switch (type) {
+                case STATUS -> listener.onStatus(ElectionStatus.values()[payload.get()]);
+                case CANDIDATE -> listener.onCandidate(new Candidate(readString(payload), readString(payload),
+                    readString(payload), readString(payload), readString(payload),
+                    readString(payload)));
+                case VOTER -> listener.onVoter(new Voter(readString(payload), readString(payload), readString(payload),
+                    readString(payload), readString(payload), readTimestamp(payload),
+                    Voter.VoterStatus.values()[payload.get()]));
+                case VOTE -> listener.onVote(new Vote(readString(payload), readString(payload), readString(payload),
+                    readTimestamp(payload), readString(payload)));
+                case VOTE_BATCH -> dispatchVoteBatch(payload, listener);
+                case RANKED_BALLOT -> dispatchRankedBallot(payload, listener);
+                case LEDGER_BLOCK -> dispatchLedgerBlock(payload, listener);
+                default -> throw new IOException("Unknown journal record type " + type);
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed journal record of type " + type, e);
+        }
+    }
+
+    private static void dispatchVoteBatch(ByteBuffer payload, JournalListener listener) {
+        String batchId = readString(payload);
+        String station = readString(payload);
+        LocalDateTime castAt = readTimestamp(payload);
+        int count = payload.getInt();
+        List<VoteBatch.Ballot> ballots = new ArrayList<>(count);
+        BatchResult.Outcome[] outcomes = new BatchResult.Outcome[count];
+        for (int i = 0; i < count; i++) {
+            ballots.add(new VoteBatch.Ballot(readString(payload), readString(payload)));
+            outcomes[i] = BatchResult.Outcome.values()[payload.get()];
+        }
+        listener.onVoteBatch(new VoteBatch(batchId, station, ballots), outcomes, castAt);
+    }
+
+    private static void dispatchRankedBallot(ByteBuffer payload, JournalListener listener) {
+        String id = readString(payload);
+        String voterId = readString(payload);
+        int count = payload.getInt();
+        List<String> preferences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            preferences.add(readString(payload));
+        }
+        listener.onRankedBallot(new RankedBallot(id, voterId, preferences, readTimestamp(payload), readString(payload)));
+    }
+
+    private static void dispatchLedgerBlock(ByteBuffer payload, JournalListener listener) {
+        long number = payload.getLong();
+        int firstIndex = payload.getInt();
+        byte[] previousHash = new byte[32];
+        byte[] merkleRoot = new byte[32];
+        payload.get(previousHash).get(merkleRoot);
+        String[] voterIds = new String[payload.getInt()];
+        for (int i = 0; i < voterIds.length; i++) {
+            voterIds[i] = readString(payload);
+        }
+        listener.onLedgerBlock(new VoteLedger.Block(number, firstIndex, voterIds.length, previousHash, merkleRoot),
+            voterIds);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime timestamp) throws IOException {
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(ByteBuffer in) {
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    // Length-prefixed UTF-8; null is encoded as length -1.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
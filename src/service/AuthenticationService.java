@@ -1,36 +1,71 @@
 package service;
 
 import model.Voter;
+import exception.RejectReason;
 import exception.VotingException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import util.Counter;
+import util.LatencyTimer;
+import util.MetricsRegistry;
 
 public class AuthenticationService {
-    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    private final SessionStore sessions;
+    private final CredentialVerifier verifier;
+    private final Counter logins;
+    private final Counter loginFailures;
+    private final LatencyTimer loginLatency;
 
+    public AuthenticationService() {
+        this(new SessionStore(), CredentialVerifier.getDefault());
+    }
+
+    public AuthenticationService(SessionStore sessions, CredentialVerifier verifier) {
+        this.sessions = sessions;
+        this.verifier = verifier;
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        this.logins = registry.counter("voting_logins_total", "Successful logins");
+        this.loginFailures = registry.counter("voting_login_failures_total", "Logins refused or failed");
+        this.loginLatency = registry.timer("voting_login_seconds", "login latency, credential check included");
+        registry.gauge("voting_active_sessions", "Live sessions", sessions, store -> store.getMetrics().getActiveSessions());
+    }
+
+    // voter is null when no voter has the email given; that login fails after the same KDF
+    // work as a wrong password
     public String login(Voter voter, String password) throws VotingException {
-        if (!voter.verifyPassword(password)) {
-            throw new VotingException("Invalid credentials");
+        long started = System.nanoTime();
+        try {
+            if (!verifier.verify(voter, password)) {
+                throw RejectReason.INVALID_CREDENTIALS.exception();
+            }
+            String token = sessions.create(voter.getId());
+            logins.increment();
+            return token;
+        } catch (VotingException | RuntimeException e) {
+            loginFailures.increment();
+            throw e;
+        } finally {
+            loginLatency.recordSince(started);
         }
-        
-        String sessionId = generateSessionId();
-        sessions.put(sessionId, voter.getId());
-        return sessionId;
+    }
+
+    // Hashes a registration's password on the verifier pool rather than the caller's thread;
+    // refused like a login when the pool is saturated
+    public String hashPassword(String password) throws VotingException {
+        return verifier.hash(password, false);
     }
 
     public void logout(String sessionId) {
-        sessions.remove(sessionId);
+        sessions.invalidate(sessionId);
     }
 
     public String getVoterId(String sessionId) throws VotingException {
-        String voterId = sessions.get(sessionId);
+        String voterId = sessions.lookup(sessionId);
         if (voterId == null) {
-            throw new VotingException("Invalid session");
+            throw RejectReason.INVALID_SESSION.exception();
         }
         return voterId;
     }
 
-    private String generateSessionId() {
-        return java.util.UUID.randomUUID().toString();
+    public SessionMetrics getSessionMetrics() {
+        return sessions.getMetrics();
     }
 }
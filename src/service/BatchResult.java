@@ -0,0 +1,62 @@
+package service;
+
+import exception.RejectReason;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Per-ballot outcome of a VoteBatch, in the order the ballots were submitted.
+public class BatchResult {
+    private final String batchId;
+    private final String votingStation;
+    private final List<Outcome> outcomes;
+    private final int accepted;
+    private final boolean repeated;
+
+    public enum Outcome {
+        ACCEPTED(null),
+        UNKNOWN_VOTER(RejectReason.UNKNOWN_VOTER),
+        VOTER_NOT_VERIFIED(RejectReason.VOTER_NOT_VERIFIED),
+        ALREADY_VOTED(RejectReason.ALREADY_VOTED),
+        UNKNOWN_CANDIDATE(RejectReason.UNKNOWN_CANDIDATE);
+
+        private final RejectReason reason;
+
+        Outcome(RejectReason reason) {
+            this.reason = reason;
+        }
+
+        // Null for ACCEPTED
+        public RejectReason getReason() { return reason; }
+    }
+
+    BatchResult(String batchId, String votingStation, Outcome[] outcomes, boolean repeated) {
+        this.batchId = batchId;
+        this.votingStation = votingStation;
+        this.outcomes = Collections.unmodifiableList(Arrays.asList(outcomes));
+        this.accepted = (int) Arrays.stream(outcomes).filter(outcome -> outcome == Outcome.ACCEPTED).count();
+        this.repeated = repeated;
+    }
+
+    // The same outcomes, marked as the answer to a retried upload
+    BatchResult asRepeat() {
+        return repeated ? this : new BatchResult(batchId, votingStation, outcomes.toArray(new Outcome[0]), true);
+    }
+
+    // Getters
+    public String getBatchId() { return batchId; }
+    public String getVotingStation() { return votingStation; }
+    public List<Outcome> getOutcomes() { return outcomes; }
+    public Outcome getOutcome(int ballot) { return outcomes.get(ballot); }
+    public int getAccepted() { return accepted; }
+    public int getRejected() { return outcomes.size() - accepted; }
+    // True when this batch ID was already processed and nothing new was applied
+    public boolean isRepeated() { return repeated; }
+
+    @Override
+    public String toString() {
+        return String.format("Batch %s from %s: %d accepted, %d rejected%s",
+            batchId, votingStation, accepted, getRejected(), repeated ? " (repeated)" : "");
+    }
+}
@@ -0,0 +1,81 @@
+package service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Idempotency records for station batch uploads: the last `perStation` batch IDs of each
+// station, mapped to their result or to the upload still in progress. A station only retries
+// its recent uploads, so older results are dropped to keep memory bounded over a long polling
+// day. A retry that has fallen out of the window is applied again: every ballot it accepted the
+// first time comes back ALREADY_VOTED, so nothing is counted twice, but the original outcomes
+// are no longer reported. Uploads in progress are never dropped.
+final class BatchWindow {
+    private final int perStation;
+    private final Map<String, Station> stations = new ConcurrentHashMap<>();
+
+    private static final class Station {
+        final LinkedHashMap<String, CompletableFuture<BatchResult>> batches = new LinkedHashMap<>();
+    }
+
+    BatchWindow(int perStation) {
+        this.perStation = perStation;
+    }
+
+    // Returns the earlier attempt at this batch ID, or null after recording `mine`
+    CompletableFuture<BatchResult> putIfAbsent(String votingStation, String batchId,
+                                               CompletableFuture<BatchResult> mine) {
+        Station station = station(votingStation);
+        synchronized (station) {
+            CompletableFuture<BatchResult> earlier = station.batches.putIfAbsent(batchId, mine);
+            if (earlier == null) {
+                trim(station);
+            }
+            return earlier;
+        }
+    }
+
+    // Records a result restored from the journal
+    void put(String votingStation, String batchId, BatchResult result) {
+        Station station = station(votingStation);
+        synchronized (station) {
+            station.batches.remove(batchId);
+            station.batches.put(batchId, CompletableFuture.completedFuture(result));
+            trim(station);
+        }
+    }
+
+    // Withdraws a failed attempt so a retry is processed afresh
+    void remove(String votingStation, String batchId, CompletableFuture<BatchResult> attempt) {
+        Station station = station(votingStation);
+        synchronized (station) {
+            station.batches.remove(batchId, attempt);
+        }
+    }
+
+    int size(String votingStation) {
+        Station station = stations.get(String.valueOf(votingStation));
+        if (station == null) {
+            return 0;
+        }
+        synchronized (station) {
+            return station.batches.size();
+        }
+    }
+
+    private Station station(String votingStation) {
+        return stations.computeIfAbsent(String.valueOf(votingStation), key -> new Station());
+    }
+
+    // Oldest completed uploads go first
+    private void trim(Station station) {
+        Iterator<CompletableFuture<BatchResult>> it = station.batches.values().iterator();
+        while (station.batches.size() > perStation && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package service;
+
+import exception.VotingException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Streaming CSV import: the caller thread reads fixed-size chunks of lines, a worker pool
+// parses and validates them in parallel, and parsed chunks are applied in file order so the
+// first occurrence of a duplicate always wins. At most maxInFlight chunks are held at once,
+// which keeps heap bounded regardless of file size. Parsing runs on a pool of its own per import
+// unless one is shared in, e.g. by ElectionHost across its elections.
+class BulkImporter<T> {
+
+    interface RowParser<T> {
+        T parse(String[] fields) throws VotingException;
+    }
+
+    interface BatchSink<T> {
+        void apply(ParsedChunk<T> chunk, ImportReport report) throws VotingException;
+    }
+
+    static class ParsedChunk<T> {
+        final List<T> items;
+        final long[] itemRows;
+        final List<ImportReport.Reject> rejects = new ArrayList<>();
+        int rowsRead;
+
+        ParsedChunk(int capacity) {
+            this.items = new ArrayList<>(capacity);
+            this.itemRows = new long[capacity];
+        }
+    }
+
+    private final int batchSize;
+    private final int parallelism;
+    private final ExecutorService sharedPool;
+
+    BulkImporter(int batchSize, int parallelism) {
+        this(batchSize, parallelism, null);
+    }
+
+    BulkImporter(int batchSize, int parallelism, ExecutorService sharedPool) {
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.sharedPool = sharedPool;
+    }
+
+    ImportReport run(Path csvFile, String headerFirstColumn, RowParser<T> parser, BatchSink<T> sink)
+            throws IOException, VotingException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        int maxInFlight = parallelism * 2;
+        ExecutorService pool = sharedPool != null ? sharedPool : Executors.newFixedThreadPool(parallelism);
+        Deque<Future<ParsedChunk<T>>> inFlight = new ArrayDeque<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>(batchSize);
+            long firstRow = 1;
+            long rowNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                if (rowNumber == 1 && isHeader(line, headerFirstColumn)) {
+                    firstRow = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    inFlight.add(submit(pool, lines, firstRow, parser));
+                    lines = new ArrayList<>(batchSize);
+                    firstRow = rowNumber + 1;
+                    if (inFlight.size() >= maxInFlight) {
+                        applyNext(inFlight, sink, report);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                inFlight.add(submit(pool, lines, firstRow, parser));
+            }
+            while (!inFlight.isEmpty()) {
+                applyNext(inFlight, sink, report);
+            }
+        } finally {
+            if (pool == sharedPool) {
+                inFlight.forEach(parse -> parse.cancel(true));
+            } else {
+                pool.shutdownNow();
+            }
+        }
+
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    private Future<ParsedChunk<T>> submit(ExecutorService pool, List<String> lines, long firstRow,
+                                          RowParser<T> parser) {
+        return pool.submit(() -> {
+            ParsedChunk<T> chunk = new ParsedChunk<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.rowsRead++;
+                long row = firstRow + i;
+                try {
+                    chunk.items.add(parser.parse(splitCsv(line)));
+                    chunk.itemRows[chunk.items.size() - 1] = row;
+                } catch (VotingException e) {
+                    chunk.rejects.add(new ImportReport.Reject(row, e.getMessage()));
+                }
+            }
+            return chunk;
+        });
+    }
+
+    private void applyNext(Deque<Future<ParsedChunk<T>>> inFlight, BatchSink<T> sink, ImportReport report)
+            throws VotingException {
+        ParsedChunk<T> chunk;
+        try {
+            chunk = inFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VotingException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Import worker failed", e.getCause());
+        }
+        report.addRowsRead(chunk.rowsRead);
+        for (ImportReport.Reject reject : chunk.rejects) {
+            report.reject(reject.getRowNumber(), reject.getReason());
+        }
+        sink.apply(chunk, report);
+    }
+
+    private static boolean isHeader(String line, String headerFirstColumn) {
+        String[] fields = splitCsv(line);
+        return fields.length > 0 && fields[0].trim().equalsIgnoreCase(headerFirstColumn);
+    }
+
+    // Minimal RFC 4180 split: commas, double-quoted fields and "" escapes on a single line.
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,249 @@
+package service;
+
+import model.Voter;
+import exception.RejectReason;
+import exception.VotingException;
+import util.PasswordHasher;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs every password KDF (login checks, and hashing for registrations and imports) on a small
+// dedicated pool, so a login or registration storm can use at most `threads` cores and never the
+// threads that cast votes. Once `maxQueued` requests are waiting, new ones are refused straight
+// away instead of queueing without bound, which keeps latency predictable under overload; bulk
+// imports wait for room instead. Logins for unknown voters are checked against a dummy hash, so
+// they take as long as a wrong password and don't reveal which emails are registered.
+//
+// Recent successful verifications are remembered per voter as a SHA-256 digest keyed with a
+// per-process secret, so a repeat login within the TTL costs one digest instead of the full
+// KDF. Nothing in the cache can be used to recover or test a password outside this process.
+public class CredentialVerifier implements AutoCloseable {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private static final class CachedVerification {
+        final byte[] digest;
+        final long expiresAt;
+
+        CachedVerification(byte[] digest, long expiresAt) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static volatile CredentialVerifier defaultVerifier;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore admitted;
+    private final long timeoutMillis;
+    private final int cacheSize;
+    private final long cacheTtlMillis;
+    private final byte[] cacheKey = new byte[32];
+    private final Map<String, CachedVerification> cache = new ConcurrentHashMap<>();
+    private volatile String dummyCredential;
+    private volatile int dummyCost;
+
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public CredentialVerifier() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 256, 2000, 100_000,
+            TimeUnit.MINUTES.toMillis(15));
+    }
+
+    public CredentialVerifier(int threads, int maxQueued, long timeoutMillis, int cacheSize, long cacheTtlMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.cacheSize = cacheSize;
+        this.cacheTtlMillis = cacheTtlMillis;
+        new SecureRandom().nextBytes(cacheKey);
+        // A permit per running or queued request; the queue itself never fills
+        this.admitted = new Semaphore(threads + maxQueued);
+        AtomicInteger workerCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "credential-verifier-" + workerCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    // Shared by the default AuthenticationService and by voter imports, so they compete for one
+    // bounded set of KDF threads
+    public static CredentialVerifier getDefault() {
+        CredentialVerifier verifier = defaultVerifier;
+        if (verifier == null) {
+            synchronized (CredentialVerifier.class) {
+                if (defaultVerifier == null) {
+                    defaultVerifier = new CredentialVerifier();
+                }
+                verifier = defaultVerifier;
+            }
+        }
+        return verifier;
+    }
+
+    // A null voter (no such email) costs the same KDF as a wrong password and returns false
+    public boolean verify(Voter voter, String password) throws VotingException {
+        if (password == null) {
+            return false;
+        }
+        if (voter == null) {
+            run(() -> {
+                PasswordHasher.verify(password, dummyCredential());
+                return false;
+            }, false);
+            verifications.increment();
+            return false;
+        }
+        byte[] digest = cacheDigest(voter.getCredential(), password);
+        CachedVerification cached = cache.get(voter.getId());
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()
+                && MessageDigest.isEqual(cached.digest, digest)) {
+            cacheHits.increment();
+            return true;
+        }
+
+        boolean valid = run(() -> voter.verifyPassword(password), false);
+        verifications.increment();
+        if (valid) {
+            remember(voter.getId(), digest);
+        }
+        return valid;
+    }
+
+    // Hashes a new password with the default PasswordHasher. Interactive registrations are
+    // refused when the pool is full; a bulk import passes waitForRoom and is held back instead.
+    public String hash(String password, boolean waitForRoom) throws VotingException {
+        if (password == null) {
+            throw new VotingException("Password is required");
+        }
+        return run(() -> PasswordHasher.getDefault().hash(password), waitForRoom);
+    }
+
+    public void forget(String voterId) {
+        cache.remove(voterId);
+    }
+
+    public long getVerificationCount() { return verifications.sum(); }
+    public long getCacheHitCount() { return cacheHits.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getTimedOutCount() { return timedOut.sum(); }
+    public int getQueueDepth() { return executor.getQueue().size(); }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> work, boolean waitForRoom) throws VotingException {
+        if (waitForRoom) {
+            try {
+                admitted.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VotingException("Password hashing interrupted");
+            }
+        } else if (!admitted.tryAcquire()) {
+            rejected.increment();
+            throw RejectReason.VERIFIER_BUSY.exception();
+        }
+        // The permit is held until a worker is done with the task: a KDF that timed out keeps
+        // its thread busy, and a cancelled task is still taken off the queue by a worker
+        FutureTask<T> task = new FutureTask<>(work) {
+            @Override
+            public void run() {
+                try {
+                    super.run();
+                } finally {
+                    admitted.release();
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw new VotingException("Credential verifier is shut down");
+        }
+        try {
+            return waitForRoom ? task.get() : task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            timedOut.increment();
+            throw RejectReason.VERIFIER_TIMEOUT.exception();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new VotingException("Login interrupted");
+        } catch (ExecutionException e) {
+            throw new VotingException("Could not verify credentials: " + e.getCause().getMessage());
+        }
+    }
+
+    // Made on first use with the default hasher's cost, and again if that cost changes
+    private String dummyCredential() {
+        PasswordHasher hasher = PasswordHasher.getDefault();
+        String dummy = dummyCredential;
+        if (dummy == null || dummyCost != hasher.getIterations()) {
+            byte[] secret = new byte[16];
+            new SecureRandom().nextBytes(secret);
+            dummy = hasher.hash(Base64.getEncoder().encodeToString(secret));
+            dummyCost = hasher.getIterations();
+            dummyCredential = dummy;
+        }
+        return dummy;
+    }
+
+    private void remember(String voterId, byte[] digest) {
+        long now = System.currentTimeMillis();
+        if (cache.size() >= cacheSize && !cache.containsKey(voterId)) {
+            // Drop expired entries first, then arbitrary ones, down to 90% of the limit
+            int target = cacheSize - Math.max(1, cacheSize / 10);
+            for (Iterator<CachedVerification> it = cache.values().iterator(); it.hasNext() && cache.size() > target; ) {
+                if (it.next().expiresAt <= now) {
+                    it.remove();
+                }
+            }
+            for (Iterator<CachedVerification> it = cache.values().iterator(); it.hasNext() && cache.size() > target; ) {
+                it.next();
+                it.remove();
+            }
+        }
+        cache.put(voterId, new CachedVerification(digest, now + cacheTtlMillis));
+    }
+
+    // Binds the cached entry to both the password and the stored credential, so it stops
+    // matching as soon as either changes
+    private byte[] cacheDigest(String credential, String password) {
+        MessageDigest sha256 = SHA256.get();
+        sha256.update(cacheKey);
+        sha256.update(credential.getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) 0);
+        sha256.update(password.getBytes(StandardCharsets.UTF_8));
+        return sha256.digest();
+    }
+}
@@ -0,0 +1,130 @@
+package service;
+
+import model.Voter;
+import exception.VotingException;
+import util.ElectionLogger;
+import util.ValidationUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs many elections side by side (national, regional, referendums) over one voter registry
+// and one set of sessions, so a voter registers and logs in once and the same session votes in
+// every contest. Each election keeps its own candidates, votes, status and results, and tracks
+// who has voted in it separately. Logging goes through the one logger handed in, and voter
+// imports and ledger hashing for every election run on one fixed worker pool, so adding an
+// election adds no threads.
+public class ElectionHost implements AutoCloseable {
+    private final VoterRegistry voters;
+    private final AuthenticationService authService;
+    private final ElectionLogger logger;
+    private final ExecutorService workers;
+    private final Map<String, ElectionService> elections = new ConcurrentHashMap<>();
+
+    public ElectionHost(ElectionLogger logger) {
+        this(logger, new AuthenticationService(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public ElectionHost(ElectionLogger logger, AuthenticationService authService, int workerThreads) {
+        this.voters = new VoterRegistry();
+        this.authService = authService;
+        this.logger = logger;
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "election-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Election names are unique within the host and label the election's log lines and metrics
+    public synchronized ElectionService createElection(String electionName, LocalDateTime electionDate)
+            throws VotingException {
+        if (electionName == null || electionName.isBlank()) {
+            throw new VotingException("Election name is required");
+        }
+        if (elections.containsKey(electionName)) {
+            throw new VotingException("Election already exists: " + electionName);
+        }
+        ElectionService election = new ElectionService(electionName, electionDate, logger, voters, workers);
+        elections.put(electionName, election);
+        logger.logAction("Hosting election: " + electionName);
+        return election;
+    }
+
+    public ElectionService getElection(String electionName) {
+        return electionName == null ? null : elections.get(electionName);
+    }
+
+    public List<ElectionService> getElections() {
+        List<ElectionService> all = new ArrayList<>(elections.values());
+        all.sort(Comparator.comparing(ElectionService::getElectionName));
+        return Collections.unmodifiableList(all);
+    }
+
+    // Registers a voter for every hosted election, whatever their status; an election's own
+    // registerVoter() reaches the same registry but only while its registration is open
+    public void registerVoter(Voter voter) throws VotingException {
+        ValidationUtil.validateRegistration(voter);
+        voters.register(voter);
+        logger.logAction("Registered voter: " + voter.getName());
+    }
+
+    public Voter getVoter(String voterId) {
+        return voters.getById(voterId);
+    }
+
+    public Voter findVoterByEmail(String email) {
+        return voters.getByEmail(email);
+    }
+
+    public Voter findVoterByNationalId(String nationalId) {
+        return voters.getByNationalId(nationalId);
+    }
+
+    public int getVoterCount() {
+        return voters.size();
+    }
+
+    public AuthenticationService getAuthenticationService() {
+        return authService;
+    }
+
+    public void castVote(String sessionId, String electionName, String candidateId, String votingStation)
+            throws VotingException {
+        election(electionName).castVote(authService.getVoterId(sessionId), candidateId, votingStation);
+    }
+
+    public void castRankedVote(String sessionId, String electionName, List<String> preferences,
+                               String votingStation) throws VotingException {
+        election(electionName).castRankedVote(authService.getVoterId(sessionId), preferences, votingStation);
+    }
+
+    private ElectionService election(String electionName) throws VotingException {
+        ElectionService election = getElection(electionName);
+        if (election == null) {
+            throw new VotingException("No such election: " + electionName);
+        }
+        return election;
+    }
+
+    // Stops the elections' ledgers and the worker pool; the logger belongs to the caller
+    @Override
+    public void close() {
+        for (ElectionService election : elections.values()) {
+            VoteLedger ledger = election.getLedger();
+            if (ledger != null) {
+                ledger.close();
+            }
+        }
+        workers.shutdown();
+    }
+}
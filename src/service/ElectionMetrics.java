@@ -0,0 +1,68 @@
+package service;
+
+import exception.RejectReason;
+import exception.VotingException;
+import util.Counter;
+import util.InstrumentedLock;
+import util.LatencyTimer;
+import util.MetricsRegistry;
+
+// The instruments of one election, labelled with its name and the instance ID of its service,
+// so services that share a name (a restore, a rerun in the same process) never share series
+final class ElectionMetrics {
+    final Counter votesCast;
+    // By RejectReason ordinal; the last one counts refusals without a reason, e.g. journal errors
+    private final Counter[] votesRejected;
+    final Counter votersRegistered;
+    final Counter registrationsRejected;
+    final Counter transitions;
+    final LatencyTimer castVote;
+    final LatencyTimer castBatch;
+    final LatencyTimer registerVoter;
+    final LatencyTimer transition;
+    final LatencyTimer liveResults;
+    final LatencyTimer turnoutReport;
+    final LatencyTimer rankedResults;
+    final LatencyTimer snapshot;
+    final InstrumentedLock monitor;
+
+    ElectionMetrics(MetricsRegistry registry, String electionName, String instanceId) {
+        String[] election = {"election", electionName, "instance", instanceId};
+        votesCast = registry.counter("voting_votes_cast_total", "Votes accepted", election);
+        RejectReason[] reasons = RejectReason.values();
+        votesRejected = new Counter[reasons.length + 1];
+        for (RejectReason reason : reasons) {
+            votesRejected[reason.ordinal()] = registry.counter("voting_votes_rejected_total", "Votes refused, by reason",
+                "election", electionName, "instance", instanceId, "reason", reason.label());
+        }
+        votesRejected[reasons.length] = registry.counter("voting_votes_rejected_total", "Votes refused, by reason",
+            "election", electionName, "instance", instanceId, "reason", "error");
+        votersRegistered = registry.counter("voting_voters_registered_total", "Voters registered", election);
+        registrationsRejected = registry.counter("voting_registrations_rejected_total",
+            "Registrations refused by validation", election);
+        transitions = registry.counter("voting_status_transitions_total", "Election status changes", election);
+        castVote = registry.timer("voting_cast_vote_seconds", "castVote and castRankedVote latency", election);
+        castBatch = registry.timer("voting_cast_batch_seconds", "castVotes latency per batch", election);
+        registerVoter = registry.timer("voting_register_voter_seconds", "registerVoter latency", election);
+        transition = registry.timer("voting_status_transition_seconds", "Status transition latency", election);
+        liveResults = registry.timer("voting_results_query_seconds", "Results snapshot latency",
+            "election", electionName, "instance", instanceId, "query", "live");
+        turnoutReport = registry.timer("voting_results_query_seconds", "Results snapshot latency",
+            "election", electionName, "instance", instanceId, "query", "turnout");
+        rankedResults = registry.timer("voting_results_query_seconds", "Results snapshot latency",
+            "election", electionName, "instance", instanceId, "query", "ranked");
+        snapshot = registry.timer("voting_snapshot_seconds", "writeSnapshot latency", election);
+        monitor = new InstrumentedLock(
+            registry.counter("voting_monitor_contended_total", "Acquisitions of the election lock that had to wait", election),
+            registry.timer("voting_monitor_wait_seconds", "Time spent waiting for the election lock", election),
+            registry.timer("voting_monitor_held_seconds", "Time the election lock was held", election));
+    }
+
+    Counter votesRejected(VotingException rejection) {
+        return votesRejected(rejection.getReason());
+    }
+
+    Counter votesRejected(RejectReason reason) {
+        return votesRejected[reason == null ? votesRejected.length - 1 : reason.ordinal()];
+    }
+}
@@ -1,117 +1,995 @@
 package service;
 
 import model.*;
+import exception.RejectReason;
 import exception.VotingException;
 import util.ValidationUtil;
 import util.ElectionLogger;
+import util.EntryGate;
+import util.Ids;
+import util.MetricsRegistry;
+import util.PasswordHasher;
+import util.ReadCache;
+import persistence.JournalListener;
+import persistence.VoteJournal;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class ElectionService {
     private final Map<String, Candidate> candidates;
-    private final Map<String, Voter> voters;
-    private final Set<Vote> votes;
+    private final VoterRegistry voters;
+    private final VoteClaims claims;
+    private final VoteStore votes;
+    private final RankedBallotStore rankedBallots;
     private final ElectionLogger logger;
-    private ElectionStatus status;
+    private final String logPrefix;
+    private final ExecutorService workers;
+    private final VoteJournal journal;
+    private final ResultsEngine results;
+    private final TurnoutAnalytics analytics;
+    private final BatchWindow voteBatches;
+    private volatile VoteLedger ledger;
+    private List<VoteLedger.Block> recoveredBlocks = List.of();
+    private final ElectionMetrics metrics;
+    private final ReadCache<String, Object> views;
+    private final EntryGate voting;
+    private volatile ElectionStatus status;
     private final LocalDateTime electionDate;
     private final String electionName;
+    // Tells apart the metric series of services with the same election name
+    private final String instanceId;
+
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+    private static final long RESULTS_REFRESH_MILLIS = 250;
+    private static final Duration TURNOUT_BUCKET = Duration.ofMinutes(5);
+    private static final int IMPORT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_BATCH_BALLOTS = 5_000;
+    private static final int BATCHES_PER_STATION = 256;
+    private static final int MAX_CACHED_VIEWS = 16;
 
     public enum ElectionStatus {
         SETUP, REGISTRATION_OPEN, VOTING_OPEN, CLOSED
     }
 
     public ElectionService(String electionName, LocalDateTime electionDate) {
+        this(electionName, electionDate, ElectionLogger.console());
+    }
+
+    public ElectionService(String electionName, LocalDateTime electionDate, ElectionLogger logger) {
+        this(electionName, electionDate, logger, null, new VoterRegistry(), VoteClaims.onVoters(), null, null);
+    }
+
+    // Hosted by an ElectionHost: voters, logger and worker pool are shared with its other
+    // elections, who has voted is tracked per election, and log lines carry the election name
+    ElectionService(String electionName, LocalDateTime electionDate, ElectionLogger logger,
+                    VoterRegistry voters, ExecutorService workers) {
+        this(electionName, electionDate, logger, null, voters, VoteClaims.perElection(), workers,
+            "[" + electionName + "] ");
+    }
+
+    private ElectionService(String electionName, LocalDateTime electionDate, ElectionLogger logger,
+                            VoteJournal journal, VoterRegistry voters, VoteClaims claims,
+                            ExecutorService workers, String logPrefix) {
         this.candidates = new ConcurrentHashMap<>();
-        this.voters = new ConcurrentHashMap<>();
-        this.votes = Collections.newSetFromMap(new ConcurrentHashMap<>());
-        this.logger = new ElectionLogger();
+        this.voters = voters;
+        this.claims = claims;
+        this.votes = new VoteStore();
+        this.rankedBallots = new RankedBallotStore();
+        this.logger = logger;
+        this.logPrefix = logPrefix;
+        this.workers = workers;
+        this.journal = journal;
+        this.results = new ResultsEngine(RESULTS_REFRESH_MILLIS);
+        this.analytics = new TurnoutAnalytics(votes);
+        this.voteBatches = new BatchWindow(BATCHES_PER_STATION);
+        this.voting = new EntryGate();
         this.status = ElectionStatus.SETUP;
         this.electionName = electionName;
         this.electionDate = electionDate;
+        this.instanceId = Ids.nextString();
+        this.metrics = new ElectionMetrics(MetricsRegistry.getDefault(), electionName, instanceId);
+        this.views = new ReadCache<>(MAX_CACHED_VIEWS, view -> 1, "cache", "views", "election", electionName,
+            "instance", instanceId);
+        MetricsRegistry.getDefault().gauge("voting_registered_voters", "Registered voters", this,
+            service -> service.voters.size(), "election", electionName, "instance", instanceId);
+        MetricsRegistry.getDefault().gauge("voting_recorded_votes", "Votes in the vote store", this,
+            service -> service.votes.size(), "election", electionName, "instance", instanceId);
+        MetricsRegistry.getDefault().gauge("voting_status", "Election status (0 setup, 1 registration, 2 voting, 3 closed)",
+            this, service -> service.status.ordinal(), "election", electionName, "instance", instanceId);
     }
 
-    public synchronized void addCandidate(Candidate candidate) throws VotingException {
-        ValidationUtil.validateElectionStatus(status, ElectionStatus.SETUP);
-        candidates.put(candidate.getId(), candidate);
-        logger.logAction("Added candidate: " + candidate.getName());
+    // Creates a journaled service: state is rebuilt by replaying the journal, and from then on
+    // every mutation is durable in the journal before the call returns.
+    public static ElectionService recover(String electionName, LocalDateTime electionDate,
+                                          ElectionLogger logger, VoteJournal journal) throws IOException {
+        ElectionService service = new ElectionService(electionName, electionDate, logger, journal,
+            new VoterRegistry(), VoteClaims.onVoters(), null, null);
+        long started = System.nanoTime();
+        Replay replay = service.new Replay();
+        long records = journal.replay(replay);
+        Ids.advancePast(replay.highestId);
+        service.restoreSealOrder(replay.blocks, replay.sealedVoterIds);
+        logger.logAction(String.format("Recovered %d journal records (%d votes) in %d ms",
+            records, service.votes.size(), (System.nanoTime() - started) / 1_000_000));
+        return service;
+    }
+
+    // Creates a service from a snapshot written by writeSnapshot(). It has no journal; votes
+    // cast after the snapshot was taken are not in it.
+    public static ElectionService restore(Path snapshotFile, ElectionLogger logger) throws IOException {
+        long started = System.nanoTime();
+        try (ElectionSnapshot snapshot = ElectionSnapshot.open(snapshotFile)) {
+            ElectionService service = new ElectionService(snapshot.getElectionName(), snapshot.getElectionDate(),
+                logger, null, new VoterRegistry(snapshot.getVoterCount()), VoteClaims.onVoters(), null, null);
+            for (Candidate candidate : snapshot.getCandidates()) {
+                service.candidates.put(candidate.getId(), candidate);
+                service.results.addCandidate(candidate);
+            }
+            snapshot.restore(service.voters, service.votes, service.rankedBallots, service.analytics);
+            service.setStatus(snapshot.getStatus());
+            long highestId = -1;
+            for (Candidate candidate : service.candidates.values()) {
+                highestId = Math.max(highestId, Ids.parse(candidate.getId()));
+            }
+            for (Voter voter : service.voters.getAll()) {
+                highestId = Math.max(highestId, voter.getNumericId());
+            }
+            Ids.advancePast(highestId);
+            logger.logAction(String.format("Restored snapshot %s (%d voters, %d votes) in %d ms",
+                snapshotFile.getFileName(), service.voters.size(), service.votes.size(),
+                (System.nanoTime() - started) / 1_000_000));
+            return service;
+        }
     }
 
-    public synchronized void registerVoter(Voter voter) throws VotingException {
+    public void addCandidate(Candidate candidate) throws VotingException {
+        metrics.monitor.lock();
+        try {
+            ValidationUtil.validateElectionStatus(status, ElectionStatus.SETUP);
+            journal(j -> j.appendCandidate(candidate));
+            candidates.put(candidate.getId(), candidate);
+            results.addCandidate(candidate);
+            log("Added candidate: " + candidate.getName());
+        } finally {
+            metrics.monitor.unlock();
+        }
+    }
+
+    public void registerVoter(Voter voter) throws VotingException {
+        long started = System.nanoTime();
+        try {
+            addVoter(voter);
+            metrics.votersRegistered.increment();
+        } catch (VotingException e) {
+            metrics.registrationsRejected.increment();
+            throw e;
+        } finally {
+            metrics.registerVoter.recordSince(started);
+        }
+    }
+
+    private void addVoter(Voter voter) throws VotingException {
         ValidationUtil.validateElectionStatus(status, ElectionStatus.REGISTRATION_OPEN);
-        if (voters.containsKey(voter.getNationalId())) {
-            throw new VotingException("Voter already registered");
+        ValidationUtil.validateRegistration(voter);
+        voters.register(voter);
+        try {
+            journal(j -> j.appendVoter(voter));
+        } catch (VotingException e) {
+            voters.unregister(voter);
+            throw e;
         }
-        voters.put(voter.getId(), voter);
-        logger.logAction("Registered voter: " + voter.getName());
+        log("Registered voter: " + voter.getName());
+    }
+
+    // Voter CSV columns: name,email,nationalId,password[,status]. An optional header row
+    // starting with "name" is skipped. Rows are parsed in parallel and registered in batches;
+    // bad or duplicate rows are reported in the ImportReport and don't stop the import.
+    public ImportReport importVoters(Path csvFile) throws IOException, VotingException {
+        ValidationUtil.validateElectionStatus(status, ElectionStatus.REGISTRATION_OPEN);
+        BulkImporter<Voter> importer = new BulkImporter<>(IMPORT_BATCH_SIZE, IMPORT_PARALLELISM, workers);
+        ImportReport report = importer.run(csvFile, "name", fields -> {
+            if (fields.length < 4 || fields.length > 5) {
+                throw new VotingException("Expected 4 or 5 columns, found " + fields.length);
+            }
+            Voter.VoterStatus status = fields.length == 5 && !fields[4].isBlank()
+                ? ValidationUtil.parseVoterStatus(fields[4]) : null;
+            ValidationUtil.validateRegistration(fields[1], fields[2]);
+            // Plaintext passwords are hashed on the shared verifier pool, waiting for room there
+            // rather than competing with logins for cores
+            String credential = PasswordHasher.isHashed(fields[3])
+                ? fields[3] : CredentialVerifier.getDefault().hash(fields[3], true);
+            Voter voter = new Voter(fields[0].trim(), fields[1].trim(), fields[2].trim(), credential);
+            if (status != null) {
+                voter.setStatus(status);
+            }
+            return voter;
+        }, (chunk, batchReport) -> {
+            ValidationUtil.validateElectionStatus(status, ElectionStatus.REGISTRATION_OPEN);
+            List<Voter> accepted = new ArrayList<>(chunk.items.size());
+            for (int i = 0; i < chunk.items.size(); i++) {
+                String rejection = voters.tryRegister(chunk.items.get(i));
+                if (rejection == null) {
+                    accepted.add(chunk.items.get(i));
+                } else {
+                    batchReport.reject(chunk.itemRows[i], rejection);
+                }
+            }
+            // One durability wait for the whole batch
+            try {
+                journal(j -> {
+                    long last = 0;
+                    for (Voter voter : accepted) {
+                        last = j.appendVoter(voter);
+                    }
+                    return last;
+                });
+            } catch (VotingException e) {
+                accepted.forEach(voters::unregister);
+                throw e;
+            }
+            batchReport.addImported(accepted.size());
+        });
+        log("Imported voters from " + csvFile.getFileName() + ": " + report);
+        return report;
+    }
+
+    // Candidate CSV columns: name,party,manifesto,imageUrl,background (header optional).
+    public ImportReport importCandidates(Path csvFile) throws IOException, VotingException {
+        ValidationUtil.validateElectionStatus(status, ElectionStatus.SETUP);
+        BulkImporter<Candidate> importer = new BulkImporter<>(IMPORT_BATCH_SIZE, IMPORT_PARALLELISM, workers);
+        ImportReport report = importer.run(csvFile, "name", fields -> {
+            if (fields.length != 5) {
+                throw new VotingException("Expected 5 columns, found " + fields.length);
+            }
+            if (fields[0].isBlank()) {
+                throw new VotingException("Candidate name is required");
+            }
+            return new Candidate(fields[0].trim(), fields[1].trim(), fields[2], fields[3].trim(), fields[4]);
+        }, (chunk, batchReport) -> {
+            ValidationUtil.validateElectionStatus(status, ElectionStatus.SETUP);
+            journal(j -> {
+                long last = 0;
+                for (Candidate candidate : chunk.items) {
+                    last = j.appendCandidate(candidate);
+                }
+                return last;
+            });
+            for (Candidate candidate : chunk.items) {
+                candidates.put(candidate.getId(), candidate);
+                results.addCandidate(candidate);
+            }
+            batchReport.addImported(chunk.items.size());
+        });
+        log("Imported candidates from " + csvFile.getFileName() + ": " + report);
+        return report;
+    }
+
+    // Read-only and shared between callers; rebuilt only when a candidate is added
+    public List<Candidate> getCandidates() {
+        return view("candidates", getCandidatesVersion(),
+            () -> Collections.unmodifiableList(new ArrayList<>(candidates.values())));
     }
 
-    public synchronized void castVote(String voterId, String candidateId, String votingStation) 
+    public Candidate getCandidate(String candidateId) {
+        return candidateId == null ? null : candidates.get(candidateId);
+    }
+
+    // Changes whenever the candidate list does; candidates are only ever added, and their
+    // profiles don't change once added
+    public long getCandidatesVersion() {
+        return candidates.size();
+    }
+
+    public Voter getVoter(String voterId) {
+        return voters.getById(voterId);
+    }
+
+    public Voter findVoterByEmail(String email) {
+        return voters.getByEmail(email);
+    }
+
+    public Voter findVoterByNationalId(String nationalId) {
+        return voters.getByNationalId(nationalId);
+    }
+
+    public void castVote(String voterId, String candidateId, String votingStation)
             throws VotingException {
-        ValidationUtil.validateElectionStatus(status, ElectionStatus.VOTING_OPEN);
-        
-        Voter voter = voters.get(voterId);
-        ValidationUtil.validateVoter(voter);
-        
-        Candidate candidate = candidates.get(candidateId);
-        ValidationUtil.validateCandidate(candidate);
+        long started = System.nanoTime();
+        VotingException rejection;
+        try {
+            rejection = recordVote(voterId, candidateId, votingStation);
+        } finally {
+            metrics.castVote.recordSince(started);
+        }
+        rejectIfRefused(rejection);
+    }
+
+    // Counts the outcome and throws the refusal, if any; validation refusals are preallocated,
+    // so a rejected vote allocates nothing from validation to throw
+    private void rejectIfRefused(VotingException rejection) throws VotingException {
+        if (rejection != null) {
+            metrics.votesRejected(rejection).increment();
+            throw rejection;
+        }
+        metrics.votesCast.increment();
+    }
 
-        Vote vote = new Vote(voterId, candidateId, votingStation);
-        votes.add(vote);
-        voter.setHasVoted(true);
+    // Returns null once the vote is recorded, otherwise why it was refused.
+    // Not synchronized: the per-voter claim (a CAS on the voter, or on its slot in this
+    // election's claims when hosted) is the only serialization point,
+    // so votes for different voters never wait on each other. Holding the voting gate only
+    // keeps closeElection() from completing until the vote is fully recorded.
+    private VotingException recordVote(String voterId, String candidateId, String votingStation) {
+        int stripe = voting.enter();
+        if (stripe < 0) {
+            return votingClosed();
+        }
+        try {
+            return recordOpenVote(voterId, candidateId, votingStation);
+        } finally {
+            voting.exit(stripe);
+        }
+    }
+
+    private VotingException recordOpenVote(String voterId, String candidateId, String votingStation) {
+        VotingException rejection = ValidationUtil.checkStation(votingStation);
+        if (rejection != null) {
+            return rejection;
+        }
+        Voter voter = voters.getById(voterId);
+        rejection = ValidationUtil.checkVoter(voter, voter != null && claims.hasVoted(voter));
+        if (rejection != null) {
+            return rejection;
+        }
+
+        Candidate candidate = getCandidate(candidateId);
+        rejection = ValidationUtil.checkCandidate(candidate);
+        if (rejection != null) {
+            return rejection;
+        }
+
+        if (!claims.claim(voter)) {
+            return RejectReason.ALREADY_VOTED.exception();
+        }
+
+        long castAt = System.currentTimeMillis();
+        if (journal != null) {
+            // The Vote object is only built for the journal record; the store keeps columns
+            Vote vote = new Vote(voterId, candidateId, votingStation);
+            castAt = epochMillis(vote.getTimestamp());
+            try {
+                journal(j -> j.appendVote(vote));
+            } catch (VotingException e) {
+                claims.release(voter);
+                return e;
+            }
+        }
+        // Tally before the store: the store size is the results engine's change stamp, so it
+        // must never run ahead of the counts a snapshot reads
         candidate.incrementVote();
+        votes.append(voterId, candidateId, votingStation, castAt);
+        analytics.recordVote(votingStation);
         
-        logger.logAction("Vote cast by voter ID: " + voterId);
+        log("Vote cast by voter ID: " + voterId);
+        return null;
+    }
+
+    // A ranked ballot also counts as a vote for its first choice, so plurality results, turnout
+    // and statistics include it; the full ranking is kept for getRankedResults().
+    public void castRankedVote(String voterId, List<String> preferences, String votingStation)
+            throws VotingException {
+        long started = System.nanoTime();
+        VotingException rejection;
+        try {
+            rejection = recordRankedVote(voterId, preferences, votingStation);
+        } finally {
+            metrics.castVote.recordSince(started);
+        }
+        rejectIfRefused(rejection);
+    }
+
+    private VotingException recordRankedVote(String voterId, List<String> preferences, String votingStation) {
+        int stripe = voting.enter();
+        if (stripe < 0) {
+            return votingClosed();
+        }
+        try {
+            return recordOpenRankedVote(voterId, preferences, votingStation);
+        } finally {
+            voting.exit(stripe);
+        }
+    }
+
+    private VotingException recordOpenRankedVote(String voterId, List<String> preferences, String votingStation) {
+        VotingException rejection = ValidationUtil.checkStation(votingStation);
+        if (rejection != null) {
+            return rejection;
+        }
+        Voter voter = voters.getById(voterId);
+        rejection = ValidationUtil.checkVoter(voter, voter != null && claims.hasVoted(voter));
+        if (rejection != null) {
+            return rejection;
+        }
+        rejection = ValidationUtil.checkRanking(preferences, candidates);
+        if (rejection != null) {
+            return rejection;
+        }
+        Candidate firstChoice = candidates.get(preferences.get(0));
+
+        if (!claims.claim(voter)) {
+            return RejectReason.ALREADY_VOTED.exception();
+        }
+
+        long castAt = System.currentTimeMillis();
+        if (journal != null) {
+            RankedBallot ballot = new RankedBallot(voterId, preferences, votingStation);
+            castAt = epochMillis(ballot.getTimestamp());
+            try {
+                journal(j -> j.appendRankedBallot(ballot));
+            } catch (VotingException e) {
+                claims.release(voter);
+                return e;
+            }
+        }
+        // Ballot before the store, so a snapshot cut of the store never misses a ranking
+        firstChoice.incrementVote();
+        rankedBallots.append(voterId, preferences);
+        votes.append(voterId, firstChoice.getId(), votingStation, castAt);
+        analytics.recordVote(votingStation);
+
+        log("Ranked vote cast by voter ID: " + voterId);
+        return null;
+    }
+
+    // Applies a station's upload in one pass: every ballot is validated and claimed, the whole
+    // batch goes to the journal as a single record with one durability wait, and one log line
+    // is written. Rejected ballots don't affect the others. Resubmitting one of the station's
+    // last BATCHES_PER_STATION batch IDs returns the original result without applying anything
+    // again, even while the first upload is running.
+    public BatchResult castVotes(VoteBatch batch) throws VotingException {
+        ValidationUtil.validateElectionStatus(status, ElectionStatus.VOTING_OPEN);
+        if (batch.getBatchId() == null || batch.getBatchId().isBlank()) {
+            throw new VotingException("Batch ID is required");
+        }
+        if (batch.size() > MAX_BATCH_BALLOTS) {
+            throw new VotingException("Batch exceeds " + MAX_BATCH_BALLOTS + " ballots");
+        }
+        ValidationUtil.validateStation(batch.getVotingStation());
+
+        CompletableFuture<BatchResult> mine = new CompletableFuture<>();
+        CompletableFuture<BatchResult> earlier = voteBatches.putIfAbsent(batch.getVotingStation(),
+            batch.getBatchId(), mine);
+        if (earlier != null) {
+            try {
+                return earlier.join().asRepeat();
+            } catch (CompletionException e) {
+                // The earlier attempt failed and was withdrawn; process this one afresh
+                return castVotes(batch);
+            }
+        }
+
+        long started = System.nanoTime();
+        try {
+            BatchResult result = applyBatch(batch);
+            mine.complete(result);
+            return result;
+        } catch (VotingException | RuntimeException e) {
+            voteBatches.remove(batch.getVotingStation(), batch.getBatchId(), mine);
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            metrics.castBatch.recordSince(started);
+        }
+    }
+
+    private BatchResult applyBatch(VoteBatch batch) throws VotingException {
+        int stripe = voting.enter();
+        if (stripe < 0) {
+            throw votingClosed();
+        }
+        try {
+            return applyOpenBatch(batch);
+        } finally {
+            voting.exit(stripe);
+        }
+    }
+
+    private BatchResult applyOpenBatch(VoteBatch batch) throws VotingException {
+        List<VoteBatch.Ballot> ballots = batch.getBallots();
+        BatchResult.Outcome[] outcomes = new BatchResult.Outcome[ballots.size()];
+        Voter[] claimed = new Voter[ballots.size()];
+        Candidate[] chosen = new Candidate[ballots.size()];
+        for (int i = 0; i < ballots.size(); i++) {
+            VoteBatch.Ballot ballot = ballots.get(i);
+            Voter voter = voters.getById(ballot.getVoterId());
+            Candidate candidate = getCandidate(ballot.getCandidateId());
+            if (voter == null) {
+                outcomes[i] = BatchResult.Outcome.UNKNOWN_VOTER;
+            } else if (voter.getStatus() != Voter.VoterStatus.VERIFIED) {
+                outcomes[i] = BatchResult.Outcome.VOTER_NOT_VERIFIED;
+            } else if (candidate == null) {
+                outcomes[i] = BatchResult.Outcome.UNKNOWN_CANDIDATE;
+            } else if (!claims.claim(voter)) {
+                outcomes[i] = BatchResult.Outcome.ALREADY_VOTED;
+            } else {
+                outcomes[i] = BatchResult.Outcome.ACCEPTED;
+                claimed[i] = voter;
+                chosen[i] = candidate;
+            }
+        }
+
+        LocalDateTime castAt = LocalDateTime.now();
+        try {
+            journal(j -> j.appendVoteBatch(batch, outcomes, castAt));
+        } catch (VotingException e) {
+            for (Voter voter : claimed) {
+                if (voter != null) {
+                    claims.release(voter);
+                }
+            }
+            throw e;
+        }
+
+        long castAtMillis = epochMillis(castAt);
+        int accepted = 0;
+        for (int i = 0; i < ballots.size(); i++) {
+            if (claimed[i] != null) {
+                chosen[i].incrementVote();
+                votes.append(ballots.get(i).getVoterId(), ballots.get(i).getCandidateId(),
+                    batch.getVotingStation(), castAtMillis);
+                accepted++;
+            }
+        }
+        analytics.recordVotes(batch.getVotingStation(), accepted);
+        metrics.votesCast.add(accepted);
+        for (BatchResult.Outcome outcome : outcomes) {
+            if (outcome.getReason() != null) {
+                metrics.votesRejected(outcome.getReason()).increment();
+            }
+        }
+
+        BatchResult result = new BatchResult(batch.getBatchId(), batch.getVotingStation(), outcomes, false);
+        log(result.toString());
+        return result;
+    }
+
+    // Why a vote that found the voting gate shut was refused. closeElection() shuts the gate
+    // before it journals the new status, so while it waits for votes in flight the status still
+    // reads VOTING_OPEN; those late votes are refused as if the election had closed.
+    private VotingException votingClosed() {
+        VotingException rejection = ValidationUtil.checkElectionStatus(status, ElectionStatus.VOTING_OPEN);
+        return rejection != null ? rejection
+            : ValidationUtil.checkElectionStatus(ElectionStatus.CLOSED, ElectionStatus.VOTING_OPEN);
     }
 
+    // Ranked by votes; names map to counts in rank order
+    // Read-only and shared between callers; rebuilt once per results snapshot
     public Map<String, Integer> getResults() throws VotingException {
         ValidationUtil.validateElectionStatus(status, ElectionStatus.CLOSED);
-        return candidates.values().stream()
-            .collect(Collectors.toMap(
-                Candidate::getName,
-                Candidate::getVoteCount
-            ));
+        ResultsSnapshot snapshot = getLiveResults();
+        return view("results", snapshot.getVersion(), () -> Collections.unmodifiableMap(
+            snapshot.getRanked().stream().collect(Collectors.toMap(
+                ResultsSnapshot.CandidateResult::getName,
+                result -> (int) result.getVotes(),
+                (a, b) -> { throw new IllegalStateException("Duplicate candidate name"); },
+                LinkedHashMap::new
+            ))));
+    }
+
+    // Instant-runoff count of the ranked ballots for one seat, single transferable vote for
+    // several; rounds and winners are labelled with candidate names
+    public TabulationResult getRankedResults(int seats) throws VotingException {
+        long started = System.nanoTime();
+        try {
+            return tabulateRanked(seats);
+        } finally {
+            metrics.rankedResults.recordSince(started);
+        }
+    }
+
+    private TabulationResult tabulateRanked(int seats) throws VotingException {
+        ValidationUtil.validateElectionStatus(status, ElectionStatus.CLOSED);
+        if (seats < 1 || seats > candidates.size()) {
+            throw new VotingException("Seats must be between 1 and " + candidates.size());
+        }
+        candidates.keySet().forEach(rankedBallots::register);
+        List<String> names = new ArrayList<>(rankedBallots.candidateCount());
+        for (int ordinal = 0; ordinal < rankedBallots.candidateCount(); ordinal++) {
+            names.add(candidates.get(rankedBallots.candidateId(ordinal)).getName());
+        }
+        if (new HashSet<>(names).size() != names.size()) {
+            throw new IllegalStateException("Duplicate candidate name");
+        }
+        return new RankedChoiceTabulator().tabulate(names, rankedBallots, seats);
     }
 
     public List<Candidate> getTopCandidates(int limit) {
-        return candidates.values().stream()
-            .sorted(Comparator.comparingInt(Candidate::getVoteCount).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+        ResultsSnapshot snapshot = getLiveResults();
+        List<Candidate> ranked = view("ranked", snapshot.getVersion(), () -> snapshot.getRanked().stream()
+            .map(result -> candidates.get(result.getCandidateId()))
+            .collect(Collectors.toUnmodifiableList()));
+        return ranked.subList(0, Math.max(0, Math.min(limit, ranked.size())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T view(String name, long version, Supplier<T> builder) {
+        return (T) views.get(name, version, builder::get);
+    }
+
+    // Cheap to poll: returns the published snapshot unless it is out of date and due for refresh
+    public ResultsSnapshot getLiveResults() {
+        long started = System.nanoTime();
+        try {
+            return results.snapshot(status, voters.size(), votes.size());
+        } finally {
+            metrics.liveResults.recordSince(started);
+        }
+    }
+
+    // Live vote count per voting station from running counters; no scan of the vote store
+    public Map<String, Long> getStationTurnout() {
+        return analytics.liveVotesByStation();
+    }
+
+    // Per-station, per-5-minute and per-station candidate aggregates, computed in parallel
+    public TurnoutReport getTurnoutReport() {
+        return getTurnoutReport(TURNOUT_BUCKET);
     }
 
+    // Read-only and shared between callers; rescanned only once more votes have been recorded
+    public TurnoutReport getTurnoutReport(Duration bucketSize) {
+        long started = System.nanoTime();
+        try {
+            return view("turnout/" + bucketSize.toMillis(), votes.size(), () -> analytics.report(bucketSize));
+        } finally {
+            metrics.turnoutReport.recordSince(started);
+        }
+    }
+
+    // Built from one snapshot, so votes, voters and turnout always agree with each other
     public ElectionStatistics getStatistics() {
-        int totalVoters = voters.size();
-        int totalVotes = votes.size();
-        double turnout = totalVoters == 0 ? 0 : (double) totalVotes / totalVoters * 100;
-        
+        ResultsSnapshot snapshot = getLiveResults();
         return new ElectionStatistics(
-            totalVoters,
-            totalVotes,
-            turnout,
-            candidates.size(),
-            status
+            snapshot.getTotalVoters(),
+            (int) snapshot.getTotalVotes(),
+            snapshot.getTurnoutPercentage(),
+            snapshot.getRanked().size(),
+            snapshot.getStatus()
         );
     }
 
+    public ElectionStatus getStatus() {
+        return status;
+    }
+
+    public String getElectionName() {
+        return electionName;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public LocalDateTime getElectionDate() {
+        return electionDate;
+    }
+
     // Status management methods
     public void openRegistration() throws VotingException {
-        ValidationUtil.validateElectionStatus(status, ElectionStatus.SETUP);
-        status = ElectionStatus.REGISTRATION_OPEN;
-        logger.logAction("Voter registration opened");
+        transition(ElectionStatus.SETUP, ElectionStatus.REGISTRATION_OPEN, "Voter registration opened");
     }
 
     public void openVoting() throws VotingException {
-        ValidationUtil.validateElectionStatus(status, ElectionStatus.REGISTRATION_OPEN);
-        status = ElectionStatus.VOTING_OPEN;
-        logger.logAction("Voting opened");
+        transition(ElectionStatus.REGISTRATION_OPEN, ElectionStatus.VOTING_OPEN, "Voting opened");
     }
 
     public void closeElection() throws VotingException {
-        ValidationUtil.validateElectionStatus(status, ElectionStatus.VOTING_OPEN);
-        status = ElectionStatus.CLOSED;
-        logger.logAction("Election closed");
+        transition(ElectionStatus.VOTING_OPEN, ElectionStatus.CLOSED, "Election closed");
+    }
+
+    // Leaving VOTING_OPEN first shuts the voting gate and waits for votes in flight, so every
+    // vote accepted is recorded before the status record, the ledger flush and the results.
+    private void transition(ElectionStatus from, ElectionStatus to, String message) throws VotingException {
+        long started = System.nanoTime();
+        metrics.monitor.lock();
+        try {
+            ValidationUtil.validateElectionStatus(status, from);
+            if (from == ElectionStatus.VOTING_OPEN) {
+                voting.close();
+            }
+            try {
+                journal(j -> j.appendStatus(to));
+            } catch (VotingException e) {
+                setStatus(status);
+                throw e;
+            }
+            setStatus(to);
+            if (to == ElectionStatus.CLOSED && ledger != null) {
+                ledger.flush();
+            }
+            metrics.transitions.increment();
+            log(message);
+        } finally {
+            metrics.monitor.unlock();
+            metrics.transition.recordSince(started);
+        }
+    }
+
+    // Shuts the voting gate without changing status, waiting for votes in flight; used to stop
+    // every shard of a partitioned election taking votes before any of them closes
+    void suspendVoting() {
+        metrics.monitor.lock();
+        try {
+            voting.close();
+        } finally {
+            metrics.monitor.unlock();
+        }
+    }
+
+    // Reopens the gate after suspendVoting() if the election is still open for voting
+    void resumeVoting() {
+        metrics.monitor.lock();
+        try {
+            setStatus(status);
+        } finally {
+            metrics.monitor.unlock();
+        }
+    }
+
+    // The voting gate is open exactly while the status is VOTING_OPEN
+    private void setStatus(ElectionStatus newStatus) {
+        status = newStatus;
+        if (newStatus == ElectionStatus.VOTING_OPEN) {
+            voting.open();
+        } else {
+            voting.close();
+        }
+    }
+
+    // Writes a point-in-time snapshot of candidates, voters, votes and status. Only fixing the
+    // cut takes the election lock (it must not straddle a status change); the file is written
+    // while voting goes on, and votes cast meanwhile are left out.
+    public SnapshotSummary writeSnapshot(Path file) throws IOException {
+        long started = System.nanoTime();
+        ElectionStatus cutStatus;
+        List<Candidate> cutCandidates;
+        int cutVotes;
+        metrics.monitor.lock();
+        try {
+            cutStatus = status;
+            cutCandidates = new ArrayList<>(candidates.values());
+            cutVotes = votes.publishedUpTo(0);
+        } finally {
+            metrics.monitor.unlock();
+        }
+        try {
+            SnapshotSummary summary = ElectionSnapshot.write(file, electionName, electionDate, cutStatus,
+                cutCandidates, voters.getAll(), votes, cutVotes, rankedBallots);
+            log("Wrote " + summary);
+            return summary;
+        } finally {
+            metrics.snapshot.recordSince(started);
+        }
+    }
+
+    // Starts sealing votes into a hash-chained ledger. It reads from the first vote in the store,
+    // so enabling it late still covers every vote cast so far. With a journal every block is
+    // journaled before it is published, and a recovered service continues from the recovered
+    // blocks, so block hashes published before a restart still hold after it. A snapshot
+    // doesn't carry the ledger: a restored service seals its votes afresh.
+    public VoteLedger enableLedger() {
+        metrics.monitor.lock();
+        try {
+            if (ledger == null) {
+                ledger = new VoteLedger(votes, workers, recoveredBlocks, journal == null ? null
+                    : (block, voterIds) -> journal.awaitDurable(journal.appendLedgerBlock(block, voterIds)));
+                recoveredBlocks = List.of();
+            }
+            return ledger;
+        } finally {
+            metrics.monitor.unlock();
+        }
+    }
+
+    public VoteLedger getLedger() {
+        return ledger;
+    }
+
+    // Audit path: finds the voter's vote with a scan of the store, then proves it from its block
+    public InclusionProof proveVote(String voterId) throws VotingException {
+        VoteLedger current = ledger;
+        if (current == null) {
+            throw new VotingException("Vote ledger is not enabled");
+        }
+        int[] found = {-1};
+        votes.forEach((index, votedBy, candidate, station, epochMillis) -> {
+            if (found[0] < 0 && votedBy.equals(voterId)) {
+                found[0] = index;
+            }
+        });
+        if (found[0] < 0) {
+            throw new VotingException("No vote recorded for this voter");
+        }
+        if (found[0] >= current.getSealedVotes()) {
+            throw new VotingException("Vote is not sealed into the ledger yet");
+        }
+        return current.prove(found[0]);
+    }
+
+    private void log(String message) {
+        logger.logAction(logPrefix == null ? message : logPrefix + message);
+    }
+
+    private static long epochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private interface JournalWrite {
+        long append(VoteJournal journal) throws IOException;
+    }
+
+    // Appends to the journal (if any) and waits until the records are durable
+    private void journal(JournalWrite write) throws VotingException {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.awaitDurable(write.append(journal));
+        } catch (IOException e) {
+            throw new VotingException("Could not record to journal: " + e.getMessage());
+        }
+    }
+
+    // Replay appends votes in journal order, which can differ from the order they reached the
+    // store and were sealed in. Moves each journaled block's votes back to the indexes it sealed
+    // them at, the unsealed rest after them in journal order, and keeps the headers for
+    // enableLedger(). Stops at the first block that doesn't chain or names a vote not replayed.
+    private void restoreSealOrder(List<VoteLedger.Block> blocks, List<String[]> sealedVoterIds) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        int size = votes.capacityUsed();
+        Map<String, Integer> indexOf = new HashMap<>(size * 4 / 3 + 1);
+        votes.forEach((index, voterId, candidate, station, epochMillis) -> indexOf.put(voterId, index));
+        int[] order = new int[size];
+        boolean[] placed = new boolean[size];
+        int sealed = 0;
+        int kept = 0;
+        byte[] previous = new byte[32];
+        for (; kept < blocks.size(); kept++) {
+            VoteLedger.Block block = blocks.get(kept);
+            String[] voterIds = sealedVoterIds.get(kept);
+            if (block.getNumber() != kept || block.getFirstIndex() != sealed
+                    || !Arrays.equals(block.getPreviousHash(), previous)
+                    || !placeBlock(voterIds, indexOf, order, placed, sealed)) {
+                break;
+            }
+            sealed += voterIds.length;
+            previous = block.getHash();
+        }
+        int next = sealed;
+        for (int index = 0; index < size; index++) {
+            if (!placed[index]) {
+                order[next++] = index;
+            }
+        }
+        votes.reorder(order);
+        recoveredBlocks = new ArrayList<>(blocks.subList(0, kept));
+        if (kept < blocks.size()) {
+            log(String.format("Recovered %d of %d ledger blocks; the rest will be sealed again",
+                kept, blocks.size()));
+        }
+    }
+
+    private static boolean placeBlock(String[] voterIds, Map<String, Integer> indexOf, int[] order,
+                                      boolean[] placed, int firstIndex) {
+        int[] indexes = new int[voterIds.length];
+        for (int i = 0; i < voterIds.length; i++) {
+            Integer index = indexOf.get(voterIds[i]);
+            if (index == null || placed[index]) {
+                for (int j = 0; j < i; j++) {
+                    placed[indexes[j]] = false;
+                }
+                return false;
+            }
+            indexes[i] = index;
+            placed[index] = true;
+        }
+        System.arraycopy(indexes, 0, order, firstIndex, indexes.length);
+        return true;
+    }
+
+    // Applies replayed journal records directly, bypassing validation and logging
+    private class Replay implements JournalListener {
+        private final List<VoteLedger.Block> blocks = new ArrayList<>();
+        private final List<String[]> sealedVoterIds = new ArrayList<>();
+        private long highestId = -1;
+
+        private void saw(String id) {
+            highestId = Math.max(highestId, Ids.parse(id));
+        }
+
+        @Override
+        public void onStatus(ElectionStatus replayedStatus) {
+            setStatus(replayedStatus);
+        }
+
+        @Override
+        public void onCandidate(Candidate candidate) {
+            saw(candidate.getId());
+            candidates.put(candidate.getId(), candidate);
+            results.addCandidate(candidate);
+        }
+
+        @Override
+        public void onVoter(Voter voter) {
+            saw(voter.getId());
+            voters.tryRegister(voter);
+        }
+
+        @Override
+        public void onVote(Vote vote) {
+            saw(vote.getId());
+            Voter voter = voters.getById(vote.getVoterId());
+            Candidate candidate = getCandidate(vote.getCandidateId());
+            if (voter != null && candidate != null && claims.claim(voter)) {
+                candidate.incrementVote();
+                votes.append(vote.getVoterId(), vote.getCandidateId(), vote.getVotingStation(),
+                    epochMillis(vote.getTimestamp()));
+                analytics.recordVote(vote.getVotingStation());
+            }
+        }
+
+        @Override
+        public void onRankedBallot(RankedBallot ballot) {
+            saw(ballot.getId());
+            Voter voter = voters.getById(ballot.getVoterId());
+            Candidate firstChoice = getCandidate(ballot.getFirstChoice());
+            if (voter != null && firstChoice != null && claims.claim(voter)) {
+                firstChoice.incrementVote();
+                rankedBallots.append(ballot.getVoterId(), ballot.getPreferences());
+                votes.append(ballot.getVoterId(), firstChoice.getId(), ballot.getVotingStation(),
+                    epochMillis(ballot.getTimestamp()));
+                analytics.recordVote(ballot.getVotingStation());
+            }
+        }
+
+        @Override
+        public void onLedgerBlock(VoteLedger.Block block, String[] voterIds) {
+            blocks.add(block);
+            sealedVoterIds.add(voterIds);
+        }
+
+        @Override
+        public void onVoteBatch(VoteBatch batch, BatchResult.Outcome[] outcomes, LocalDateTime castAt) {
+            long castAtMillis = epochMillis(castAt);
+            int accepted = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                VoteBatch.Ballot ballot = batch.getBallots().get(i);
+                Voter voter = voters.getById(ballot.getVoterId());
+                Candidate candidate = getCandidate(ballot.getCandidateId());
+                if (outcomes[i] == BatchResult.Outcome.ACCEPTED && voter != null && candidate != null
+                        && claims.claim(voter)) {
+                    candidate.incrementVote();
+                    votes.append(ballot.getVoterId(), ballot.getCandidateId(), batch.getVotingStation(), castAtMillis);
+                    accepted++;
+                }
+            }
+            analytics.recordVotes(batch.getVotingStation(), accepted);
+            voteBatches.put(batch.getVotingStation(), batch.getBatchId(),
+                new BatchResult(batch.getBatchId(), batch.getVotingStation(), outcomes, false));
+        }
     }
 
     // Inner class for election statistics
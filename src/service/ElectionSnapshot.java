@@ -0,0 +1,618 @@
+package service;
+
+import model.Candidate;
+import model.Voter;
+import util.Ids;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+// Point-in-time binary snapshot of an election, for fast restarts and results files.
+//
+// The cut is a prefix of the vote store: the caller fixes the status, the candidates and the
+// number of leading published votes under the election monitor, and everything written is
+// derived from that prefix. Candidate counts and has-voted flags come from the prefix votes,
+// not from the live counters, so a vote cast while the snapshot is written is either fully in
+// it or not at all, and castVote never waits for the writer.
+//
+// File layout (big-endian, strings as in the journal: int length + UTF-8, -1 for null):
+//   header      "VSNP", version, taken at, status, election name and date, section sizes
+//   candidates  id, name, party, manifesto, image URL, background, votes
+//   stations    name per station ordinal used by the votes
+//   voters      id, name, email, national ID, credential, registration date, status, voted;
+//               in blocks of VOTER_BLOCK voters so they can be decoded in parallel
+//   votes       fixed 20-byte rows: voter, candidate and station index, epoch millis
+//   ranked      voter index, preference count, candidate indexes
+//   block table byte offset of each voter block, then the end of the voter section
+//   footer      offset of the block table, CRC32C of everything before it
+// The file is written next to its destination and moved into place, so a crash never leaves
+// a partial snapshot under the real name.
+final class ElectionSnapshot implements AutoCloseable {
+    private static final int MAGIC = 0x56534E50; // "VSNP"
+    private static final int VERSION = 1;
+    private static final int VOTER_BLOCK = 1 << 16;
+    private static final int VOTE_BYTES = 4 + 4 + 4 + 8;
+    private static final int FOOTER_BYTES = 8 + 4;
+    private static final long MAP_WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final String electionName;
+    private final LocalDateTime electionDate;
+    private final LocalDateTime takenAt;
+    private final ElectionService.ElectionStatus status;
+    private final Candidate[] candidates;
+    private final long[] candidateVotes;
+    private final String[] stations;
+    private final int voterCount;
+    private final int voteCount;
+    private final int rankedCount;
+    private final long[] blockOffsets;
+    private final long tableOffset;
+
+    static SnapshotSummary write(Path file, String electionName, LocalDateTime electionDate,
+                                 ElectionService.ElectionStatus status, List<Candidate> candidates,
+                                 Collection<Voter> voters, VoteStore votes, int voteCount,
+                                 RankedBallotStore rankedBallots) throws IOException {
+        LocalDateTime takenAt = LocalDateTime.now();
+        Voter[] roll = voters.toArray(new Voter[0]);
+        VoterPositions positions = new VoterPositions(roll);
+
+        Map<String, Integer> candidateIndex = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            candidateIndex.put(candidates.get(i).getId(), i);
+        }
+        int[] storeCandidates = new int[votes.candidateCount()];
+        for (int ordinal = 0; ordinal < storeCandidates.length; ordinal++) {
+            storeCandidates[ordinal] = index(candidateIndex, votes.candidateId(ordinal));
+        }
+
+        // One pass over the prefix for the counts and flags the header and voter section need
+        int[] voteVoters = new int[voteCount];
+        long[] candidateVotes = new long[candidates.size()];
+        long[] voted = new long[(roll.length + 63) >>> 6];
+        votes.forEach(0, voteCount, (index, voterId, candidate, station, epochMillis) -> {
+            int voter = positions.get(voterId);
+            if (voter < 0) {
+                throw new IllegalStateException("Vote by unregistered voter " + voterId);
+            }
+            voteVoters[index] = voter;
+            voted[voter >>> 6] |= 1L << voter;
+            candidateVotes[storeCandidates[candidate]]++;
+        });
+        int stationCount = votes.stationCount();
+
+        // Ranked ballots are stored before their vote, so every ballot of a prefix vote is
+        // present; ballots of voters whose vote missed the cut are left out
+        int[] ranked = new int[Math.min(voteCount, rankedBallots.size())];
+        int rankedCount = 0;
+        for (int i = 0, end = rankedBallots.size(); i < end && rankedCount < ranked.length; i++) {
+            if (rankedBallots.ballot(i) != null) {
+                int voter = positions.get(rankedBallots.voterId(i));
+                if (voter >= 0 && (voted[voter >>> 6] & (1L << voter)) != 0) {
+                    ranked[rankedCount++] = i;
+                }
+            }
+        }
+        int[] rankedCandidates = new int[rankedBallots.candidateCount()];
+        for (int ordinal = 0; ordinal < rankedCandidates.length; ordinal++) {
+            rankedCandidates[ordinal] = index(candidateIndex, rankedBallots.candidateId(ordinal));
+        }
+
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            long bytes;
+            try (Output out = new Output(FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING))) {
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putTimestamp(takenAt);
+                out.put((byte) status.ordinal());
+                out.putString(electionName);
+                out.putTimestamp(electionDate);
+                out.putInt(candidates.size());
+                out.putInt(stationCount);
+                out.putInt(roll.length);
+                out.putInt(voteCount);
+                out.putInt(rankedCount);
+
+                for (int i = 0; i < candidates.size(); i++) {
+                    Candidate candidate = candidates.get(i);
+                    out.putString(candidate.getId());
+                    out.putString(candidate.getName());
+                    out.putString(candidate.getParty());
+                    out.putString(candidate.getManifesto());
+                    out.putString(candidate.getImageUrl());
+                    out.putString(candidate.getBackground());
+                    out.putLong(candidateVotes[i]);
+                }
+                for (int ordinal = 0; ordinal < stationCount; ordinal++) {
+                    out.putString(votes.station(ordinal));
+                }
+
+                long[] blockOffsets = new long[(roll.length + VOTER_BLOCK - 1) / VOTER_BLOCK + 1];
+                for (int i = 0; i < roll.length; i++) {
+                    if (i % VOTER_BLOCK == 0) {
+                        blockOffsets[i / VOTER_BLOCK] = out.position();
+                    }
+                    Voter voter = roll[i];
+                    out.putString(voter.getId());
+                    out.putString(voter.getName());
+                    out.putString(voter.getEmail());
+                    out.putString(voter.getNationalId());
+                    out.putString(voter.getCredential());
+                    out.putTimestamp(voter.getRegistrationDate());
+                    out.put((byte) voter.getStatus().ordinal());
+                    out.put((byte) ((voted[i >>> 6] & (1L << i)) != 0 ? 1 : 0));
+                }
+                blockOffsets[blockOffsets.length - 1] = out.position();
+
+                IOException[] failure = new IOException[1];
+                votes.forEach(0, voteCount, (index, voterId, candidate, station, epochMillis) -> {
+                    if (failure[0] != null) {
+                        return;
+                    }
+                    try {
+                        out.ensure(VOTE_BYTES);
+                        out.putInt(voteVoters[index]);
+                        out.putInt(storeCandidates[candidate]);
+                        out.putInt(station);
+                        out.putLong(epochMillis);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+
+                for (int r = 0; r < rankedCount; r++) {
+                    int[] ballot = rankedBallots.ballot(ranked[r]);
+                    out.putInt(positions.get(rankedBallots.voterId(ranked[r])));
+                    out.putInt(ballot.length);
+                    for (int ordinal : ballot) {
+                        out.putInt(rankedCandidates[ordinal]);
+                    }
+                }
+
+                long tableOffset = out.position();
+                for (long offset : blockOffsets) {
+                    out.putLong(offset);
+                }
+                out.putLong(tableOffset);
+                bytes = out.finish();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<ResultsSnapshot.CandidateResult> results = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                results.add(new ResultsSnapshot.CandidateResult(candidate.getId(), candidate.getName(),
+                    candidate.getParty(), candidateVotes[i]));
+            }
+            return new SnapshotSummary(electionName, takenAt, status, roll.length, voteCount, rankedCount,
+                bytes, results);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int index(Map<String, Integer> candidateIndex, String candidateId) {
+        Integer index = candidateIndex.get(candidateId);
+        if (index == null) {
+            throw new IllegalStateException("Vote for unknown candidate " + candidateId);
+        }
+        return index;
+    }
+
+    // Maps the file and checks its checksum, then reads everything up to the voter section
+    static ElectionSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ElectionSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ElectionSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        if (size < 8 + FOOTER_BYTES) {
+            throw new IOException("Not an election snapshot");
+        }
+        verifyChecksum();
+
+        Input in = new Input(channel, 0, size - FOOTER_BYTES);
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not an election snapshot or unsupported version");
+        }
+        takenAt = in.getTimestamp();
+        status = ElectionService.ElectionStatus.values()[in.get()];
+        electionName = in.getString();
+        electionDate = in.getTimestamp();
+        candidates = new Candidate[in.getInt()];
+        stations = new String[in.getInt()];
+        voterCount = in.getInt();
+        voteCount = in.getInt();
+        rankedCount = in.getInt();
+
+        candidateVotes = new long[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = new Candidate(in.getString(), in.getString(), in.getString(), in.getString(),
+                in.getString(), in.getString());
+            candidateVotes[i] = in.getLong();
+        }
+        for (int i = 0; i < stations.length; i++) {
+            stations[i] = in.getString();
+        }
+
+        Input footer = new Input(channel, size - FOOTER_BYTES, size);
+        tableOffset = footer.getLong();
+        blockOffsets = new long[(voterCount + VOTER_BLOCK - 1) / VOTER_BLOCK + 1];
+        Input table = new Input(channel, tableOffset, size - FOOTER_BYTES);
+        for (int i = 0; i < blockOffsets.length; i++) {
+            blockOffsets[i] = table.getLong();
+        }
+        if (blockOffsets[0] != in.position()) {
+            throw new IOException("Snapshot sections are inconsistent");
+        }
+    }
+
+    private void verifyChecksum() throws IOException {
+        CRC32C crc = new CRC32C();
+        long end = size - 4;
+        for (long position = 0; position < end; position += MAP_WINDOW) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, end - position)));
+        }
+        ByteBuffer stored = channel.map(FileChannel.MapMode.READ_ONLY, end, 4);
+        if ((int) crc.getValue() != stored.getInt()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+    }
+
+    String getElectionName() { return electionName; }
+    LocalDateTime getElectionDate() { return electionDate; }
+    ElectionService.ElectionStatus getStatus() { return status; }
+    int getVoterCount() { return voterCount; }
+
+    // Candidates restore with zero votes; restore() counts them back up from the votes
+    List<Candidate> getCandidates() { return Arrays.asList(candidates); }
+
+    SnapshotSummary summary() {
+        List<ResultsSnapshot.CandidateResult> results = new ArrayList<>(candidates.length);
+        for (int i = 0; i < candidates.length; i++) {
+            results.add(new ResultsSnapshot.CandidateResult(candidates[i].getId(), candidates[i].getName(),
+                candidates[i].getParty(), candidateVotes[i]));
+        }
+        return new SnapshotSummary(electionName, takenAt, status, voterCount, voteCount, rankedCount, size, results);
+    }
+
+    // Loads voters (decoded in parallel, one mapping per block), then votes and ranked ballots
+    // in their original order. The votes are checked against the stored counts and flags.
+    void restore(VoterRegistry voters, VoteStore votes, RankedBallotStore rankedBallots,
+                 TurnoutAnalytics analytics) throws IOException {
+        Voter[] roll = new Voter[voterCount];
+        int[] flagged = new int[blockOffsets.length - 1];
+        try {
+            IntStream.range(0, blockOffsets.length - 1).parallel().forEach(block -> {
+                try {
+                    flagged[block] = restoreVoters(block, roll, voters);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (IntStream.of(flagged).asLongStream().sum() != voteCount) {
+            throw new IOException("Snapshot has-voted flags don't match its votes");
+        }
+
+        long votesStart = blockOffsets[blockOffsets.length - 1];
+        long rankedStart = votesStart + (long) voteCount * VOTE_BYTES;
+        int[] stationVotes = new int[stations.length];
+        Input in = new Input(channel, votesStart, rankedStart);
+        for (int i = 0; i < voteCount; i++) {
+            Voter voter = roll[checkIndex(in.getInt(), voterCount)];
+            Candidate candidate = candidates[checkIndex(in.getInt(), candidates.length)];
+            int station = checkIndex(in.getInt(), stations.length);
+            if (!voter.hasVoted()) {
+                throw new IOException("Snapshot vote by a voter not flagged as voted");
+            }
+            candidate.incrementVote();
+            votes.append(voter.getId(), candidate.getId(), stations[station], in.getLong());
+            stationVotes[station]++;
+        }
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i].getVoteCount() != candidateVotes[i]) {
+                throw new IOException("Snapshot count for " + candidates[i].getName() + " doesn't match its votes");
+            }
+        }
+        for (int station = 0; station < stations.length; station++) {
+            if (stationVotes[station] > 0) {
+                analytics.recordVotes(stations[station], stationVotes[station]);
+            }
+        }
+
+        in = new Input(channel, rankedStart, tableOffset);
+        for (int i = 0; i < rankedCount; i++) {
+            Voter voter = roll[checkIndex(in.getInt(), voterCount)];
+            int length = checkIndex(in.getInt(), candidates.length + 1);
+            List<String> preferences = new ArrayList<>(length);
+            for (int p = 0; p < length; p++) {
+                preferences.add(candidates[checkIndex(in.getInt(), candidates.length)].getId());
+            }
+            rankedBallots.append(voter.getId(), preferences);
+        }
+    }
+
+    private int restoreVoters(int block, Voter[] roll, VoterRegistry voters) throws IOException {
+        Input in = new Input(channel, blockOffsets[block], blockOffsets[block + 1]);
+        int first = block * VOTER_BLOCK;
+        int end = Math.min(voterCount, first + VOTER_BLOCK);
+        int flagged = 0;
+        for (int i = first; i < end; i++) {
+            Voter voter = new Voter(in.getString(), in.getString(), in.getString(), in.getString(),
+                in.getString(), in.getTimestamp(), Voter.VoterStatus.values()[in.get()]);
+            if (in.get() != 0) {
+                voter.markVoted();
+                flagged++;
+            }
+            String rejection = voters.tryRegister(voter);
+            if (rejection != null) {
+                throw new IOException("Snapshot voter " + voter.getId() + ": " + rejection);
+            }
+            roll[i] = voter;
+        }
+        return flagged;
+    }
+
+    private static int checkIndex(int index, int bound) throws IOException {
+        if (index < 0 || index >= bound) {
+            throw new IOException("Snapshot index out of range: " + index);
+        }
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Voter ID -> position in the voter section. IDs from util.Ids go in an open-addressing
+    // table of longs; anything else (legacy UUIDs) in a HashMap.
+    private static final class VoterPositions {
+        private final long[] keys;
+        private final int[] positions;
+        private final int shift;
+        private final Map<String, Integer> legacy = new HashMap<>();
+
+        VoterPositions(Voter[] roll) {
+            int capacity = Integer.highestOneBit(Math.max(1, roll.length + roll.length / 2)) << 1;
+            keys = new long[capacity];
+            positions = new int[capacity];
+            shift = 64 - Integer.numberOfTrailingZeros(capacity);
+            Arrays.fill(keys, -1);
+            for (int i = 0; i < roll.length; i++) {
+                long id = roll[i].getNumericId();
+                if (id < 0) {
+                    legacy.put(roll[i].getId(), i);
+                    continue;
+                }
+                int slot = slot(id);
+                while (keys[slot] != -1) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = id;
+                positions[slot] = i;
+            }
+        }
+
+        int get(String voterId) {
+            long id = Ids.parse(voterId);
+            if (id < 0) {
+                return legacy.getOrDefault(voterId, -1);
+            }
+            for (int slot = slot(id); keys[slot] != -1; slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == id) {
+                    return positions[slot];
+                }
+            }
+            return -1;
+        }
+
+        private int slot(long id) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+    }
+
+    // Buffered writer that checksums everything it writes
+    private static final class Output implements AutoCloseable {
+        private static final int MAX_INLINE = 4096;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private final CRC32C crc = new CRC32C();
+        private long written;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return written + buffer.position();
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putTimestamp(LocalDateTime timestamp) throws IOException {
+            putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            putInt(timestamp.getNano());
+        }
+
+        // Registry strings are almost always ASCII, which is copied straight into the buffer
+        // instead of going through a temporary byte[] per string
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            int length = value.length();
+            if (length <= MAX_INLINE) {
+                ensure(4 + length);
+                byte[] array = buffer.array();
+                int start = buffer.position() + 4;
+                int i = 0;
+                for (char c; i < length && (c = value.charAt(i)) < 0x80; i++) {
+                    array[start + i] = (byte) c;
+                }
+                if (i == length) {
+                    buffer.putInt(length).position(start + length);
+                    return;
+                }
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        // Appends the checksum and forces the file to disk; returns the file size
+        long finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            channel.force(true);
+            return written;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Reads [position, end) of the file through read-only mappings of up to MAP_WINDOW bytes
+    private static final class Input {
+        private final FileChannel channel;
+        private final long end;
+        private long windowStart;
+        private MappedByteBuffer window;
+        private byte[] scratch = new byte[256];
+
+        Input(FileChannel channel, long position, long end) throws IOException {
+            if (position < 0 || position > end) {
+                throw new IOException("Snapshot section out of range");
+            }
+            this.channel = channel;
+            this.end = end;
+            map(position);
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        byte get() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return window.getLong();
+        }
+
+        LocalDateTime getTimestamp() throws IOException {
+            long seconds = getLong();
+            return LocalDateTime.ofEpochSecond(seconds, getInt(), ZoneOffset.UTC);
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            ensure(length);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            window.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = position();
+                if (end - position < bytes) {
+                    throw new IOException("Snapshot is truncated");
+                }
+                map(position);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, end - position));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a bulk import. Every rejected row is counted, but only the first
+// MAX_RECORDED_REJECTS are kept with their reason so a bad file can't exhaust the heap.
+public class ImportReport {
+    public static final int MAX_RECORDED_REJECTS = 10_000;
+
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private long elapsedMillis;
+    private final List<Reject> rejects = new ArrayList<>();
+
+    void addRowsRead(long rows) { rowsRead += rows; }
+    void addImported(long rows) { imported += rows; }
+    void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    void reject(long rowNumber, String reason) {
+        rejected++;
+        if (rejects.size() < MAX_RECORDED_REJECTS) {
+            rejects.add(new Reject(rowNumber, reason));
+        }
+    }
+
+    // Getters
+    public long getRowsRead() { return rowsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public List<Reject> getRejects() { return Collections.unmodifiableList(rejects); }
+
+    @Override
+    public String toString() {
+        return String.format("Import: %d rows read, %d imported, %d rejected in %d ms",
+            rowsRead, imported, rejected, elapsedMillis);
+    }
+
+    public static class Reject {
+        private final long rowNumber;
+        private final String reason;
+
+        public Reject(long rowNumber, String reason) {
+            this.rowNumber = rowNumber;
+            this.reason = reason;
+        }
+
+        // Getters
+        public long getRowNumber() { return rowNumber; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return String.format("Row %d: %s", rowNumber, reason);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Evidence that one vote is sealed in a ledger block: the vote itself, the sibling hashes on
+// the path from its leaf to the block's Merkle root, and the block header. verify() needs
+// nothing but the proof; comparing getBlockHash() with a block hash published by the ledger
+// (or its head hash, via the chain) ties the vote to that published state.
+public class InclusionProof {
+    private final int voteIndex;
+    private final String voterId;
+    private final String candidateId;
+    private final String votingStation;
+    private final long castAtMillis;
+    private final long blockNumber;
+    private final int blockFirstIndex;
+    private final int blockCount;
+    private final byte[] previousHash;
+    private final byte[] merkleRoot;
+    private final byte[] blockHash;
+    private final List<byte[]> siblings;
+    private final List<Boolean> siblingOnLeft;
+
+    InclusionProof(int voteIndex, String voterId, String candidateId, String votingStation, long castAtMillis,
+                   long blockNumber, int blockFirstIndex, int blockCount, byte[] previousHash, byte[] merkleRoot,
+                   byte[] blockHash, List<byte[]> siblings, List<Boolean> siblingOnLeft) {
+        this.voteIndex = voteIndex;
+        this.voterId = voterId;
+        this.candidateId = candidateId;
+        this.votingStation = votingStation;
+        this.castAtMillis = castAtMillis;
+        this.blockNumber = blockNumber;
+        this.blockFirstIndex = blockFirstIndex;
+        this.blockCount = blockCount;
+        this.previousHash = previousHash.clone();
+        this.merkleRoot = merkleRoot.clone();
+        this.blockHash = blockHash.clone();
+        this.siblings = Collections.unmodifiableList(new ArrayList<>(siblings));
+        this.siblingOnLeft = Collections.unmodifiableList(new ArrayList<>(siblingOnLeft));
+    }
+
+    // Recomputes the leaf from the vote, folds in the siblings and checks the root and header
+    public boolean verify() {
+        byte[] hash = VoteLedger.leafHash(voteIndex, voterId, candidateId, votingStation, castAtMillis);
+        for (int i = 0; i < siblings.size(); i++) {
+            hash = siblingOnLeft.get(i) ? VoteLedger.nodeHash(siblings.get(i), hash)
+                : VoteLedger.nodeHash(hash, siblings.get(i));
+        }
+        return Arrays.equals(hash, merkleRoot)
+            && voteIndex >= blockFirstIndex && voteIndex < blockFirstIndex + blockCount
+            && Arrays.equals(blockHash, VoteLedger.headerHash(blockNumber, blockFirstIndex, blockCount,
+                previousHash, merkleRoot));
+    }
+
+    // Getters
+    public int getVoteIndex() { return voteIndex; }
+    public String getVoterId() { return voterId; }
+    public String getCandidateId() { return candidateId; }
+    public String getVotingStation() { return votingStation; }
+    public long getCastAtMillis() { return castAtMillis; }
+    public long getBlockNumber() { return blockNumber; }
+    public byte[] getMerkleRoot() { return merkleRoot.clone(); }
+    public byte[] getBlockHash() { return blockHash.clone(); }
+    public int getPathLength() { return siblings.size(); }
+
+    @Override
+    public String toString() {
+        return String.format("Vote %d in block %d (%d sibling hashes), root %s, block %s", voteIndex, blockNumber,
+            siblings.size(), VoteLedger.hex(merkleRoot), VoteLedger.hex(blockHash));
+    }
+}
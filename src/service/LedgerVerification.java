@@ -0,0 +1,34 @@
+package service;
+
+// Result of rehashing the whole ledger against the vote store
+public class LedgerVerification {
+    private final int blocks;
+    private final long votes;
+    private final int firstInvalidBlock;
+    private final long elapsedNanos;
+
+    LedgerVerification(int blocks, long votes, int firstInvalidBlock, long elapsedNanos) {
+        this.blocks = blocks;
+        this.votes = votes;
+        this.firstInvalidBlock = firstInvalidBlock;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Getters
+    public int getBlocks() { return blocks; }
+    public long getVotes() { return votes; }
+    // -1 if every block matched
+    public int getFirstInvalidBlock() { return firstInvalidBlock; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public boolean isValid() {
+        return firstInvalidBlock < 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d votes in %d blocks checked in %d ms%s", isValid() ? "Valid" : "INVALID",
+            votes, blocks, elapsedNanos / 1_000_000,
+            isValid() ? "" : ", first mismatch in block " + firstInvalidBlock);
+    }
+}
@@ -0,0 +1,78 @@
+package service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Election tallies as a state-based CRDT: every count is a grow-only counter with one slot per
+// shard, where only the owning shard ever raises its slot. Merging takes the per-slot maximum,
+// which is commutative, associative and idempotent, so shard states can be merged in any order,
+// more than once, or from stale copies, and still converge on the same totals.
+public final class MergeableTally {
+    private final int shardCount;
+    private final long[] voters;
+    private final long[] votes;
+    private final Map<String, long[]> candidateVotes;
+
+    private MergeableTally(int shardCount, long[] voters, long[] votes, Map<String, long[]> candidateVotes) {
+        this.shardCount = shardCount;
+        this.voters = voters;
+        this.votes = votes;
+        this.candidateVotes = candidateVotes;
+    }
+
+    public static MergeableTally empty(int shardCount) {
+        return new MergeableTally(shardCount, new long[shardCount], new long[shardCount], Collections.emptyMap());
+    }
+
+    // One shard's contribution, taken from its published results snapshot
+    public static MergeableTally ofShard(int shard, int shardCount, ResultsSnapshot snapshot) {
+        long[] voters = new long[shardCount];
+        long[] votes = new long[shardCount];
+        voters[shard] = snapshot.getTotalVoters();
+        votes[shard] = snapshot.getTotalVotes();
+        Map<String, long[]> candidateVotes = new HashMap<>();
+        for (ResultsSnapshot.CandidateResult result : snapshot.getRanked()) {
+            long[] slots = new long[shardCount];
+            slots[shard] = result.getVotes();
+            candidateVotes.put(result.getCandidateId(), slots);
+        }
+        return new MergeableTally(shardCount, voters, votes, candidateVotes);
+    }
+
+    public MergeableTally merge(MergeableTally other) {
+        if (other.shardCount != shardCount) {
+            throw new IllegalArgumentException("Cannot merge tallies of " + shardCount + " and "
+                + other.shardCount + " shards");
+        }
+        Map<String, long[]> merged = new HashMap<>(candidateVotes);
+        other.candidateVotes.forEach((candidateId, slots) -> merged.merge(candidateId, slots, MergeableTally::max));
+        return new MergeableTally(shardCount, max(voters, other.voters), max(votes, other.votes), merged);
+    }
+
+    public long getTotalVoters() { return sum(voters); }
+    public long getTotalVotes() { return sum(votes); }
+    public Set<String> getCandidateIds() { return Collections.unmodifiableSet(candidateVotes.keySet()); }
+
+    public long getVotes(String candidateId) {
+        long[] slots = candidateVotes.get(candidateId);
+        return slots == null ? 0 : sum(slots);
+    }
+
+    private static long[] max(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            result[i] = Math.max(a[i], b[i]);
+        }
+        return result;
+    }
+
+    private static long sum(long[] slots) {
+        long total = 0;
+        for (long value : slots) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,272 @@
+package service;
+
+import model.*;
+import exception.VotingException;
+import util.ElectionLogger;
+import util.ValidationUtil;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Coordinator for an election split across several ElectionService shards.
+//
+// Voters are hash-partitioned by voter ID, so each shard owns the has-voted state of its own
+// voters and a vote, or any lookup by voter ID, only ever touches the owning shard. Candidates
+// are replicated to every shard. Results and statistics come from merging each shard's
+// MergeableTally, and status transitions are applied to every shard under one lock.
+//
+// Email and national ID must be unique across shards. A registration takes the coordinator's
+// locks for its email and national ID, checks every shard and registers while holding them, so
+// two registrations sharing either key are serialised and the second is refused; registrations
+// with different keys take different locks and proceed in parallel. Lookups by email or
+// national ID ask each shard, one hash probe per shard in-process.
+public class PartitionedElectionService {
+    private static final int REGISTRATION_LOCKS = 256;
+
+    private final List<ElectionService> shards;
+    private final Object[] registrationLocks = new Object[REGISTRATION_LOCKS];
+    private final Map<String, Candidate> candidates = new ConcurrentHashMap<>();
+    private final AtomicReference<MergeableTally> tally;
+
+    public PartitionedElectionService(String electionName, LocalDateTime electionDate, int shardCount,
+                                      ElectionLogger logger) {
+        this(createShards(electionName, electionDate, shardCount, logger));
+    }
+
+    // Shards must be new or recovered from their own journals, all in the same status
+    public PartitionedElectionService(List<ElectionService> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.tally = new AtomicReference<>(MergeableTally.empty(shards.size()));
+        for (int i = 0; i < REGISTRATION_LOCKS; i++) {
+            registrationLocks[i] = new Object();
+        }
+        for (Candidate candidate : shards.get(0).getCandidates()) {
+            candidates.put(candidate.getId(), candidate);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public int shardFor(String voterId) {
+        return Math.floorMod(spread(voterId == null ? 0 : voterId.hashCode()), shards.size());
+    }
+
+    // Spreads the bits so keys with common prefixes, like time-ordered IDs, still split evenly
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    // Each shard gets its own copy with the same ID, since vote counts live on the candidate
+    public synchronized void addCandidate(Candidate candidate) throws VotingException {
+        ValidationUtil.validateElectionStatus(getStatus(), ElectionService.ElectionStatus.SETUP);
+        for (ElectionService shard : shards) {
+            shard.addCandidate(new Candidate(candidate.getId(), candidate.getName(), candidate.getParty(),
+                candidate.getManifesto(), candidate.getImageUrl(), candidate.getBackground()));
+        }
+        candidates.put(candidate.getId(), candidate);
+    }
+
+    public void registerVoter(Voter voter) throws VotingException {
+        ValidationUtil.validateRegistration(voter);
+        int emailLock = lockFor(VoterRegistry.normalizeEmail(voter.getEmail()));
+        int nationalIdLock = lockFor(VoterRegistry.normalizeNationalId(voter.getNationalId()));
+        // Always in index order, so two registrations can't each hold the lock the other needs
+        synchronized (registrationLocks[Math.min(emailLock, nationalIdLock)]) {
+            synchronized (registrationLocks[Math.max(emailLock, nationalIdLock)]) {
+                if (findVoterByNationalId(voter.getNationalId()) != null) {
+                    throw new VotingException("Voter already registered");
+                }
+                if (findVoterByEmail(voter.getEmail()) != null) {
+                    throw new VotingException("Email already registered");
+                }
+                shards.get(shardFor(voter.getId())).registerVoter(voter);
+            }
+        }
+    }
+
+    public Voter findVoterByNationalId(String nationalId) {
+        for (ElectionService shard : shards) {
+            Voter voter = shard.findVoterByNationalId(nationalId);
+            if (voter != null) {
+                return voter;
+            }
+        }
+        return null;
+    }
+
+    public Voter findVoterByEmail(String email) {
+        for (ElectionService shard : shards) {
+            Voter voter = shard.findVoterByEmail(email);
+            if (voter != null) {
+                return voter;
+            }
+        }
+        return null;
+    }
+
+    public Voter getVoter(String voterId) {
+        ElectionService owner = ownerOf(voterId);
+        return owner == null ? null : owner.getVoter(voterId);
+    }
+
+    public void castVote(String voterId, String candidateId, String votingStation) throws VotingException {
+        ElectionService owner = ownerOf(voterId);
+        if (owner == null) {
+            ValidationUtil.validateElectionStatus(getStatus(), ElectionService.ElectionStatus.VOTING_OPEN);
+            throw new VotingException("Voter not found");
+        }
+        owner.castVote(voterId, candidateId, votingStation);
+    }
+
+    // Splits the batch by owning shard; each shard applies and journals its part under the same
+    // batch ID, so a retry after a partial failure only applies the parts that were missing.
+    public BatchResult castVotes(VoteBatch batch) throws VotingException {
+        ValidationUtil.validateElectionStatus(getStatus(), ElectionService.ElectionStatus.VOTING_OPEN);
+        List<VoteBatch.Ballot> ballots = batch.getBallots();
+        BatchResult.Outcome[] outcomes = new BatchResult.Outcome[ballots.size()];
+        Map<ElectionService, List<Integer>> byShard = new IdentityHashMap<>();
+        for (int i = 0; i < ballots.size(); i++) {
+            ElectionService owner = ownerOf(ballots.get(i).getVoterId());
+            if (owner == null) {
+                outcomes[i] = BatchResult.Outcome.UNKNOWN_VOTER;
+            } else {
+                byShard.computeIfAbsent(owner, shard -> new ArrayList<>()).add(i);
+            }
+        }
+        boolean repeated = !byShard.isEmpty();
+        for (Map.Entry<ElectionService, List<Integer>> entry : byShard.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            List<VoteBatch.Ballot> part = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                part.add(ballots.get(index));
+            }
+            BatchResult result = entry.getKey().castVotes(new VoteBatch(batch.getBatchId(), batch.getVotingStation(), part));
+            for (int i = 0; i < indexes.size(); i++) {
+                outcomes[indexes.get(i)] = result.getOutcome(i);
+            }
+            repeated &= result.isRepeated();
+        }
+        return new BatchResult(batch.getBatchId(), batch.getVotingStation(), outcomes, repeated);
+    }
+
+    // The earliest phase any shard is in, i.e. the phase the whole election is known to be in
+    public ElectionService.ElectionStatus getStatus() {
+        ElectionService.ElectionStatus earliest = null;
+        for (ElectionService shard : shards) {
+            ElectionService.ElectionStatus status = shard.getStatus();
+            if (earliest == null || status.ordinal() < earliest.ordinal()) {
+                earliest = status;
+            }
+        }
+        return earliest;
+    }
+
+    public synchronized void openRegistration() throws VotingException {
+        transition(ElectionService.ElectionStatus.SETUP, ElectionService.ElectionStatus.REGISTRATION_OPEN,
+            ElectionService::openRegistration);
+    }
+
+    public synchronized void openVoting() throws VotingException {
+        transition(ElectionService.ElectionStatus.REGISTRATION_OPEN, ElectionService.ElectionStatus.VOTING_OPEN,
+            ElectionService::openVoting);
+    }
+
+    // Every shard stops taking votes, and finishes the ones in flight, before any shard closes,
+    // so no vote lands on one shard after another has already closed
+    public synchronized void closeElection() throws VotingException {
+        shards.forEach(ElectionService::suspendVoting);
+        try {
+            transition(ElectionService.ElectionStatus.VOTING_OPEN, ElectionService.ElectionStatus.CLOSED,
+                ElectionService::closeElection);
+        } finally {
+            shards.forEach(ElectionService::resumeVoting);
+        }
+    }
+
+    // Ranked by votes (ties by name), merged across shards
+    public Map<String, Integer> getResults() throws VotingException {
+        ValidationUtil.validateElectionStatus(getStatus(), ElectionService.ElectionStatus.CLOSED);
+        MergeableTally merged = refreshTally();
+        List<Candidate> ranked = new ArrayList<>(candidates.values());
+        ranked.sort(Comparator.comparingLong((Candidate candidate) -> merged.getVotes(candidate.getId()))
+            .reversed().thenComparing(Candidate::getName));
+        Map<String, Integer> results = new LinkedHashMap<>();
+        for (Candidate candidate : ranked) {
+            if (results.put(candidate.getName(), (int) merged.getVotes(candidate.getId())) != null) {
+                throw new IllegalStateException("Duplicate candidate name");
+            }
+        }
+        return results;
+    }
+
+    public ElectionService.ElectionStatistics getStatistics() {
+        MergeableTally merged = refreshTally();
+        long totalVoters = merged.getTotalVoters();
+        long totalVotes = merged.getTotalVotes();
+        return new ElectionService.ElectionStatistics((int) totalVoters, (int) totalVotes,
+            totalVoters == 0 ? 0 : (double) totalVotes / totalVoters * 100, candidates.size(), getStatus());
+    }
+
+    // Pulls every shard's current tally into the merged state. Pulls may overlap or arrive out
+    // of order; the merge makes that harmless.
+    public MergeableTally refreshTally() {
+        MergeableTally merged = tally.get();
+        for (int i = 0; i < shards.size(); i++) {
+            MergeableTally shardTally = MergeableTally.ofShard(i, shards.size(), shards.get(i).getLiveResults());
+            merged = tally.accumulateAndGet(shardTally, MergeableTally::merge);
+        }
+        return merged;
+    }
+
+    private interface ShardTransition {
+        void apply(ElectionService shard) throws VotingException;
+    }
+
+    // Checks every shard before changing any. A transition that failed part-way (e.g. a shard's
+    // journal was unavailable) can simply be retried: shards already moved are skipped.
+    private void transition(ElectionService.ElectionStatus from, ElectionService.ElectionStatus to,
+                            ShardTransition change) throws VotingException {
+        for (ElectionService shard : shards) {
+            if (shard.getStatus() != to) {
+                ValidationUtil.validateElectionStatus(shard.getStatus(), from);
+            }
+        }
+        for (ElectionService shard : shards) {
+            if (shard.getStatus() == from) {
+                change.apply(shard);
+            }
+        }
+    }
+
+    // The shard the voter ID hashes to, if the voter is registered there
+    private ElectionService ownerOf(String voterId) {
+        if (voterId == null) {
+            return null;
+        }
+        ElectionService shard = shards.get(shardFor(voterId));
+        return shard.getVoter(voterId) != null ? shard : null;
+    }
+
+    private static int lockFor(String key) {
+        return Math.floorMod(spread(key.hashCode()), REGISTRATION_LOCKS);
+    }
+
+    private static List<ElectionService> createShards(String electionName, LocalDateTime electionDate,
+                                                      int shardCount, ElectionLogger logger) {
+        List<ElectionService> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ElectionService(electionName + " [shard " + i + "]", electionDate, logger));
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,67 @@
+package service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Append-only storage of ranked ballots, each an int[] of interned candidate ordinals in
+// preference order plus the voter who cast it, in growing chunks like VoteStore. A ballot is
+// published by writing its slot; readers see null for slots that are claimed but not yet written.
+class RankedBallotStore implements RankedChoiceTabulator.BallotSource {
+    private static final class Chunk {
+        final String[] voters;
+        final AtomicReferenceArray<int[]> ballots;
+
+        Chunk(int size) {
+            voters = new String[size];
+            ballots = new AtomicReferenceArray<>(size);
+        }
+    }
+
+    private final VoteStore.Chunks<Chunk> chunks = new VoteStore.Chunks<>(Chunk::new);
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final VoteStore.Interner candidates = new VoteStore.Interner();
+
+    int append(String voterId, List<String> preferences) {
+        int[] ballot = new int[preferences.size()];
+        for (int i = 0; i < ballot.length; i++) {
+            ballot[i] = candidates.intern(preferences.get(i));
+        }
+        int index = claimed.getAndIncrement();
+        if (index < 0) {
+            throw new IllegalStateException("Ranked ballot store is full");
+        }
+        int chunkIndex = VoteStore.Chunks.chunkOf(index);
+        Chunk chunk = chunks.getOrCreate(chunkIndex);
+        int slot = index - VoteStore.Chunks.chunkStart(chunkIndex);
+        chunk.voters[slot] = voterId;
+        chunk.ballots.set(slot, ballot);
+        return index;
+    }
+
+    // Gives every candidate an ordinal, so ones nobody ranked still take part in tabulation
+    void register(String candidateId) {
+        candidates.intern(candidateId);
+    }
+
+    @Override
+    public int size() {
+        return claimed.get();
+    }
+
+    @Override
+    public int[] ballot(int index) {
+        int chunkIndex = VoteStore.Chunks.chunkOf(index);
+        Chunk chunk = chunks.get(chunkIndex);
+        return chunk == null ? null : chunk.ballots.get(index - VoteStore.Chunks.chunkStart(chunkIndex));
+    }
+
+    // Only valid once ballot(index) has returned non-null
+    String voterId(int index) {
+        int chunkIndex = VoteStore.Chunks.chunkOf(index);
+        return chunks.get(chunkIndex).voters[index - VoteStore.Chunks.chunkStart(chunkIndex)];
+    }
+
+    String candidateId(int ordinal) { return candidates.value(ordinal); }
+    int candidateCount() { return candidates.size(); }
+}
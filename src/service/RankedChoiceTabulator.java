@@ -0,0 +1,522 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Instant-runoff (one seat) and single transferable vote (several seats) counting.
+//
+// Identical rankings are grouped first, in parallel over ballot index ranges, so the rounds work
+// on distinct rankings with a weight each instead of on individual ballots. Rankings that fit
+// are packed into a long (a few bits per preference) and counted in a primitive hash table;
+// longer ones fall back to hashing the array. Every group sits in
+// the pile of the candidate it currently counts for and remembers how far down its ranking it
+// is. A round only walks the pile of the candidate just elected or eliminated, moving each group
+// to its next continuing preference; everyone else's count carries over untouched. Large piles
+// are moved in parallel.
+//
+// STV uses the Droop quota and transfers an elected candidate's surplus at a fractional value
+// (Gregory method): every group in the pile continues at weight * surplus / total. Elimination
+// ties go to the candidate who was lower in the most recent round where the tied candidates
+// differed, and failing that to the one listed last.
+public class RankedChoiceTabulator {
+    private static final int MIN_GROUP_LEAF_SIZE = 1 << 16;
+    private static final int TRANSFER_LEAF_SIZE = 1 << 14;
+
+    public interface BallotSource {
+        // Exclusive upper bound of ballot indexes
+        int size();
+
+        // Candidate ordinals, most preferred first, or null if there is no ballot at this index
+        int[] ballot(int index);
+    }
+
+    private final ForkJoinPool pool;
+
+    public RankedChoiceTabulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RankedChoiceTabulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Ballot ordinals index into candidates, whose entries also label the result
+    public TabulationResult tabulate(List<String> candidates, BallotSource ballots, int seats) {
+        if (seats < 1 || seats > candidates.size()) {
+            throw new IllegalArgumentException("Seats must be between 1 and " + candidates.size());
+        }
+        // Few, large leaves: most of the cost is merging leaf tables, which shrinks with their number
+        int leafSize = Math.max(MIN_GROUP_LEAF_SIZE, ballots.size() / (4 * pool.getParallelism()) + 1);
+        Groups grouped = pool.invoke(new GroupTask(ballots, 0, ballots.size(), leafSize,
+            new Packing(candidates.size())));
+        return new Count(candidates, grouped, seats).run();
+    }
+
+    // Packs a ranking into a long as (ordinal + 1) per preference, first choice in the lowest
+    // bits, so the code is never zero and its length is implied by the highest non-zero field
+    private static final class Packing {
+        final int bits;
+        final int maxRanks;
+        final int candidateCount;
+
+        Packing(int candidateCount) {
+            this.candidateCount = candidateCount;
+            this.bits = 32 - Integer.numberOfLeadingZeros(candidateCount);
+            this.maxRanks = 64 / bits;
+        }
+
+        // Zero if the ballot is too long to pack
+        long pack(int[] ballot) {
+            if (ballot.length > maxRanks) {
+                return 0;
+            }
+            long code = 0;
+            for (int rank = ballot.length - 1; rank >= 0; rank--) {
+                code = (code << bits) | (ballot[rank] + 1);
+            }
+            return code;
+        }
+
+        int[] unpack(long code) {
+            int length = (64 - Long.numberOfLeadingZeros(code) + bits - 1) / bits;
+            int[] ranking = new int[length];
+            long mask = (1L << bits) - 1;
+            for (int rank = 0; rank < length; rank++) {
+                ranking[rank] = (int) ((code >>> (rank * bits)) & mask) - 1;
+            }
+            return ranking;
+        }
+    }
+
+    // Open-addressing counts keyed by packed ranking; zero marks an empty slot
+    private static final class LongCounts {
+        long[] keys = new long[1 << 12];
+        long[] counts = new long[1 << 12];
+        int size;
+
+        void add(long key, long count) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == key) {
+                    counts[slot] += count;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = count;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        void addAll(LongCounts other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.keys[slot] != 0) {
+                    add(other.keys[slot], other.counts[slot]);
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new long[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    add(oldKeys[slot], oldCounts[slot]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // Grouped ballots: packed rankings plus any too long to pack
+    private static final class Groups {
+        final LongCounts packed = new LongCounts();
+        final Map<Ranking, long[]> unpacked = new HashMap<>();
+
+        int size() {
+            return packed.size + unpacked.size();
+        }
+
+        Groups merge(Groups other) {
+            Groups into = size() >= other.size() ? this : other;
+            Groups from = into == this ? other : this;
+            into.packed.addAll(from.packed);
+            from.unpacked.forEach((key, count) -> {
+                long[] existing = into.unpacked.putIfAbsent(key, count);
+                if (existing != null) {
+                    existing[0] += count[0];
+                }
+            });
+            return into;
+        }
+    }
+
+    // A ranking as a hash key; wraps the ballot's array without copying it
+    private static final class Ranking {
+        final int[] ordinals;
+        final int hash;
+
+        Ranking(int[] ordinals) {
+            this.ordinals = ordinals;
+            this.hash = Arrays.hashCode(ordinals);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Ranking && Arrays.equals(ordinals, ((Ranking) other).ordinals);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class GroupTask extends RecursiveTask<Groups> {
+        private static final long serialVersionUID = 1L;
+
+        private final BallotSource ballots;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final Packing packing;
+
+        GroupTask(BallotSource ballots, int from, int to, int leafSize, Packing packing) {
+            this.ballots = ballots;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.packing = packing;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from <= leafSize) {
+                Groups groups = new Groups();
+                for (int i = from; i < to; i++) {
+                    int[] ballot = ballots.ballot(i);
+                    if (ballot == null || ballot.length == 0) {
+                        continue;
+                    }
+                    for (int ordinal : ballot) {
+                        if (ordinal < 0 || ordinal >= packing.candidateCount) {
+                            throw new IllegalArgumentException("Ballot " + i + " ranks unknown candidate " + ordinal);
+                        }
+                    }
+                    long code = packing.pack(ballot);
+                    if (code != 0) {
+                        groups.packed.add(code, 1);
+                        continue;
+                    }
+                    Ranking key = new Ranking(ballot);
+                    long[] count = groups.unpacked.get(key);
+                    if (count == null) {
+                        groups.unpacked.put(key, count = new long[1]);
+                    }
+                    count[0]++;
+                }
+                return groups;
+            }
+            int mid = (from + to) >>> 1;
+            GroupTask left = new GroupTask(ballots, from, mid, leafSize, packing);
+            left.fork();
+            Groups right = new GroupTask(ballots, mid, to, leafSize, packing).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // Growable list of group indexes
+    private static final class Pile {
+        int[] items = new int[16];
+        int size;
+
+        void add(int group) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = group;
+        }
+
+        void addAll(Pile other) {
+            if (size + other.size > items.length) {
+                items = Arrays.copyOf(items, Math.max(items.length * 2, size + other.size));
+            }
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+    }
+
+    // Where one slice of a pile went: per-candidate piles and weight, plus what exhausted
+    private static final class Moves {
+        final Pile[] piles;
+        final double[] weight;
+        double exhausted;
+
+        Moves(int candidateCount) {
+            piles = new Pile[candidateCount];
+            weight = new double[candidateCount];
+        }
+
+        void add(int candidate, int group, double groupWeight) {
+            if (piles[candidate] == null) {
+                piles[candidate] = new Pile();
+            }
+            piles[candidate].add(group);
+            weight[candidate] += groupWeight;
+        }
+
+        Moves merge(Moves other) {
+            for (int c = 0; c < piles.length; c++) {
+                if (other.piles[c] != null) {
+                    if (piles[c] == null) {
+                        piles[c] = other.piles[c];
+                    } else {
+                        piles[c].addAll(other.piles[c]);
+                    }
+                    weight[c] += other.weight[c];
+                }
+            }
+            exhausted += other.exhausted;
+            return this;
+        }
+    }
+
+    // State of one tabulation
+    private final class Count {
+        private final List<String> candidates;
+        private final int seats;
+        private final int[][] rankings;
+        private final int[] position;
+        private final double[] weight;
+        private final Pile[] piles;
+        private final double[] tally;
+        private final boolean[] continuing;
+        private final List<double[]> history = new ArrayList<>();
+        private long validBallots;
+        private double exhausted;
+        private int remaining;
+
+        Count(List<String> candidates, Groups grouped, int seats) {
+            int candidateCount = candidates.size();
+            this.candidates = candidates;
+            this.seats = seats;
+            this.rankings = new int[grouped.size()][];
+            this.position = new int[grouped.size()];
+            this.weight = new double[grouped.size()];
+            this.piles = new Pile[candidateCount];
+            this.tally = new double[candidateCount];
+            this.continuing = new boolean[candidateCount];
+            this.remaining = candidateCount;
+            Arrays.fill(continuing, true);
+            for (int c = 0; c < candidateCount; c++) {
+                piles[c] = new Pile();
+            }
+            Packing packing = new Packing(candidateCount);
+            LongCounts packed = grouped.packed;
+            int group = 0;
+            for (int slot = 0; slot < packed.keys.length; slot++) {
+                if (packed.keys[slot] != 0) {
+                    addGroup(group++, packing.unpack(packed.keys[slot]), packed.counts[slot]);
+                }
+            }
+            for (Map.Entry<Ranking, long[]> entry : grouped.unpacked.entrySet()) {
+                addGroup(group++, entry.getKey().ordinals, entry.getValue()[0]);
+            }
+        }
+
+        private void addGroup(int group, int[] ranking, long count) {
+            rankings[group] = ranking;
+            weight[group] = count;
+            piles[ranking[0]].add(group);
+            tally[ranking[0]] += count;
+            validBallots += count;
+        }
+
+        TabulationResult run() {
+            double quota = Math.floor(validBallots / (seats + 1.0)) + 1;
+            List<String> winners = new ArrayList<>();
+            List<TabulationResult.Round> rounds = new ArrayList<>();
+            while (winners.size() < seats) {
+                history.add(tally.clone());
+                Map<String, Double> tallies = continuingTallies();
+                int number = rounds.size() + 1;
+                if (remaining <= seats - winners.size()) {
+                    List<String> elected = new ArrayList<>(tallies.keySet());
+                    rounds.add(new TabulationResult.Round(number, tallies, exhausted, elected, null));
+                    winners.addAll(elected);
+                    break;
+                }
+                int leader = leader();
+                // IRV needs a majority of the votes still in play; STV needs the quota
+                boolean elect = seats == 1 ? tally[leader] > continuingTotal() / 2 : tally[leader] >= quota;
+                if (elect) {
+                    rounds.add(new TabulationResult.Round(number, tallies, exhausted,
+                        List.of(candidates.get(leader)), null));
+                    winners.add(candidates.get(leader));
+                    if (winners.size() < seats) {
+                        double total = tally[leader];
+                        retire(leader);
+                        transfer(leader, (total - quota) / total);
+                    }
+                } else {
+                    int loser = loser();
+                    rounds.add(new TabulationResult.Round(number, tallies, exhausted, List.of(),
+                        candidates.get(loser)));
+                    retire(loser);
+                    transfer(loser, 1.0);
+                }
+            }
+            return new TabulationResult(seats, validBallots, rankings.length, quota, winners, rounds);
+        }
+
+        private void retire(int candidate) {
+            continuing[candidate] = false;
+            remaining--;
+        }
+
+        // Moves every group in the candidate's pile on to its next continuing preference
+        private void transfer(int from, double factor) {
+            Pile pile = piles[from];
+            piles[from] = new Pile();
+            tally[from] = 0;
+            Moves moves = pile.size > 2 * TRANSFER_LEAF_SIZE
+                ? pool.invoke(new TransferTask(pile, 0, pile.size, factor))
+                : move(pile, 0, pile.size, factor);
+            for (int c = 0; c < piles.length; c++) {
+                if (moves.piles[c] != null) {
+                    piles[c].addAll(moves.piles[c]);
+                    tally[c] += moves.weight[c];
+                }
+            }
+            exhausted += moves.exhausted;
+        }
+
+        // Groups are disjoint across slices, so slices update position and weight without locking
+        private Moves move(Pile pile, int from, int to, double factor) {
+            Moves moves = new Moves(piles.length);
+            for (int i = from; i < to; i++) {
+                int group = pile.items[i];
+                double groupWeight = weight[group] * factor;
+                weight[group] = groupWeight;
+                int[] ranking = rankings[group];
+                int next = position[group] + 1;
+                while (next < ranking.length && !continuing[ranking[next]]) {
+                    next++;
+                }
+                position[group] = next;
+                if (next == ranking.length) {
+                    moves.exhausted += groupWeight;
+                } else {
+                    moves.add(ranking[next], group, groupWeight);
+                }
+            }
+            return moves;
+        }
+
+        private final class TransferTask extends RecursiveTask<Moves> {
+            private static final long serialVersionUID = 1L;
+
+            private final Pile pile;
+            private final int from;
+            private final int to;
+            private final double factor;
+
+            TransferTask(Pile pile, int from, int to, double factor) {
+                this.pile = pile;
+                this.from = from;
+                this.to = to;
+                this.factor = factor;
+            }
+
+            @Override
+            protected Moves compute() {
+                if (to - from <= TRANSFER_LEAF_SIZE) {
+                    return move(pile, from, to, factor);
+                }
+                int mid = (from + to) >>> 1;
+                TransferTask left = new TransferTask(pile, from, mid, factor);
+                left.fork();
+                Moves right = new TransferTask(pile, mid, to, factor).compute();
+                return left.join().merge(right);
+            }
+        }
+
+        private Map<String, Double> continuingTallies() {
+            List<Integer> order = new ArrayList<>();
+            for (int c = 0; c < tally.length; c++) {
+                if (continuing[c]) {
+                    order.add(c);
+                }
+            }
+            order.sort(Comparator.comparingDouble((Integer c) -> -tally[c]).thenComparingInt(c -> c));
+            Map<String, Double> tallies = new LinkedHashMap<>();
+            for (int c : order) {
+                tallies.put(candidates.get(c), tally[c]);
+            }
+            return tallies;
+        }
+
+        private double continuingTotal() {
+            double total = 0;
+            for (int c = 0; c < tally.length; c++) {
+                if (continuing[c]) {
+                    total += tally[c];
+                }
+            }
+            return total;
+        }
+
+        private int leader() {
+            int leader = -1;
+            for (int c = 0; c < tally.length; c++) {
+                if (continuing[c] && (leader < 0 || tally[c] > tally[leader])) {
+                    leader = c;
+                }
+            }
+            return leader;
+        }
+
+        private int loser() {
+            List<Integer> tied = new ArrayList<>();
+            double lowest = Double.MAX_VALUE;
+            for (int c = 0; c < tally.length; c++) {
+                if (continuing[c]) {
+                    if (tally[c] < lowest) {
+                        lowest = tally[c];
+                        tied.clear();
+                    }
+                    if (tally[c] == lowest) {
+                        tied.add(c);
+                    }
+                }
+            }
+            for (int round = history.size() - 2; round >= 0 && tied.size() > 1; round--) {
+                double[] earlier = history.get(round);
+                double min = Double.MAX_VALUE;
+                for (int c : tied) {
+                    min = Math.min(min, earlier[c]);
+                }
+                double roundMin = min;
+                tied.removeIf(c -> earlier[c] != roundMin);
+            }
+            return tied.get(tied.size() - 1);
+        }
+    }
+}
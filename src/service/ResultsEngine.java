@@ -0,0 +1,145 @@
+package service;
+
+import model.Candidate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Publishes ResultsSnapshots for polling readers. Tallies are the candidates' own striped
+// counters, so castVote never touches this class. A snapshot is rebuilt only when something
+// changed and at most once per refresh interval (a status change always rebuilds). One reader
+// rebuilds while the rest keep returning the previous snapshot, so readers never wait and
+// writers are never blocked. Status only moves forward and the vote stamp only grows, so a caller
+// whose arguments are older than the published snapshot gets that snapshot instead of
+// rebuilding: neither the version nor the status ever goes backwards.
+//
+// Ranking keeps the previous order and re-sorts it with insertion sort: between two
+// snapshots only a few candidates change places, so this is close to linear in the
+// number of candidates rather than a full sort per poll.
+class ResultsEngine {
+    private final long refreshIntervalNanos;
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final AtomicLong versions = new AtomicLong();
+    private volatile Candidate[] candidates = new Candidate[0];
+    private volatile ResultsSnapshot current;
+    private volatile long currentVoteStamp = -1;
+    private volatile long lastBuildNanos;
+
+    // Owned by whichever thread holds the building flag
+    private int[] order = new int[0];
+
+    ResultsEngine(long refreshIntervalMillis) {
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+        this.current = new ResultsSnapshot(0, System.currentTimeMillis(), ElectionService.ElectionStatus.SETUP,
+            0, 0, new ArrayList<>());
+    }
+
+    synchronized void addCandidate(Candidate candidate) {
+        Candidate[] grown = Arrays.copyOf(candidates, candidates.length + 1);
+        grown[grown.length - 1] = candidate;
+        candidates = grown;
+    }
+
+    // voteStamp is any counter that changes whenever a vote is recorded
+    ResultsSnapshot snapshot(ElectionService.ElectionStatus status, int totalVoters, long voteStamp) {
+        ResultsSnapshot snapshot = current;
+        if (isStale(snapshot, status, voteStamp)) {
+            return snapshot;
+        }
+        if (snapshot.getStatus() == status) {
+            boolean unchanged = currentVoteStamp == voteStamp
+                && snapshot.getTotalVoters() == totalVoters
+                && snapshot.getRanked().size() == candidates.length;
+            if (unchanged || System.nanoTime() - lastBuildNanos < refreshIntervalNanos) {
+                return snapshot;
+            }
+        }
+        while (!building.compareAndSet(false, true)) {
+            if (snapshot.getStatus().compareTo(status) >= 0) {
+                return snapshot;
+            }
+            // Right after a status transition a snapshot of the old status is never acceptable,
+            // so wait for the rebuild in progress; this only happens once per transition
+            Thread.onSpinWait();
+            snapshot = current;
+        }
+        // Compare with what is published now: another caller may have moved it on meanwhile
+        ResultsSnapshot latest = current;
+        if ((latest.getStatus() == status && latest != snapshot)
+                || isStale(latest, status, voteStamp)) {
+            building.set(false);
+            return latest;
+        }
+        try {
+            ResultsSnapshot rebuilt = build(status, totalVoters);
+            currentVoteStamp = voteStamp;
+            lastBuildNanos = System.nanoTime();
+            current = rebuilt;
+            return rebuilt;
+        } finally {
+            building.set(false);
+        }
+    }
+
+    // The caller read its status or vote stamp before the published snapshot was built
+    private boolean isStale(ResultsSnapshot published, ElectionService.ElectionStatus status, long voteStamp) {
+        int statusOrder = published.getStatus().compareTo(status);
+        if (statusOrder != 0) {
+            return statusOrder > 0;
+        }
+        return voteStamp < currentVoteStamp;
+    }
+
+    private ResultsSnapshot build(ElectionService.ElectionStatus status, int totalVoters) {
+        Candidate[] snapshotCandidates = candidates;
+        int count = snapshotCandidates.length;
+        long[] votes = new long[count];
+        long totalVotes = 0;
+        for (int i = 0; i < count; i++) {
+            votes[i] = snapshotCandidates[i].getVoteCount();
+            totalVotes += votes[i];
+        }
+
+        int[] ranking = rank(snapshotCandidates, votes, order);
+        order = ranking;
+
+        List<ResultsSnapshot.CandidateResult> ranked = new ArrayList<>(count);
+        for (int index : ranking) {
+            Candidate candidate = snapshotCandidates[index];
+            ranked.add(new ResultsSnapshot.CandidateResult(candidate.getId(), candidate.getName(),
+                candidate.getParty(), votes[index]));
+        }
+        return new ResultsSnapshot(versions.incrementAndGet(), System.currentTimeMillis(), status,
+            totalVoters, totalVotes, ranked);
+    }
+
+    // Previous ranking first, newly added candidates appended, then an adaptive insertion sort
+    private static int[] rank(Candidate[] candidates, long[] votes, int[] previousOrder) {
+        int count = candidates.length;
+        int[] ranking = Arrays.copyOf(previousOrder, count);
+        for (int i = previousOrder.length; i < count; i++) {
+            ranking[i] = i;
+        }
+        for (int i = 1; i < count; i++) {
+            int candidate = ranking[i];
+            int j = i - 1;
+            while (j >= 0 && ranksBefore(candidate, ranking[j], votes, candidates)) {
+                ranking[j + 1] = ranking[j];
+                j--;
+            }
+            ranking[j + 1] = candidate;
+        }
+        return ranking;
+    }
+
+    private static boolean ranksBefore(int a, int b, long[] votes, Candidate[] candidates) {
+        if (votes[a] != votes[b]) {
+            return votes[a] > votes[b];
+        }
+        return candidates[a].getName().compareTo(candidates[b].getName()) < 0;
+    }
+}
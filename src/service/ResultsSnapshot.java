@@ -0,0 +1,66 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+
+// Immutable, self-consistent view of the tallies: totalVotes is the sum of the candidate counts
+// it was built from, and candidates are already ranked by votes (ties by name).
+public class ResultsSnapshot {
+    private final long version;
+    private final long publishedAtMillis;
+    private final ElectionService.ElectionStatus status;
+    private final int totalVoters;
+    private final long totalVotes;
+    private final List<CandidateResult> ranked;
+
+    ResultsSnapshot(long version, long publishedAtMillis, ElectionService.ElectionStatus status,
+                    int totalVoters, long totalVotes, List<CandidateResult> ranked) {
+        this.version = version;
+        this.publishedAtMillis = publishedAtMillis;
+        this.status = status;
+        this.totalVoters = totalVoters;
+        this.totalVotes = totalVotes;
+        this.ranked = Collections.unmodifiableList(ranked);
+    }
+
+    // Getters
+    public long getVersion() { return version; }
+    public long getPublishedAtMillis() { return publishedAtMillis; }
+    public ElectionService.ElectionStatus getStatus() { return status; }
+    public int getTotalVoters() { return totalVoters; }
+    public long getTotalVotes() { return totalVotes; }
+    public List<CandidateResult> getRanked() { return ranked; }
+
+    public double getTurnoutPercentage() {
+        return totalVoters == 0 ? 0 : (double) totalVotes / totalVoters * 100;
+    }
+
+    public List<CandidateResult> top(int limit) {
+        return ranked.subList(0, Math.max(0, Math.min(limit, ranked.size())));
+    }
+
+    public static class CandidateResult {
+        private final String candidateId;
+        private final String name;
+        private final String party;
+        private final long votes;
+
+        public CandidateResult(String candidateId, String name, String party, long votes) {
+            this.candidateId = candidateId;
+            this.name = name;
+            this.party = party;
+            this.votes = votes;
+        }
+
+        // Getters
+        public String getCandidateId() { return candidateId; }
+        public String getName() { return name; }
+        public String getParty() { return party; }
+        public long getVotes() { return votes; }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s) - %d votes", name, party, votes);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package service;
+
+public class SessionMetrics {
+    private final int activeSessions;
+    private final long created;
+    private final long expired;
+    private final long evicted;
+    private final long lookups;
+    private final double meanLookupNanos;
+    private final long maxLookupNanos;
+
+    public SessionMetrics(int activeSessions, long created, long expired, long evicted, long lookups,
+                          double meanLookupNanos, long maxLookupNanos) {
+        this.activeSessions = activeSessions;
+        this.created = created;
+        this.expired = expired;
+        this.evicted = evicted;
+        this.lookups = lookups;
+        this.meanLookupNanos = meanLookupNanos;
+        this.maxLookupNanos = maxLookupNanos;
+    }
+
+    // Getters
+    public int getActiveSessions() { return activeSessions; }
+    public long getCreated() { return created; }
+    public long getExpired() { return expired; }
+    public long getEvicted() { return evicted; }
+    public long getLookups() { return lookups; }
+    public double getMeanLookupNanos() { return meanLookupNanos; }
+    public long getMaxLookupNanos() { return maxLookupNanos; }
+
+    @Override
+    public String toString() {
+        return String.format("Sessions: %d active, %d created, %d expired, %d evicted, %d lookups (mean %.0f ns, max %d ns)",
+            activeSessions, created, expired, evicted, lookups, meanLookupNanos, maxLookupNanos);
+    }
+}
@@ -0,0 +1,248 @@
+package service;
+
+import util.LatencyHistogram;
+import util.LatencyTimer;
+import util.MetricsRegistry;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded session store with idle and absolute expiry.
+//
+// Expiry runs on a hashed timing wheel: a session is filed under the tick of its expected
+// expiry, and a background thread visits one slot per tick. A session that was used in the
+// meantime is simply re-filed, so lookups only write a timestamp and never touch the wheel.
+// Lookups also expire lazily, so an expired token is refused even before the wheel reaches it.
+// The session count never exceeds the cap: a create at the cap first evicts the session
+// due to expire soonest.
+//
+// Tokens are 128 random bits from a per-thread SecureRandom, so threads don't contend on a
+// shared generator as UUID.randomUUID() does, and encoded as 22 URL-safe characters.
+public class SessionStore implements AutoCloseable {
+    private static final int WHEEL_SLOTS = 512;
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(() -> {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    });
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final class Session {
+        final String token;
+        final String voterId;
+        final long absoluteDeadline;
+        volatile long lastAccess;
+
+        Session(String token, String voterId, long now, long absoluteTtl) {
+            this.token = token;
+            this.voterId = voterId;
+            this.absoluteDeadline = now + absoluteTtl;
+            this.lastAccess = now;
+        }
+    }
+
+    private final long idleTtlMillis;
+    private final long absoluteTtlMillis;
+    private final int maxSessions;
+    private final long tickMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Queue<Session>[] wheel;
+    private final AtomicLong currentTick;
+    private final ScheduledExecutorService sweeper;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LatencyTimer lookupLatency;
+
+    public SessionStore() {
+        this(TimeUnit.MINUTES.toMillis(30), TimeUnit.HOURS.toMillis(12), 1_000_000, 1000);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SessionStore(long idleTtlMillis, long absoluteTtlMillis, int maxSessions, long tickMillis) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("maxSessions must be at least 1");
+        }
+        this.idleTtlMillis = idleTtlMillis;
+        this.absoluteTtlMillis = absoluteTtlMillis;
+        this.maxSessions = maxSessions;
+        this.tickMillis = tickMillis;
+        this.wheel = new Queue[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = new AtomicLong(now() / tickMillis);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        this.lookupLatency = MetricsRegistry.getDefault().timer("voting_session_lookup_seconds",
+            "Session token lookup latency");
+    }
+
+    public String create(String voterId) {
+        reserve();
+        long now = now();
+        Session session = new Session(newToken(), voterId, now, absoluteTtlMillis);
+        sessions.put(session.token, session);
+        schedule(session, deadline(session));
+        created.increment();
+        return session.token;
+    }
+
+    // Returns the voter ID for a live session, or null if it is unknown or expired
+    public String lookup(String token) {
+        long start = System.nanoTime();
+        try {
+            Session session = token == null ? null : sessions.get(token);
+            if (session == null) {
+                return null;
+            }
+            long now = TimeUnit.NANOSECONDS.toMillis(start);
+            if (now >= deadline(session)) {
+                if (remove(session)) {
+                    expired.increment();
+                }
+                return null;
+            }
+            // Only write when the stored time is noticeably stale, to keep hot sessions'
+            // cache lines clean
+            if (now - session.lastAccess >= tickMillis) {
+                session.lastAccess = now;
+            }
+            return session.voterId;
+        } finally {
+            lookupLatency.recordSince(start);
+        }
+    }
+
+    public void invalidate(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session != null) {
+            remove(session);
+        }
+    }
+
+    public SessionMetrics getMetrics() {
+        LatencyHistogram lookups = lookupLatency.snapshot();
+        return new SessionMetrics(active.get(), created.sum(), expired.sum(), evicted.sum(), lookups.count(),
+            lookups.mean(), lookups.max());
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private long deadline(Session session) {
+        return Math.min(session.lastAccess + idleTtlMillis, session.absoluteDeadline);
+    }
+
+    private void schedule(Session session, long deadline) {
+        // Never file into a slot the sweeper has already passed for this tick
+        long tick = Math.max(deadline / tickMillis, currentTick.get() + 1);
+        wheel[(int) (tick & (WHEEL_SLOTS - 1))].add(session);
+    }
+
+    // One sweeper step: every session in the slot is either expired or re-filed under its
+    // current deadline (which may be many laps of the wheel away)
+    private void advance() {
+        long tick = currentTick.incrementAndGet();
+        Queue<Session> slot = wheel[(int) (tick & (WHEEL_SLOTS - 1))];
+        long now = now();
+        int pending = slot.size();
+        for (int i = 0; i < pending; i++) {
+            Session session = slot.poll();
+            if (session == null) {
+                break;
+            }
+            if (sessions.get(session.token) != session) {
+                continue;
+            }
+            long deadline = deadline(session);
+            if (now >= deadline) {
+                if (remove(session)) {
+                    expired.increment();
+                }
+            } else {
+                schedule(session, deadline);
+            }
+        }
+    }
+
+    // Takes one of the maxSessions places, evicting when they are all taken. A failed eviction
+    // means the other places are held by creates that haven't stored their session yet.
+    private void reserve() {
+        while (true) {
+            int count = active.get();
+            if (count < maxSessions) {
+                if (active.compareAndSet(count, count + 1)) {
+                    return;
+                }
+            } else if (!evictOne()) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // Walks the wheel from the next tick for the live session with the earliest deadline.
+    // Lookups refresh a session without re-filing it, so a slot can hold sessions due much
+    // later, but a session is never filed past its deadline's tick (ones already due sit in
+    // the next slot): once the slots reached start after the best deadline seen, nothing
+    // further along can beat it.
+    private boolean evictOne() {
+        long tick = currentTick.get();
+        Session soonest = null;
+        long soonestDeadline = Long.MAX_VALUE;
+        for (int i = 1; i <= WHEEL_SLOTS && (tick + i) * tickMillis <= soonestDeadline; i++) {
+            for (Session session : wheel[(int) ((tick + i) & (WHEEL_SLOTS - 1))]) {
+                long deadline = deadline(session);
+                if (deadline < soonestDeadline && sessions.get(session.token) == session) {
+                    soonest = session;
+                    soonestDeadline = deadline;
+                }
+            }
+        }
+        if (soonest == null || !remove(soonest)) {
+            return false;
+        }
+        evicted.increment();
+        return true;
+    }
+
+    private boolean remove(Session session) {
+        if (sessions.remove(session.token, session)) {
+            active.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        RANDOM.get().nextBytes(bytes);
+        return TOKEN_ENCODER.encodeToString(bytes);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
@@ -0,0 +1,60 @@
+package service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// What an election snapshot file holds: the cut's status, totals and per-candidate counts.
+// Reading one only touches the header and candidate section (after the checksum pass), so it
+// doubles as the official results file once the election is closed.
+public class SnapshotSummary {
+    private final String electionName;
+    private final LocalDateTime takenAt;
+    private final ElectionService.ElectionStatus status;
+    private final int voters;
+    private final int votes;
+    private final int rankedBallots;
+    private final long bytes;
+    private final List<ResultsSnapshot.CandidateResult> results;
+
+    SnapshotSummary(String electionName, LocalDateTime takenAt, ElectionService.ElectionStatus status, int voters,
+                    int votes, int rankedBallots, long bytes, List<ResultsSnapshot.CandidateResult> results) {
+        this.electionName = electionName;
+        this.takenAt = takenAt;
+        this.status = status;
+        this.voters = voters;
+        this.votes = votes;
+        this.rankedBallots = rankedBallots;
+        this.bytes = bytes;
+        this.results = results.stream()
+            .sorted(Comparator.comparingLong(ResultsSnapshot.CandidateResult::getVotes).reversed()
+                .thenComparing(ResultsSnapshot.CandidateResult::getName))
+            .collect(Collectors.toUnmodifiableList());
+    }
+
+    public static SnapshotSummary read(Path file) throws IOException {
+        try (ElectionSnapshot snapshot = ElectionSnapshot.open(file)) {
+            return snapshot.summary();
+        }
+    }
+
+    // Getters
+    public String getElectionName() { return electionName; }
+    public LocalDateTime getTakenAt() { return takenAt; }
+    public ElectionService.ElectionStatus getStatus() { return status; }
+    public int getVoters() { return voters; }
+    public int getVotes() { return votes; }
+    public int getRankedBallots() { return rankedBallots; }
+    public long getBytes() { return bytes; }
+    // Ranked by votes
+    public List<ResultsSnapshot.CandidateResult> getResults() { return results; }
+
+    @Override
+    public String toString() {
+        return String.format("Snapshot of %s at %s: %s, %d voters, %d votes, %d ranked ballots, %d bytes",
+            electionName, takenAt, status, voters, votes, rankedBallots, bytes);
+    }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Outcome of a ranked-choice count, with the tallies of every round. Counts are doubles
+// because STV surplus transfers move fractions of ballots; IRV counts are always whole.
+public class TabulationResult {
+    private final int seats;
+    private final long validBallots;
+    private final int distinctBallots;
+    private final double quota;
+    private final List<String> winners;
+    private final List<Round> rounds;
+
+    TabulationResult(int seats, long validBallots, int distinctBallots, double quota,
+                     List<String> winners, List<Round> rounds) {
+        this.seats = seats;
+        this.validBallots = validBallots;
+        this.distinctBallots = distinctBallots;
+        this.quota = quota;
+        this.winners = Collections.unmodifiableList(winners);
+        this.rounds = Collections.unmodifiableList(rounds);
+    }
+
+    // Getters
+    public int getSeats() { return seats; }
+    public long getValidBallots() { return validBallots; }
+    public int getDistinctBallots() { return distinctBallots; }
+    // Droop quota for STV; for IRV (one seat) the winner needs a majority of continuing votes instead
+    public double getQuota() { return quota; }
+    public List<String> getWinners() { return winners; }
+    public List<Round> getRounds() { return rounds; }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d ballots (%d distinct rankings), %d seat(s)", validBallots, distinctBallots, seats));
+        if (seats > 1) {
+            out.append(String.format(", quota %.2f", quota));
+        }
+        out.append(System.lineSeparator());
+        for (Round round : rounds) {
+            out.append(round).append(System.lineSeparator());
+        }
+        out.append("Elected: ").append(String.join(", ", winners));
+        return out.toString();
+    }
+
+    public static class Round {
+        private final int number;
+        private final Map<String, Double> tallies;
+        private final double exhausted;
+        private final List<String> elected;
+        private final String eliminated;
+
+        Round(int number, Map<String, Double> tallies, double exhausted, List<String> elected, String eliminated) {
+            this.number = number;
+            this.tallies = Collections.unmodifiableMap(tallies);
+            this.exhausted = exhausted;
+            this.elected = Collections.unmodifiableList(elected);
+            this.eliminated = eliminated;
+        }
+
+        // Getters
+        public int getNumber() { return number; }
+        // Continuing candidates at the start of the round, highest first
+        public Map<String, Double> getTallies() { return tallies; }
+        public double getExhausted() { return exhausted; }
+        public List<String> getElected() { return elected; }
+        public String getEliminated() { return eliminated; }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("Round ").append(number).append(':');
+            tallies.forEach((candidate, votes) -> out.append(String.format(" %s %.2f;", candidate, votes)));
+            out.append(String.format(" exhausted %.2f", exhausted));
+            if (!elected.isEmpty()) {
+                out.append(" -> elected ").append(String.join(", ", elected));
+            }
+            if (eliminated != null) {
+                out.append(" -> eliminated ").append(eliminated);
+            }
+            return out.toString();
+        }
+    }
+}
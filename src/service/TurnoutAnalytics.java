@@ -0,0 +1,256 @@
+package service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running per-station vote counters for live queries, plus full aggregates computed by a
+// fork-join reduction over index ranges of the vote store. Each leaf counts stations into a
+// primitive array that grows with the highest station ordinal it meets, and station/candidate
+// pairs into a small open-addressing table holding only the pairs its range contains; partial
+// results are merged pairwise. Ordinals aren't fixed up front, so a vote for a station or
+// candidate first seen while the scan runs is still counted.
+class TurnoutAnalytics {
+    private static final int LEAF_SIZE = 1 << 18;
+
+    private final VoteStore votes;
+    private final ConcurrentHashMap<String, LongAdder> liveByStation = new ConcurrentHashMap<>();
+
+    TurnoutAnalytics(VoteStore votes) {
+        this.votes = votes;
+    }
+
+    void recordVote(String votingStation) {
+        recordVotes(votingStation, 1);
+    }
+
+    void recordVotes(String votingStation, int count) {
+        String station = votingStation == null ? "" : votingStation;
+        LongAdder counter = liveByStation.get(station);
+        if (counter == null) {
+            counter = liveByStation.computeIfAbsent(station, key -> new LongAdder());
+        }
+        counter.add(count);
+    }
+
+    Map<String, Long> liveVotesByStation() {
+        Map<String, Long> totals = new HashMap<>();
+        liveByStation.forEach((station, counter) -> totals.put(station, counter.sum()));
+        return totals;
+    }
+
+    TurnoutReport report(Duration bucketSize) {
+        long bucketMillis = bucketSize.toMillis();
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Bucket size must be at least one millisecond");
+        }
+        Partial total = ForkJoinPool.commonPool()
+            .invoke(new ScanTask(0, votes.capacityUsed(), bucketMillis));
+
+        Map<String, Long> byStation = new HashMap<>();
+        for (int s = 0; s < total.stationVotes.length; s++) {
+            if (total.stationVotes[s] > 0) {
+                byStation.put(votes.station(s), total.stationVotes[s]);
+            }
+        }
+        Map<String, Map<String, Long>> candidateByStation = new HashMap<>();
+        total.stationCandidateVotes.forEach((station, candidate, count) -> candidateByStation
+            .computeIfAbsent(votes.station(station), key -> new HashMap<>())
+            .put(votes.candidateId(candidate), count));
+
+        SortedMap<LocalDateTime, Long> byBucket = new TreeMap<>();
+        Map<String, SortedMap<LocalDateTime, Long>> byStationAndBucket = new HashMap<>();
+        total.bucketStationVotes.forEach((bucket, perStation) -> {
+            LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(bucket * bucketMillis), ZoneId.systemDefault());
+            long bucketTotal = 0;
+            for (int s = 0; s < perStation.length; s++) {
+                if (perStation[s] > 0) {
+                    bucketTotal += perStation[s];
+                    byStationAndBucket.computeIfAbsent(votes.station(s), key -> new TreeMap<>()).put(start, perStation[s]);
+                }
+            }
+            byBucket.put(start, bucketTotal);
+        });
+
+        // Reports are cached and shared, so nothing inside one may change
+        candidateByStation.replaceAll((station, perCandidate) -> Collections.unmodifiableMap(perCandidate));
+        byStationAndBucket.replaceAll((station, perBucket) -> Collections.unmodifiableSortedMap(perBucket));
+        return new TurnoutReport(total.votes, bucketSize, byStation, byBucket, byStationAndBucket, candidateByStation);
+    }
+
+    private static long[] grow(long[] counts, int index) {
+        return index < counts.length ? counts : Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+    }
+
+    private static final class Partial {
+        long votes;
+        long[] stationVotes = new long[16];
+        final PairCounts stationCandidateVotes = new PairCounts();
+        final Map<Long, long[]> bucketStationVotes = new HashMap<>();
+
+        Partial merge(Partial other) {
+            votes += other.votes;
+            stationVotes = grow(stationVotes, other.stationVotes.length - 1);
+            for (int i = 0; i < other.stationVotes.length; i++) {
+                stationVotes[i] += other.stationVotes[i];
+            }
+            stationCandidateVotes.addAll(other.stationCandidateVotes);
+            other.bucketStationVotes.forEach((bucket, counts) -> {
+                long[] mine = bucketStationVotes.get(bucket);
+                if (mine == null) {
+                    bucketStationVotes.put(bucket, counts);
+                    return;
+                }
+                if (mine.length < counts.length) {
+                    mine = grow(mine, counts.length - 1);
+                    bucketStationVotes.put(bucket, mine);
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    mine[i] += counts[i];
+                }
+            });
+            return this;
+        }
+    }
+
+    // Vote counts keyed by (station, candidate) ordinal pair, packed into one long; linear
+    // probing, kept at most half full
+    private static final class PairCounts {
+        private static final long EMPTY = -1;
+
+        interface PairVisitor {
+            void visit(int station, int candidate, long count);
+        }
+
+        private long[] keys = emptyKeys(64);
+        private long[] counts = new long[64];
+        private int size;
+
+        void increment(int station, int candidate) {
+            add(((long) station << 32) | candidate, 1);
+        }
+
+        void addAll(PairCounts other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != EMPTY) {
+                    add(other.keys[i], other.counts[i]);
+                }
+            }
+        }
+
+        void forEach(PairVisitor visitor) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    visitor.visit((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+                }
+            }
+        }
+
+        private void add(long key, long count) {
+            int mask = keys.length - 1;
+            int slot = slotOf(key, mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot] += count;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            long[] oldCounts = counts;
+            keys = emptyKeys(oldKeys.length * 2);
+            counts = new long[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slotOf(oldKeys[i], mask);
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int slotOf(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        private static long[] emptyKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final long bucketMillis;
+
+        ScanTask(int from, int to, long bucketMillis) {
+            this.from = from;
+            this.to = to;
+            this.bucketMillis = bucketMillis;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_SIZE) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(from, mid, bucketMillis);
+            ScanTask right = new ScanTask(mid, to, bucketMillis);
+            left.fork();
+            Partial rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+
+        private Partial scan() {
+            Partial partial = new Partial();
+            long[] lastBucket = {Long.MIN_VALUE};
+            long[][] lastCounts = new long[1][];
+            votes.forEach(from, to, (index, voterId, candidate, station, epochMillis) -> {
+                partial.votes++;
+                partial.stationVotes = grow(partial.stationVotes, station);
+                partial.stationVotes[station]++;
+                partial.stationCandidateVotes.increment(station, candidate);
+                // Votes arrive roughly in time order, so consecutive votes usually share a bucket
+                long bucket = Math.floorDiv(epochMillis, bucketMillis);
+                if (bucket != lastBucket[0]) {
+                    lastBucket[0] = bucket;
+                    lastCounts[0] = partial.bucketStationVotes.computeIfAbsent(bucket,
+                        key -> new long[partial.stationVotes.length]);
+                }
+                if (station >= lastCounts[0].length) {
+                    lastCounts[0] = grow(lastCounts[0], station);
+                    partial.bucketStationVotes.put(bucket, lastCounts[0]);
+                }
+                lastCounts[0][station]++;
+            });
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Turnout aggregates from one pass over the vote store: votes per station, per time bucket
+// (overall and per station) and each candidate's share of the votes at every station.
+public class TurnoutReport {
+    private final long totalVotes;
+    private final Duration bucketSize;
+    private final Map<String, Long> votesByStation;
+    private final SortedMap<LocalDateTime, Long> votesByBucket;
+    private final Map<String, SortedMap<LocalDateTime, Long>> votesByStationAndBucket;
+    private final Map<String, Map<String, Long>> candidateVotesByStation;
+
+    TurnoutReport(long totalVotes, Duration bucketSize, Map<String, Long> votesByStation,
+                  SortedMap<LocalDateTime, Long> votesByBucket,
+                  Map<String, SortedMap<LocalDateTime, Long>> votesByStationAndBucket,
+                  Map<String, Map<String, Long>> candidateVotesByStation) {
+        this.totalVotes = totalVotes;
+        this.bucketSize = bucketSize;
+        this.votesByStation = Collections.unmodifiableMap(votesByStation);
+        this.votesByBucket = Collections.unmodifiableSortedMap(votesByBucket);
+        this.votesByStationAndBucket = Collections.unmodifiableMap(votesByStationAndBucket);
+        this.candidateVotesByStation = Collections.unmodifiableMap(candidateVotesByStation);
+    }
+
+    // Getters
+    public long getTotalVotes() { return totalVotes; }
+    public Duration getBucketSize() { return bucketSize; }
+    public Map<String, Long> getVotesByStation() { return votesByStation; }
+    public SortedMap<LocalDateTime, Long> getVotesByBucket() { return votesByBucket; }
+    public Map<String, SortedMap<LocalDateTime, Long>> getVotesByStationAndBucket() { return votesByStationAndBucket; }
+    // Station -> candidate ID -> votes
+    public Map<String, Map<String, Long>> getCandidateVotesByStation() { return candidateVotesByStation; }
+
+    public double getCandidateShare(String station, String candidateId) {
+        Map<String, Long> candidates = candidateVotesByStation.get(station);
+        long stationVotes = votesByStation.getOrDefault(station, 0L);
+        if (candidates == null || stationVotes == 0) {
+            return 0;
+        }
+        return (double) candidates.getOrDefault(candidateId, 0L) / stationVotes * 100;
+    }
+}
@@ -0,0 +1,39 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A burst of ballots uploaded by one polling station. The batch ID is chosen by the station
+// and must be reused when retrying an upload, so a retried batch is never counted twice.
+public class VoteBatch {
+    private final String batchId;
+    private final String votingStation;
+    private final List<Ballot> ballots;
+
+    public VoteBatch(String batchId, String votingStation, List<Ballot> ballots) {
+        this.batchId = batchId;
+        this.votingStation = votingStation;
+        this.ballots = Collections.unmodifiableList(new ArrayList<>(ballots));
+    }
+
+    // Getters
+    public String getBatchId() { return batchId; }
+    public String getVotingStation() { return votingStation; }
+    public List<Ballot> getBallots() { return ballots; }
+    public int size() { return ballots.size(); }
+
+    public static class Ballot {
+        private final String voterId;
+        private final String candidateId;
+
+        public Ballot(String voterId, String candidateId) {
+            this.voterId = voterId;
+            this.candidateId = candidateId;
+        }
+
+        // Getters
+        public String getVoterId() { return voterId; }
+        public String getCandidateId() { return candidateId; }
+    }
+}
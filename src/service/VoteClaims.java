@@ -0,0 +1,62 @@
+package service;
+
+import model.Voter;
+import util.ConcurrentLongMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Who has voted in one election. A standalone election keeps the flag on the Voter itself; an
+// election hosted by ElectionHost shares its Voter objects with the other contests, so it keeps
+// its own claims keyed by voter ID instead (a primitive-map slot per vote, nothing per voter
+// who hasn't voted).
+class VoteClaims {
+    private final ConcurrentLongMap<Voter> claimed;
+    private final Map<String, Voter> claimedLegacy;
+
+    private VoteClaims(boolean perElection) {
+        this.claimed = perElection ? new ConcurrentLongMap<>() : null;
+        this.claimedLegacy = perElection ? new ConcurrentHashMap<>() : null;
+    }
+
+    static VoteClaims onVoters() {
+        return new VoteClaims(false);
+    }
+
+    static VoteClaims perElection() {
+        return new VoteClaims(true);
+    }
+
+    // Claims the voter's one vote; false if it was already claimed
+    boolean claim(Voter voter) {
+        if (claimed == null) {
+            return voter.markVoted();
+        }
+        long id = voter.getNumericId();
+        return id >= 0
+            ? claimed.putIfAbsent(id, voter) == null
+            : claimedLegacy.putIfAbsent(voter.getId(), voter) == null;
+    }
+
+    // Undoes a claim whose vote could not be made durable
+    void release(Voter voter) {
+        if (claimed == null) {
+            voter.setHasVoted(false);
+            return;
+        }
+        long id = voter.getNumericId();
+        if (id >= 0) {
+            claimed.remove(id, voter);
+        } else {
+            claimedLegacy.remove(voter.getId(), voter);
+        }
+    }
+
+    boolean hasVoted(Voter voter) {
+        if (claimed == null) {
+            return voter.hasVoted();
+        }
+        long id = voter.getNumericId();
+        return id >= 0 ? claimed.get(id) != null : claimedLegacy.containsKey(voter.getId());
+    }
+}
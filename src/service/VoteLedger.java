@@ -0,0 +1,489 @@
+package service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+// Tamper-evident ledger over the vote store. Votes are sealed, in store order, into blocks whose
+// header holds the Merkle root of the block's votes and the hash of the previous header, so
+// changing, dropping or reordering any sealed vote changes every block hash from there on.
+//
+// Hashing is pipelined off the voting threads: castVote only appends to the vote store. The
+// "vote-ledger" thread follows the store's published prefix and hands each block's range to the
+// hashing pool, which builds its Merkle tree. While later blocks are still being hashed, that
+// thread chains the finished roots in order. A block is sealed once it is full, or when votes
+// have waited maxDelayMillis, or on flush(). With nothing to seal the thread parks until the
+// store's next append unparks it.
+//
+// Block hashes commit to store indexes, so a journaled election records each block, with the
+// voter IDs it sealed in order, before publishing it. Recovery puts the store back in that order
+// and hands the headers to the new ledger, which carries on from the last recovered block.
+//
+// Leaves are SHA-256(0x00 || vote record) and interior nodes SHA-256(0x01 || left || right). An
+// odd node is carried up a level unchanged, as in RFC 6962, so a leaf can never pass for a node.
+// Only block headers are kept; proofs and verification rehash the block's votes from the store.
+public class VoteLedger implements AutoCloseable {
+    private static final int HASH_BYTES = 32;
+    private static final byte[] GENESIS = new byte[HASH_BYTES];
+    private static final int MAX_BLOCKS_IN_FLIGHT = 64;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    // Fixed-width parts of a leaf record are encoded into a reused per-thread buffer
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(16));
+
+    public static class Block {
+        private final long number;
+        private final int firstIndex;
+        private final int count;
+        private final byte[] previousHash;
+        private final byte[] merkleRoot;
+        private final byte[] hash;
+
+        public Block(long number, int firstIndex, int count, byte[] previousHash, byte[] merkleRoot) {
+            this.number = number;
+            this.firstIndex = firstIndex;
+            this.count = count;
+            this.previousHash = previousHash;
+            this.merkleRoot = merkleRoot;
+            this.hash = headerHash(number, firstIndex, count, previousHash, merkleRoot);
+        }
+
+        // Getters
+        public long getNumber() { return number; }
+        public int getFirstIndex() { return firstIndex; }
+        public int getCount() { return count; }
+        public byte[] getPreviousHash() { return previousHash.clone(); }
+        public byte[] getMerkleRoot() { return merkleRoot.clone(); }
+        public byte[] getHash() { return hash.clone(); }
+
+        @Override
+        public String toString() {
+            return String.format("Block %d: votes %d-%d, root %s, hash %s", number, firstIndex,
+                firstIndex + count - 1, hex(merkleRoot), hex(hash));
+        }
+    }
+
+    // Makes a sealed block durable before the ledger publishes it
+    interface BlockJournal {
+        void record(Block block, String[] voterIds) throws IOException;
+    }
+
+    private static final class Pending {
+        final int firstIndex;
+        final int count;
+        final CompletableFuture<byte[]> root;
+
+        Pending(int firstIndex, int count, CompletableFuture<byte[]> root) {
+            this.firstIndex = firstIndex;
+            this.count = count;
+            this.root = root;
+        }
+    }
+
+    private final VoteStore votes;
+    private final int blockSize;
+    private final long maxDelayNanos;
+    private final ExecutorService hashers;
+    private final boolean ownsHashers;
+    private final BlockJournal blockJournal;
+    private final Thread sealer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition sealed = lock.newCondition();
+    private final List<Block> blocks = new ArrayList<>();
+    private int sealedVotes;
+    private volatile int flushTarget;
+    private volatile boolean closed;
+    private Throwable failure;
+
+    public VoteLedger(VoteStore votes) {
+        this(votes, 1024, 1000, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    public VoteLedger(VoteStore votes, int blockSize, long maxDelayMillis, int hashThreads) {
+        this(votes, blockSize, maxDelayMillis, hasherPool(hashThreads), true, List.of(), null);
+    }
+
+    // Hashes on a pool shared with other work, which close() leaves running
+    public VoteLedger(VoteStore votes, int blockSize, long maxDelayMillis, ExecutorService hashers) {
+        this(votes, blockSize, maxDelayMillis, hashers, false, List.of(), null);
+    }
+
+    // Continues a recovered chain and records every new block; a null pool means an owned one
+    VoteLedger(VoteStore votes, ExecutorService sharedHashers, List<Block> recovered, BlockJournal blockJournal) {
+        this(votes, 1024, 1000,
+            sharedHashers != null ? sharedHashers : hasherPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+            sharedHashers == null, recovered, blockJournal);
+    }
+
+    private VoteLedger(VoteStore votes, int blockSize, long maxDelayMillis, ExecutorService hashers,
+                       boolean ownsHashers, List<Block> recovered, BlockJournal blockJournal) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.votes = votes;
+        this.blockSize = blockSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.hashers = hashers;
+        this.ownsHashers = ownsHashers;
+        this.blockJournal = blockJournal;
+        this.blocks.addAll(recovered);
+        if (!recovered.isEmpty()) {
+            Block last = recovered.get(recovered.size() - 1);
+            this.sealedVotes = last.firstIndex + last.count;
+        }
+        this.sealer = new Thread(this::run, "vote-ledger");
+        sealer.setDaemon(true);
+        sealer.start();
+    }
+
+    // Seals every vote appended so far, including a final partial block, and waits for it
+    public void flush() {
+        int target = votes.capacityUsed();
+        flushTarget = Math.max(flushTarget, target);
+        LockSupport.unpark(sealer);
+        lock.lock();
+        try {
+            while (sealedVotes < target && failure == null && sealer.isAlive()) {
+                sealed.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Vote ledger failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSealedVotes() {
+        lock.lock();
+        try {
+            return sealedVotes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBlockCount() {
+        lock.lock();
+        try {
+            return blocks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Block getBlock(int number) {
+        lock.lock();
+        try {
+            return blocks.get(number);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Hash of the latest block; publishing it commits to every vote sealed so far
+    public byte[] getHeadHash() {
+        lock.lock();
+        try {
+            return blocks.isEmpty() ? GENESIS.clone() : blocks.get(blocks.size() - 1).getHash();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public InclusionProof prove(int voteIndex) {
+        Block block = blockOf(voteIndex);
+        if (block == null) {
+            throw new IllegalArgumentException("Vote " + voteIndex + " is not sealed yet");
+        }
+        byte[][] level = leafHashes(block.firstIndex, block.count);
+        List<byte[]> siblings = new ArrayList<>();
+        List<Boolean> siblingOnLeft = new ArrayList<>();
+        int position = voteIndex - block.firstIndex;
+        while (level.length > 1) {
+            int sibling = position ^ 1;
+            if (sibling < level.length) {
+                siblings.add(level[sibling]);
+                siblingOnLeft.add(sibling < position);
+            }
+            level = parentLevel(level);
+            position >>>= 1;
+        }
+        String[] vote = new String[3];
+        long[] castAt = new long[1];
+        votes.forEach(voteIndex, voteIndex + 1, (index, voterId, candidate, station, epochMillis) -> {
+            vote[0] = voterId;
+            vote[1] = votes.candidateId(candidate);
+            vote[2] = votes.station(station);
+            castAt[0] = epochMillis;
+        });
+        return new InclusionProof(voteIndex, vote[0], vote[1], vote[2], castAt[0], block.number,
+            block.firstIndex, block.count, block.previousHash, block.merkleRoot, block.hash, siblings, siblingOnLeft);
+    }
+
+    // Rehashes every sealed block from the vote store in parallel. Blocks are independent given
+    // the stored headers, so each worker checks its block's root, header hash and link to the
+    // previous header on its own.
+    public LedgerVerification verify() {
+        Block[] snapshot;
+        lock.lock();
+        try {
+            snapshot = blocks.toArray(new Block[0]);
+        } finally {
+            lock.unlock();
+        }
+        long started = System.nanoTime();
+        int firstInvalid = IntStream.range(0, snapshot.length).parallel()
+            .filter(i -> !isValid(snapshot, i))
+            .min().orElse(-1);
+        long votesChecked = snapshot.length == 0 ? 0
+            : snapshot[snapshot.length - 1].firstIndex + snapshot[snapshot.length - 1].count;
+        return new LedgerVerification(snapshot.length, votesChecked, firstInvalid, System.nanoTime() - started);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(sealer);
+        try {
+            sealer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsHashers) {
+            hashers.shutdown();
+        }
+    }
+
+    private static ExecutorService hasherPool(int hashThreads) {
+        if (hashThreads < 1) {
+            throw new IllegalArgumentException("Hash threads must be positive");
+        }
+        AtomicInteger workerCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(hashThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ledger-hasher-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private boolean isValid(Block[] snapshot, int i) {
+        Block block = snapshot[i];
+        byte[] previous = i == 0 ? GENESIS : snapshot[i - 1].hash;
+        byte[] root = merkleRoot(block.firstIndex, block.count);
+        return root != null
+            && Arrays.equals(block.previousHash, previous)
+            && Arrays.equals(block.merkleRoot, root)
+            && Arrays.equals(block.hash, headerHash(block.number, block.firstIndex, block.count, previous, root));
+    }
+
+    private Block blockOf(int voteIndex) {
+        lock.lock();
+        try {
+            if (voteIndex < 0 || voteIndex >= sealedVotes) {
+                return null;
+            }
+            int low = 0;
+            int high = blocks.size() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (blocks.get(mid).firstIndex <= voteIndex) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return blocks.get(low);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        Deque<Pending> inFlight = new ArrayDeque<>();
+        int nextIndex = getSealedVotes();
+        int published = nextIndex;
+        long waitingSince = 0;
+        try {
+            while (true) {
+                published = votes.publishedUpTo(published);
+                long now = System.nanoTime();
+                if (published == nextIndex) {
+                    waitingSince = 0;
+                } else if (waitingSince == 0) {
+                    waitingSince = now;
+                }
+                while (inFlight.size() < MAX_BLOCKS_IN_FLIGHT && published > nextIndex) {
+                    int available = published - nextIndex;
+                    boolean due = available >= blockSize || nextIndex < flushTarget
+                        || now - waitingSince >= maxDelayNanos;
+                    if (!due) {
+                        break;
+                    }
+                    int first = nextIndex;
+                    int count = Math.min(available, blockSize);
+                    inFlight.add(new Pending(first, count,
+                        CompletableFuture.supplyAsync(() -> merkleRoot(first, count), hashers)));
+                    nextIndex += count;
+                    waitingSince = published == nextIndex ? 0 : now;
+                }
+                if (!inFlight.isEmpty()) {
+                    // Later blocks keep hashing while this one is chained
+                    chain(inFlight.poll());
+                } else if (closed) {
+                    return;
+                } else if (published > nextIndex) {
+                    // Wake when the block fills or its oldest vote has waited long enough
+                    votes.awaitClaimed(nextIndex + blockSize, maxDelayNanos - (now - waitingSince));
+                } else {
+                    votes.awaitClaimed(published + 1, Long.MAX_VALUE);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            lock.lock();
+            try {
+                failure = e;
+                sealed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void chain(Pending pending) {
+        byte[] root = pending.root.join();
+        if (root == null) {
+            throw new IllegalStateException("Votes " + pending.firstIndex + "+" + pending.count + " vanished from the store");
+        }
+        Block block;
+        lock.lock();
+        try {
+            byte[] previous = blocks.isEmpty() ? GENESIS : blocks.get(blocks.size() - 1).hash;
+            block = new Block(blocks.size(), pending.firstIndex, pending.count, previous, root);
+        } finally {
+            lock.unlock();
+        }
+        if (blockJournal != null) {
+            String[] voterIds = new String[pending.count];
+            votes.forEach(pending.firstIndex, pending.firstIndex + pending.count,
+                (index, voterId, candidate, station, epochMillis) -> voterIds[index - pending.firstIndex] = voterId);
+            try {
+                blockJournal.record(block, voterIds);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal ledger block " + block.number, e);
+            }
+        }
+        lock.lock();
+        try {
+            blocks.add(block);
+            sealedVotes = pending.firstIndex + pending.count;
+            sealed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Null if the store no longer holds count votes in the range
+    private byte[] merkleRoot(int firstIndex, int count) {
+        byte[][] level = leafHashes(firstIndex, count);
+        if (level == null) {
+            return null;
+        }
+        while (level.length > 1) {
+            level = parentLevel(level);
+        }
+        return level[0];
+    }
+
+    private byte[][] leafHashes(int firstIndex, int count) {
+        byte[][] leaves = new byte[count][];
+        int[] visited = new int[1];
+        votes.forEach(firstIndex, firstIndex + count, (index, voterId, candidate, station, epochMillis) -> {
+            leaves[index - firstIndex] = leafHash(index, voterId, votes.candidateId(candidate),
+                votes.station(station), epochMillis);
+            visited[0]++;
+        });
+        return visited[0] == count ? leaves : null;
+    }
+
+    private static byte[][] parentLevel(byte[][] level) {
+        byte[][] parents = new byte[(level.length + 1) / 2][];
+        for (int i = 0; i < parents.length; i++) {
+            int left = 2 * i;
+            parents[i] = left + 1 < level.length ? nodeHash(level[left], level[left + 1]) : level[left];
+        }
+        return parents;
+    }
+
+    // Streams the record into the digest, so a field of any length can be hashed
+    static byte[] leafHash(int index, String voterId, String candidateId, String votingStation, long castAtMillis) {
+        MessageDigest digest = SHA256.get();
+        ByteBuffer scratch = SCRATCH.get();
+        scratch.clear();
+        scratch.put((byte) 0).putInt(index).putLong(castAtMillis);
+        digest.update(scratch.array(), 0, scratch.position());
+        updateString(digest, scratch, voterId);
+        updateString(digest, scratch, candidateId);
+        updateString(digest, scratch, votingStation);
+        return digest.digest();
+    }
+
+    static byte[] nodeHash(byte[] left, byte[] right) {
+        MessageDigest digest = SHA256.get();
+        digest.update((byte) 1);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    static byte[] headerHash(long number, int firstIndex, int count, byte[] previousHash, byte[] merkleRoot) {
+        MessageDigest digest = SHA256.get();
+        digest.update((byte) 2);
+        digest.update(ByteBuffer.allocate(16).putLong(number).putInt(firstIndex).putInt(count).array());
+        digest.update(previousHash);
+        digest.update(merkleRoot);
+        return digest.digest();
+    }
+
+    static String hex(byte[] hash) {
+        return HexFormat.of().formatHex(hash);
+    }
+
+    // Length-prefixed UTF-8 (-1 for null), so field boundaries can't be shifted between fields
+    private static void updateString(MessageDigest digest, ByteBuffer scratch, String value) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        scratch.clear();
+        scratch.putInt(bytes == null ? -1 : bytes.length);
+        digest.update(scratch.array(), 0, scratch.position());
+        if (bytes != null) {
+            digest.update(bytes);
+        }
+    }
+}
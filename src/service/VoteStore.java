@@ -0,0 +1,294 @@
+package service;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+// Columnar, append-only vote storage. Candidates and stations are interned to dense int
+// ordinals; each vote is one slot across a voter-ID reference column, two int columns and a
+// long epoch-millis column, allocated in chunks so growth never copies. That is roughly 20 bytes
+// per vote plus the voter reference, instead of a Vote object with its own UUID string, a
+// LocalDateTime and a hash-set node. Chunks start at 1K votes and double up to 64K, so one of
+// many small contests hosted together doesn't hold a 1.3 MB chunk for a few hundred votes.
+//
+// Appends claim a slot with one atomic increment and publish it by writing the voter reference
+// last; readers skip slots that are claimed but not yet published. One follower thread (the
+// ledger sealer) can park in awaitClaimed() and is unparked by the append that reaches its mark.
+public class VoteStore {
+    public interface VoteVisitor {
+        void visit(int index, String voterId, int candidate, int station, long epochMillis);
+    }
+
+    private static final class Chunk {
+        final AtomicReferenceArray<String> voters;
+        final int[] candidates;
+        final int[] stations;
+        final long[] timestamps;
+
+        Chunk(int size) {
+            voters = new AtomicReferenceArray<>(size);
+            candidates = new int[size];
+            stations = new int[size];
+            timestamps = new long[size];
+        }
+    }
+
+    private volatile Chunks<Chunk> chunks = new Chunks<>(Chunk::new);
+    private final AtomicInteger claimed = new AtomicInteger();
+    private volatile Thread follower;
+    private volatile int wakeAt = Integer.MAX_VALUE;
+    private final LongAdder published = new LongAdder();
+    private final Interner candidates = new Interner();
+    private final Interner stations = new Interner();
+
+    public int append(String voterId, String candidateId, String votingStation, long epochMillis) {
+        int index = claimed.getAndIncrement();
+        if (index < 0) {
+            throw new IllegalStateException("Vote store is full");
+        }
+        int chunkIndex = Chunks.chunkOf(index);
+        Chunk chunk = chunks.getOrCreate(chunkIndex);
+        int slot = index - Chunks.chunkStart(chunkIndex);
+        chunk.candidates[slot] = candidates.intern(candidateId);
+        chunk.stations[slot] = stations.intern(votingStation == null ? "" : votingStation);
+        chunk.timestamps[slot] = epochMillis;
+        chunk.voters.set(slot, voterId);
+        published.increment();
+        if (index >= wakeAt) {
+            LockSupport.unpark(follower);
+        }
+        return index;
+    }
+
+    // Parks the follower until at least count votes have been claimed, it is unparked or the
+    // timeout passes. The mark is published before claimed is read, so an append racing with
+    // this call either is seen here or sees the mark and unparks.
+    public void awaitClaimed(int count, long timeoutNanos) {
+        follower = Thread.currentThread();
+        wakeAt = count - 1;
+        if (claimed.get() < count) {
+            LockSupport.parkNanos(this, timeoutNanos);
+        }
+        wakeAt = Integer.MAX_VALUE;
+    }
+
+    // Moves the vote at order[i] to index i. Recovery only: every claimed vote must be published,
+    // order must be a permutation of them, and no other thread may use the store meanwhile.
+    void reorder(int[] order) {
+        if (order.length != claimed.get()) {
+            throw new IllegalArgumentException("Reorder must cover every vote in the store");
+        }
+        Chunks<Chunk> reordered = new Chunks<>(Chunk::new);
+        for (int index = 0; index < order.length; index++) {
+            int fromChunk = Chunks.chunkOf(order[index]);
+            Chunk from = chunks.get(fromChunk);
+            int fromSlot = order[index] - Chunks.chunkStart(fromChunk);
+            int toChunk = Chunks.chunkOf(index);
+            Chunk to = reordered.getOrCreate(toChunk);
+            int slot = index - Chunks.chunkStart(toChunk);
+            to.candidates[slot] = from.candidates[fromSlot];
+            to.stations[slot] = from.stations[fromSlot];
+            to.timestamps[slot] = from.timestamps[fromSlot];
+            to.voters.set(slot, from.voters.get(fromSlot));
+        }
+        chunks = reordered;
+    }
+
+    // Number of fully written votes
+    public int size() {
+        return published.intValue();
+    }
+
+    public void forEach(VoteVisitor visitor) {
+        forEach(0, claimed.get(), visitor);
+    }
+
+    // Visits published votes with index in [from, to)
+    public void forEach(int from, int to, VoteVisitor visitor) {
+        int end = Math.min(to, claimed.get());
+        for (int index = from; index < end; ) {
+            int chunkIndex = Chunks.chunkOf(index);
+            int chunkStart = Chunks.chunkStart(chunkIndex);
+            int chunkEnd = (int) Math.min(end, (long) chunkStart + Chunks.chunkSize(chunkIndex));
+            Chunk chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                index = chunkEnd;
+                continue;
+            }
+            for (; index < chunkEnd; index++) {
+                int slot = index - chunkStart;
+                String voterId = chunk.voters.get(slot);
+                if (voterId != null) {
+                    visitor.visit(index, voterId, chunk.candidates[slot], chunk.stations[slot],
+                        chunk.timestamps[slot]);
+                }
+            }
+        }
+    }
+
+    // First index at or after from whose vote is not yet published, so every vote in
+    // [from, result) can be read in order
+    public int publishedUpTo(int from) {
+        int end = claimed.get();
+        int index = from;
+        while (index < end) {
+            int chunkIndex = Chunks.chunkOf(index);
+            Chunk chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                break;
+            }
+            int chunkStart = Chunks.chunkStart(chunkIndex);
+            int chunkEnd = (int) Math.min(end, (long) chunkStart + Chunks.chunkSize(chunkIndex));
+            while (index < chunkEnd && chunk.voters.get(index - chunkStart) != null) {
+                index++;
+            }
+            if (index < chunkEnd) {
+                break;
+            }
+        }
+        return index;
+    }
+
+    // Upper bound (exclusive) of claimed indexes, for partitioning scans
+    public int capacityUsed() {
+        return claimed.get();
+    }
+
+    public long countForCandidate(String candidateId) {
+        int ordinal = candidates.lookup(candidateId);
+        if (ordinal < 0) {
+            return 0;
+        }
+        long[] count = new long[1];
+        forEach((index, voterId, candidate, station, epochMillis) -> {
+            if (candidate == ordinal) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    public int candidateOrdinal(String candidateId) { return candidates.lookup(candidateId); }
+    public String candidateId(int ordinal) { return candidates.value(ordinal); }
+    public int candidateCount() { return candidates.size(); }
+
+    public int stationOrdinal(String votingStation) { return stations.lookup(votingStation); }
+    public String station(int ordinal) { return stations.value(ordinal); }
+    public int stationCount() { return stations.size(); }
+
+    // Chunk directory for VoteStore and RankedBallotStore. Chunk 0 and 1 hold 1K slots each,
+    // every chunk after that twice its predecessor up to 64K, then 64K each, so chunk k covers
+    // [chunkStart(k), chunkStart(k) + chunkSize(k)). Chunks are only ever created, under the
+    // lock, which is also when the directory grows (by copying), so readers need no lock.
+    static final class Chunks<C> {
+        private static final int FIRST_CHUNK_BITS = 10;
+        private static final int CHUNK_BITS = 16;
+        // Chunks 0..GROWING_CHUNKS-1 cover [0, 1 << CHUNK_BITS)
+        private static final int GROWING_CHUNKS = CHUNK_BITS - FIRST_CHUNK_BITS + 1;
+
+        private final IntFunction<C> factory;
+        private volatile AtomicReferenceArray<C> directory = new AtomicReferenceArray<>(16);
+
+        Chunks(IntFunction<C> factory) {
+            this.factory = factory;
+        }
+
+        static int chunkOf(int index) {
+            if (index >= 1 << CHUNK_BITS) {
+                return (index >>> CHUNK_BITS) + GROWING_CHUNKS - 1;
+            }
+            return Math.max(0, Integer.numberOfLeadingZeros(1 << FIRST_CHUNK_BITS)
+                - Integer.numberOfLeadingZeros(index) + 1);
+        }
+
+        static int chunkStart(int chunk) {
+            if (chunk >= GROWING_CHUNKS) {
+                return (chunk - GROWING_CHUNKS + 1) << CHUNK_BITS;
+            }
+            return chunk == 0 ? 0 : 1 << (FIRST_CHUNK_BITS + chunk - 1);
+        }
+
+        static int chunkSize(int chunk) {
+            if (chunk >= GROWING_CHUNKS) {
+                return 1 << CHUNK_BITS;
+            }
+            return 1 << (FIRST_CHUNK_BITS + Math.max(0, chunk - 1));
+        }
+
+        // Null if the chunk hasn't been created yet
+        C get(int chunk) {
+            AtomicReferenceArray<C> current = directory;
+            return chunk < current.length() ? current.get(chunk) : null;
+        }
+
+        C getOrCreate(int chunk) {
+            C existing = get(chunk);
+            return existing != null ? existing : create(chunk);
+        }
+
+        private synchronized C create(int chunk) {
+            AtomicReferenceArray<C> current = directory;
+            if (chunk >= current.length()) {
+                AtomicReferenceArray<C> grown = new AtomicReferenceArray<>(Math.max(chunk + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                directory = grown;
+                current = grown;
+            }
+            C created = current.get(chunk);
+            if (created == null) {
+                created = factory.apply(chunkSize(chunk));
+                current.set(chunk, created);
+            }
+            return created;
+        }
+    }
+
+    // Maps strings to dense ordinals (RankedBallotStore uses one too); the set of candidates and
+    // stations is small, so the reverse table is a copy-on-grow array published through a
+    // volatile field.
+    static final class Interner {
+        private final ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[16];
+        private int size;
+
+        int intern(String value) {
+            Integer ordinal = ordinals.get(value);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            synchronized (this) {
+                ordinal = ordinals.get(value);
+                if (ordinal != null) {
+                    return ordinal;
+                }
+                String[] current = values;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, size * 2);
+                }
+                current[size] = value;
+                values = current;
+                ordinals.put(value, size);
+                return size++;
+            }
+        }
+
+        int lookup(String value) {
+            Integer ordinal = value == null ? null : ordinals.get(value);
+            return ordinal == null ? -1 : ordinal;
+        }
+
+        String value(int ordinal) {
+            return values[ordinal];
+        }
+
+        int size() {
+            return ordinals.size();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package service;
+
+import model.Voter;
+import exception.VotingException;
+import util.ConcurrentLongMap;
+import util.Ids;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Voter store with unique secondary indexes on national ID and email.
+// All lookups are single hash probes; registration reserves every key or none.
+// Voter IDs from util.Ids are keyed by their 64-bit value in a primitive map; any other ID
+// (e.g. UUIDs replayed from an older journal) goes to a string-keyed map instead.
+public class VoterRegistry {
+    private final ConcurrentLongMap<Voter> byId = new ConcurrentLongMap<>();
+    private final Map<String, Voter> byLegacyId = new ConcurrentHashMap<>();
+    private final Map<String, Voter> byNationalId;
+    private final Map<String, Voter> byEmail;
+
+    public VoterRegistry() {
+        this(16);
+    }
+
+    // Sizes the unique indexes up front, e.g. when restoring a snapshot of known size
+    public VoterRegistry(int expectedVoters) {
+        byNationalId = new ConcurrentHashMap<>(expectedVoters);
+        byEmail = new ConcurrentHashMap<>(expectedVoters);
+    }
+
+    public void register(Voter voter) throws VotingException {
+        String rejection = tryRegister(voter);
+        if (rejection != null) {
+            throw new VotingException(rejection);
+        }
+    }
+
+    // Returns null on success, otherwise the rejection reason. Used by bulk import
+    // so duplicate rows don't each pay for an exception.
+    public String tryRegister(Voter voter) {
+        String nationalId = normalizeNationalId(voter.getNationalId());
+        String email = normalizeEmail(voter.getEmail());
+
+        // Reserve the unique keys first and publish by ID last, so a voter is only
+        // visible to castVote once every index agrees. Losers roll back what they took.
+        if (byNationalId.putIfAbsent(nationalId, voter) != null) {
+            return "Voter already registered";
+        }
+        if (byEmail.putIfAbsent(email, voter) != null) {
+            byNationalId.remove(nationalId, voter);
+            return "Email already registered";
+        }
+        if (putById(voter) != null) {
+            byEmail.remove(email, voter);
+            byNationalId.remove(nationalId, voter);
+            return "Voter already registered";
+        }
+        return null;
+    }
+
+    // Undoes a registration that could not be made durable
+    void unregister(Voter voter) {
+        long id = voter.getNumericId();
+        if (id >= 0) {
+            byId.remove(id, voter);
+        } else {
+            byLegacyId.remove(voter.getId(), voter);
+        }
+        byEmail.remove(normalizeEmail(voter.getEmail()), voter);
+        byNationalId.remove(normalizeNationalId(voter.getNationalId()), voter);
+    }
+
+    public Voter getById(String voterId) {
+        if (voterId == null) {
+            return null;
+        }
+        long id = Ids.parse(voterId);
+        return id >= 0 ? byId.get(id) : byLegacyId.get(voterId);
+    }
+
+    public Voter getByNationalId(String nationalId) {
+        return nationalId == null ? null : byNationalId.get(normalizeNationalId(nationalId));
+    }
+
+    public Voter getByEmail(String email) {
+        return email == null ? null : byEmail.get(normalizeEmail(email));
+    }
+
+    public boolean containsNationalId(String nationalId) {
+        return getByNationalId(nationalId) != null;
+    }
+
+    public boolean containsEmail(String email) {
+        return getByEmail(email) != null;
+    }
+
+    public int size() {
+        return byId.size() + byLegacyId.size();
+    }
+
+    public Collection<Voter> getAll() {
+        List<Voter> all = byId.values();
+        all.addAll(byLegacyId.values());
+        return Collections.unmodifiableCollection(all);
+    }
+
+    private Voter putById(Voter voter) {
+        long id = voter.getNumericId();
+        return id >= 0 ? byId.putIfAbsent(id, voter) : byLegacyId.putIfAbsent(voter.getId(), voter);
+    }
+
+    static String normalizeNationalId(String nationalId) {
+        return nationalId.trim();
+    }
+
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,338 @@
+package ui;
+
+import model.*;
+import service.*;
+import exception.VotingException;
+import util.Json;
+import util.MetricsRegistry;
+import util.ReadCache;
+import util.ValidationUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP/JSON front end for remote polling stations, on the JDK's built-in server.
+//
+//   POST   /api/voters      {name, email, nationalId, password}  -> 201 {voterId}
+//   POST   /api/sessions    {email, password}                    -> 201 {sessionId}
+//   DELETE /api/sessions    (Authorization: Bearer <sessionId>)  -> 204
+//   POST   /api/votes       {candidateId, station} (Bearer)      -> 201 {status}
+//   GET    /api/candidates                                       -> 200 [{id, name, party}]
+//   GET    /api/candidates/<id>                                  -> 200 {id, name, party, manifesto,
+//                                                                        background, imageUrl}
+//   GET    /api/results     (once the election is closed)        -> 200 [{candidateId, name, party, votes}]
+//   GET    /api/statistics                                       -> 200 {totalVoters, ...}
+//   GET    /metrics         (Prometheus text format)             -> 200
+//
+// Rejected requests get {"error": message}, plus "reason" (a RejectReason name such as
+// ALREADY_VOTED) when validation refused them: 400 for invalid input, 401 for bad credentials
+// or sessions, 409 for a second vote or when the election is in the wrong phase, and 429 or
+// 503 (with Retry-After) when password checks are refused or time out under load.
+//
+// Start the JVM with -Dsun.net.httpserver.nodelay=true (Main sets it): the JDK server writes
+// headers and body separately, and with Nagle's algorithm on the body waits for the client's
+// delayed ACK, adding ~40 ms to every keep-alive request.
+//
+// Candidate listings, profiles and results are served from pre-serialized payloads, rebuilt
+// only when the candidate list or the results snapshot changes, with concurrent misses for the
+// same payload sharing one build.
+//
+// Each request runs on its own thread. On a JDK with virtual threads that is a new virtual
+// thread per request; otherwise it is a bounded pool of platform threads, sized so requests
+// blocked on password hashing or journal fsyncs don't hold up the rest.
+public class ElectionHttpServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int BACKLOG = 16_384;
+    private static final int PLATFORM_THREADS = 256;
+    private static final long MAX_CACHED_PAYLOAD_BYTES = 32L << 20;
+    private static final String PROFILE_ROUTE = "GET /api/candidates/";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ElectionService electionService;
+    private final AuthenticationService authService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ReadCache<String, byte[]> payloads =
+        new ReadCache<>(MAX_CACHED_PAYLOAD_BYTES, payload -> payload.length, "cache", "http");
+
+    public ElectionHttpServer(ElectionService electionService, AuthenticationService authService,
+                              InetSocketAddress address) throws IOException {
+        this.electionService = electionService;
+        this.authService = authService;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = requestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.createContext("/metrics", this::scrape);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String route = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+            try {
+                switch (route) {
+                    case "POST /api/voters" -> register(exchange);
+                    case "POST /api/sessions" -> login(exchange);
+                    case "DELETE /api/sessions" -> logout(exchange);
+                    case "POST /api/votes" -> castVote(exchange);
+                    case "GET /api/candidates" -> candidates(exchange);
+                    case "GET /api/results" -> results(exchange);
+                    case "GET /api/statistics" -> statistics(exchange);
+                    default -> {
+                        if (route.startsWith(PROFILE_ROUTE)) {
+                            candidate(exchange, route.substring(PROFILE_ROUTE.length()));
+                        } else {
+                            sendError(exchange, 404, "No such endpoint: " + route);
+                        }
+                    }
+                }
+            } catch (AuthenticationException e) {
+                sendError(exchange, 401, e.getMessage());
+            } catch (VotingException e) {
+                sendError(exchange, statusFor(e), e);
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, "Internal error");
+            }
+        }
+    }
+
+    private void register(HttpExchange exchange) throws IOException, VotingException {
+        Map<String, String> body = readBody(exchange);
+        Voter voter = new Voter(required(body, "name"), required(body, "email"),
+            required(body, "nationalId"), authService.hashPassword(required(body, "password")));
+        electionService.registerVoter(voter);
+        send(exchange, 201, "{\"voterId\":" + Json.quote(voter.getId()) + "}");
+    }
+
+    private void login(HttpExchange exchange) throws IOException, VotingException {
+        Map<String, String> body = readBody(exchange);
+        Voter voter = electionService.findVoterByEmail(required(body, "email"));
+        String sessionId = authService.login(voter, required(body, "password"));
+        send(exchange, 201, "{\"sessionId\":" + Json.quote(sessionId) + "}");
+    }
+
+    private void logout(HttpExchange exchange) throws IOException {
+        String sessionId = bearerToken(exchange);
+        if (sessionId != null) {
+            authService.logout(sessionId);
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void castVote(HttpExchange exchange) throws IOException, VotingException {
+        String voterId = authenticate(exchange);
+        Map<String, String> body = readBody(exchange);
+        electionService.castVote(voterId, required(body, "candidateId"), required(body, "station"));
+        send(exchange, 201, "{\"status\":\"accepted\"}");
+    }
+
+    private void candidates(HttpExchange exchange) throws IOException {
+        send(exchange, 200, payloads.get("candidates", electionService.getCandidatesVersion(), () -> {
+            List<Candidate> candidates = electionService.getCandidates();
+            StringBuilder json = new StringBuilder(64 * candidates.size() + 2).append('[');
+            for (int i = 0; i < candidates.size(); i++) {
+                Candidate candidate = candidates.get(i);
+                json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(Json.quote(candidate.getId()))
+                    .append(",\"name\":").append(Json.quote(candidate.getName()))
+                    .append(",\"party\":").append(Json.quote(candidate.getParty()))
+                    .append('}');
+            }
+            return utf8(json.append(']'));
+        }));
+    }
+
+    private void candidate(HttpExchange exchange, String candidateId) throws IOException {
+        Candidate candidate = electionService.getCandidate(candidateId);
+        if (candidate == null) {
+            sendError(exchange, 404, "No such candidate");
+            return;
+        }
+        send(exchange, 200, payloads.get("candidate/" + candidateId, electionService.getCandidatesVersion(),
+            () -> utf8(new StringBuilder(256)
+                .append("{\"id\":").append(Json.quote(candidate.getId()))
+                .append(",\"name\":").append(Json.quote(candidate.getName()))
+                .append(",\"party\":").append(Json.quote(candidate.getParty()))
+                .append(",\"manifesto\":").append(Json.quote(candidate.getManifesto()))
+                .append(",\"background\":").append(Json.quote(candidate.getBackground()))
+                .append(",\"imageUrl\":").append(Json.quote(candidate.getImageUrl()))
+                .append('}'))));
+    }
+
+    private void results(HttpExchange exchange) throws IOException, VotingException {
+        ResultsSnapshot snapshot = electionService.getLiveResults();
+        ValidationUtil.validateElectionStatus(snapshot.getStatus(), ElectionService.ElectionStatus.CLOSED);
+        send(exchange, 200, payloads.get("results", snapshot.getVersion(), () -> {
+            List<ResultsSnapshot.CandidateResult> ranked = snapshot.getRanked();
+            StringBuilder json = new StringBuilder(96 * ranked.size() + 2).append('[');
+            for (int i = 0; i < ranked.size(); i++) {
+                ResultsSnapshot.CandidateResult result = ranked.get(i);
+                json.append(i == 0 ? "" : ",")
+                    .append("{\"candidateId\":").append(Json.quote(result.getCandidateId()))
+                    .append(",\"name\":").append(Json.quote(result.getName()))
+                    .append(",\"party\":").append(Json.quote(result.getParty()))
+                    .append(",\"votes\":").append(result.getVotes())
+                    .append('}');
+            }
+            return utf8(json.append(']'));
+        }));
+    }
+
+    private void statistics(HttpExchange exchange) throws IOException {
+        ElectionService.ElectionStatistics stats = electionService.getStatistics();
+        send(exchange, 200, String.format(
+            "{\"totalVoters\":%d,\"totalVotes\":%d,\"turnoutPercentage\":%.2f,\"totalCandidates\":%d,\"status\":%s}",
+            stats.getTotalVoters(), stats.getTotalVotes(), stats.getTurnoutPercentage(),
+            stats.getTotalCandidates(), Json.quote(stats.getStatus().name())));
+    }
+
+    private String authenticate(HttpExchange exchange) throws VotingException {
+        String sessionId = bearerToken(exchange);
+        if (sessionId == null) {
+            throw new AuthenticationException("Missing session");
+        }
+        try {
+            return authService.getVoterId(sessionId);
+        } catch (VotingException e) {
+            throw new AuthenticationException(e.getMessage());
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return header.substring("Bearer ".length()).trim();
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException, VotingException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new VotingException("Request body too large");
+            }
+            return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> body, String field) throws VotingException {
+        String value = body.get(field);
+        if (value == null || value.isBlank()) {
+            throw new VotingException("Missing field: " + field);
+        }
+        return value;
+    }
+
+    private static int statusFor(VotingException e) {
+        if (e.getReason() == null) {
+            return 400;
+        }
+        return switch (e.getReason()) {
+            case ELECTION_STATUS, ALREADY_VOTED -> 409;
+            case INVALID_SESSION, INVALID_CREDENTIALS -> 401;
+            case VERIFIER_BUSY -> 429;
+            case VERIFIER_TIMEOUT -> 503;
+            default -> 400;
+        };
+    }
+
+    private void scrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] bytes = MetricsRegistry.getDefault().scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    // Rejections also carry their reason code, so clients can tell a duplicate from a bad request
+    private static void sendError(HttpExchange exchange, int status, VotingException e) throws IOException {
+        if (status == 429 || status == 503) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+        }
+        if (e.getReason() == null) {
+            sendError(exchange, status, e.getMessage());
+        } else {
+            send(exchange, status, "{\"error\":" + Json.quote(e.getMessage())
+                + ",\"reason\":" + Json.quote(e.getReason().name()) + "}");
+        }
+    }
+
+    private static byte[] utf8(CharSequence json) {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, utf8(json));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Virtual thread per request when the running JDK has them (21+); looked up reflectively
+    // so the code still builds and runs on 17
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(PLATFORM_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "http-request-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Marks failures that should be answered with 401 rather than 400
+    private static final class AuthenticationException extends VotingException {
+        private static final long serialVersionUID = 1L;
+
+        AuthenticationException(String message) {
+            super(message);
+        }
+    }
+}
@@ -3,21 +3,54 @@ package ui;
 import model.*;
 import service.*;
 import exception.VotingException;
+import util.ElectionLogger;
 import java.util.*;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class ElectionUI {
     private final Scanner scanner;
-    private final ElectionService electionService;
+    private final ElectionHost host;
     private final AuthenticationService authService;
+    private ElectionService electionService;
     private String currentSession;
 
     public ElectionUI() {
+        this(hostWithGeneralElection());
+    }
+
+    private ElectionUI(ElectionHost host) {
+        this(host, host.getElections().get(0));
+    }
+
+    // Runs every election on the host from one console: the menus act on the selected election,
+    // and a login stays valid across elections, so a voter can vote in each contest in turn.
+    // Shares the services with other front ends, e.g. the HTTP server, so an operator can run
+    // the elections from the console while polling stations vote remotely
+    public ElectionUI(ElectionHost host, ElectionService electionService) {
         this.scanner = new Scanner(System.in);
-        this.electionService = new ElectionService("General Election 2024", 
-            LocalDateTime.now().plusDays(30));
-        this.authService = new AuthenticationService();
+        this.host = host;
+        this.authService = host.getAuthenticationService();
+        this.electionService = electionService;
+    }
+
+    // A single election with no host; the console can't switch elections
+    public ElectionUI(ElectionService electionService, AuthenticationService authService) {
+        this.scanner = new Scanner(System.in);
+        this.host = null;
+        this.authService = authService;
+        this.electionService = electionService;
+    }
+
+    private static ElectionHost hostWithGeneralElection() {
+        ElectionHost host = new ElectionHost(new ElectionLogger());
+        try {
+            host.createElection("General Election 2024", LocalDateTime.now().plusDays(30));
+        } catch (VotingException e) {
+            throw new IllegalStateException(e);
+        }
+        return host;
     }
 
     public void start() {
@@ -31,7 +64,8 @@ public class ElectionUI {
                     case 1 -> adminMenu();
                     case 2 -> voterMenu();
                     case 3 -> viewResults();
-                    case 4 -> {
+                    case 4 -> switchElection();
+                    case 5 -> {
                         System.out.println("Exiting system...");
                         return;
                     }
@@ -45,11 +79,12 @@ public class ElectionUI {
     }
 
     private void showMainMenu() {
-        System.out.println("\n=== Election System ===");
+        System.out.println("\n=== Election System: " + electionService.getElectionName() + " ===");
         System.out.println("1. Admin Access");
         System.out.println("2. Voter Access");
         System.out.println("3. View Results");
-        System.out.println("4. Exit");
+        System.out.println("4. Switch Election");
+        System.out.println("5. Exit");
         System.out.print("Choose an option: ");
     }
 
@@ -62,7 +97,9 @@ public class ElectionUI {
             System.out.println("4. Open Voting");
             System.out.println("5. Close Election");
             System.out.println("6. View Statistics");
-            System.out.println("7. Back to Main Menu");
+            System.out.println("7. Import Candidates (CSV)");
+            System.out.println("8. Import Voters (CSV)");
+            System.out.println("9. Back to Main Menu");
             System.out.print("Choose an option: ");
 
             try {
@@ -76,7 +113,9 @@ public class ElectionUI {
                     case 4 -> electionService.openVoting();
                     case 5 -> electionService.closeElection();
                     case 6 -> viewStatistics();
-                    case 7 -> {
+                    case 7 -> importCandidates();
+                    case 8 -> importVoters();
+                    case 9 -> {
                         return;
                     }
                     default -> System.out.println("Invalid choice. Please try again.");
@@ -117,6 +156,33 @@ public class ElectionUI {
         }
     }
 
+    private void switchElection() throws VotingException {
+        if (host == null) {
+            throw new VotingException("This console runs a single election");
+        }
+        List<ElectionService> elections = host.getElections();
+        System.out.println("\n=== Elections ===");
+        for (int i = 0; i < elections.size(); i++) {
+            ElectionService election = elections.get(i);
+            System.out.printf("%d. %s (%s)%n", i + 1, election.getElectionName(), election.getStatus());
+        }
+        System.out.printf("%d. New Election%n", elections.size() + 1);
+        System.out.print("Choose an option: ");
+        int choice = scanner.nextInt();
+        scanner.nextLine(); // Consume newline
+
+        if (choice == elections.size() + 1) {
+            System.out.print("Enter election name: ");
+            String name = scanner.nextLine().trim();
+            electionService = host.createElection(name, LocalDateTime.now().plusDays(30));
+            System.out.println("Election created!");
+        } else if (choice >= 1 && choice <= elections.size()) {
+            electionService = elections.get(choice - 1);
+        } else {
+            System.out.println("Invalid choice. Please try again.");
+        }
+    }
+
     private void addCandidate() throws VotingException {
         System.out.println("\n=== Add New Candidate ===");
         System.out.print("Enter candidate name: ");
@@ -139,6 +205,28 @@ public class ElectionUI {
         System.out.println("Candidate added successfully!");
     }
 
+    private void importCandidates() throws Exception {
+        System.out.print("Enter candidate CSV path: ");
+        ImportReport report = electionService.importCandidates(Paths.get(scanner.nextLine().trim()));
+        printImportReport(report);
+    }
+
+    private void importVoters() throws Exception {
+        System.out.print("Enter voter CSV path: ");
+        ImportReport report = electionService.importVoters(Paths.get(scanner.nextLine().trim()));
+        printImportReport(report);
+    }
+
+    private void printImportReport(ImportReport report) {
+        System.out.println(report);
+        report.getRejects().stream()
+            .limit(20)
+            .forEach(reject -> System.out.println("  " + reject));
+        if (report.getRejected() > 20) {
+            System.out.printf("  ... and %d more rejected rows%n", report.getRejected() - 20);
+        }
+    }
+
     private void registerVoter() throws VotingException {
         System.out.println("\n=== Voter Registration ===");
         System.out.print("Enter your name: ");
@@ -153,7 +241,7 @@ public class ElectionUI {
         System.out.print("Create password: ");
         String password = scanner.nextLine();
 
-        Voter voter = new Voter(name, email, nationalId, password);
+        Voter voter = new Voter(name, email, nationalId, authService.hashPassword(password));
         electionService.registerVoter(voter);
         System.out.println("Registration successful! Please wait for verification.");
     }
@@ -165,9 +253,7 @@ public class ElectionUI {
         System.out.print("Enter password: ");
         String password = scanner.nextLine();
 
-        // In a real system, you would look up the voter by email
-        // This is simplified for demonstration
-        currentSession = "dummy-session";
+        currentSession = authService.login(electionService.findVoterByEmail(email), password);
         System.out.println("Login successful!");
     }
 
@@ -190,7 +276,12 @@ public class ElectionUI {
 
     private void viewCandidates() {
         System.out.println("\n=== Candidates ===");
-        // Implementation to display candidates
+        for (Candidate candidate : electionService.getCandidates()) {
+            System.out.printf("%s  %s (%s)%n", candidate.getId(), candidate.getName(), candidate.getParty());
+            if (candidate.getManifesto() != null && !candidate.getManifesto().isEmpty()) {
+                System.out.printf("    Manifesto: %s%n", candidate.getManifesto());
+            }
+        }
     }
 
     private void viewResults() throws VotingException {
@@ -208,5 +299,13 @@ public class ElectionUI {
         System.out.printf("Turnout: %.2f%%%n", stats.getTurnoutPercentage());
         System.out.printf("Total Candidates: %d%n", stats.getTotalCandidates());
         System.out.printf("Election Status: %s%n", stats.getStatus());
+
+        Map<String, Long> stations = electionService.getStationTurnout();
+        if (!stations.isEmpty()) {
+            System.out.println("Votes by Station:");
+            new TreeMap<>(stations).forEach((station, votes) ->
+                System.out.printf("  %s: %d%n", station, votes));
+        }
+        System.out.println(authService.getSessionMetrics());
     }
 }
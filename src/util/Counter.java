@@ -0,0 +1,31 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic event count. Increments from many threads land in separate LongAdder cells, so the
+// hot path neither contends nor allocates once the cells exist.
+public final class Counter implements MetricsRegistry.CounterMXBean {
+    private final LongAdder count = new LongAdder();
+    private final boolean enabled;
+
+    Counter(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void increment() {
+        if (enabled) {
+            count.increment();
+        }
+    }
+
+    public void add(long amount) {
+        if (enabled) {
+            count.add(amount);
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
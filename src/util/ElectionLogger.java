@@ -1,39 +1,267 @@
 package util;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-public class ElectionLogger {
-    private final List<LogEntry> logs = new ArrayList<>();
-    private final DateTimeFormatter formatter = 
+// logAction only stamps the entry and offers it to a lock-free ring buffer; a daemon writer
+// thread formats entries in batches, appends them to a rolling log file through a FileChannel,
+// optionally echoes them to the console and keeps a bounded tail for getLogs(). An idle writer
+// parks until the next producer unparks it.
+public class ElectionLogger implements AutoCloseable {
+    private static final DateTimeFormatter FORMATTER =
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int WRITE_BATCH = 1024;
+
+    public enum OverflowPolicy {
+        BLOCK,          // caller waits for the writer to free a slot; nothing is lost
+        DROP_AND_COUNT  // caller returns at once; the entry is discarded and counted
+    }
+
+    private final RingBuffer<LogEntry> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final Path logFile;
+    private final long maxFileBytes;
+    private final int maxRolledFiles;
+    private final boolean echoToConsole;
+    private final int tailSize;
+    private final ArrayDeque<LogEntry> tail;
+    private final AtomicLong dropped = new AtomicLong();
+    // Entries fully handled by the writer: echoed, written to the file and kept in the tail
+    private final AtomicLong written = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    private FileChannel channel;
+    private long fileBytes;
+
+    // Console-only logger. A burst that outruns the console is dropped and counted rather
+    // than stalling the voting threads that log it.
+    public ElectionLogger() {
+        this(null, 8192, OverflowPolicy.DROP_AND_COUNT, true, 1000);
+    }
+
+    private static class Console {
+        static final ElectionLogger INSTANCE = new ElectionLogger();
+    }
+
+    // One console logger per process for callers that don't manage a logger's lifetime; it is
+    // never closed and its daemon writer lives as long as the JVM.
+    public static ElectionLogger console() {
+        return Console.INSTANCE;
+    }
+
+    public ElectionLogger(Path logFile, int bufferCapacity, OverflowPolicy overflowPolicy,
+                          boolean echoToConsole, int tailSize) {
+        this(logFile, bufferCapacity, overflowPolicy, echoToConsole, tailSize, 64L << 20, 5);
+    }
+
+    public ElectionLogger(Path logFile, int bufferCapacity, OverflowPolicy overflowPolicy,
+                          boolean echoToConsole, int tailSize, long maxFileBytes, int maxRolledFiles) {
+        this.buffer = new RingBuffer<>(bufferCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.logFile = logFile;
+        this.maxFileBytes = maxFileBytes;
+        this.maxRolledFiles = maxRolledFiles;
+        this.echoToConsole = echoToConsole;
+        this.tailSize = tailSize;
+        this.tail = new ArrayDeque<>(Math.min(tailSize, 1024));
+        if (logFile != null) {
+            openLogFile();
+        }
+        this.writer = new Thread(this::writeLoop, "election-logger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
 
     public void logAction(String message) {
-        LogEntry entry = new LogEntry(LocalDateTime.now(), message);
-        logs.add(entry);
-        System.out.println(entry); // For immediate console feedback
+        LogEntry entry = new LogEntry(System.currentTimeMillis(), message);
+        if (buffer.offer(entry)) {
+            wakeWriter();
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_AND_COUNT || !running) {
+            dropped.incrementAndGet();
+            return;
+        }
+        while (!buffer.offer(entry)) {
+            LockSupport.parkNanos(10_000);
+        }
+        wakeWriter();
+    }
+
+    private void wakeWriter() {
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
     }
 
     public List<LogEntry> getLogs() {
-        return new ArrayList<>(logs);
+        synchronized (tail) {
+            return new ArrayList<>(tail);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Waits until every entry logged before this call has been written out.
+    public void flush() {
+        long target = buffer.producedCount();
+        while (written.get() < target && writer.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        StringBuilder batch = new StringBuilder(WRITE_BATCH * 64);
+        List<LogEntry> drained = new ArrayList<>(WRITE_BATCH);
+        while (running || buffer.consumedCount() < buffer.producedCount()) {
+            int count = buffer.drain(drained::add, WRITE_BATCH);
+            if (count == 0) {
+                // Publish idle before the final emptiness check: a producer that offers after
+                // the check is guaranteed to see the flag and unpark us
+                idle = true;
+                if (running && buffer.consumedCount() == buffer.producedCount()) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            for (LogEntry entry : drained) {
+                batch.append(entry).append(System.lineSeparator());
+            }
+            write(batch);
+            remember(drained);
+            written.addAndGet(count);
+            drained.clear();
+            batch.setLength(0);
+        }
+        closeLogFile();
+    }
+
+    private void remember(List<LogEntry> entries) {
+        if (tailSize <= 0) {
+            return;
+        }
+        synchronized (tail) {
+            for (LogEntry entry : entries) {
+                if (tail.size() == tailSize) {
+                    tail.pollFirst();
+                }
+                tail.addLast(entry);
+            }
+        }
+    }
+
+    private void write(StringBuilder batch) {
+        if (echoToConsole) {
+            System.out.print(batch);
+        }
+        if (channel == null) {
+            return;
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(batch.toString());
+        try {
+            if (fileBytes > 0 && fileBytes + bytes.remaining() > maxFileBytes) {
+                roll();
+            }
+            while (bytes.hasRemaining()) {
+                fileBytes += channel.write(bytes);
+            }
+        } catch (IOException e) {
+            System.err.println("Election log write failed: " + e.getMessage());
+        }
+    }
+
+    private void roll() throws IOException {
+        closeLogFile();
+        for (int i = maxRolledFiles - 1; i >= 1; i--) {
+            Path older = rolledFile(i);
+            if (Files.exists(older)) {
+                Files.move(older, rolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxRolledFiles > 0) {
+            Files.move(logFile, rolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(logFile);
+        }
+        openLogFile();
+    }
+
+    private Path rolledFile(int index) {
+        return logFile.resolveSibling(logFile.getFileName() + "." + index);
+    }
+
+    private void openLogFile() {
+        try {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            fileBytes = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open election log " + logFile, e);
+        }
+    }
+
+    private void closeLogFile() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Election log close failed: " + e.getMessage());
+        }
+        channel = null;
     }
 
     private static class LogEntry {
-        private final LocalDateTime timestamp;
+        private final long timestampMillis;
         private final String message;
 
-        public LogEntry(LocalDateTime timestamp, String message) {
-            this.timestamp = timestamp;
+        public LogEntry(long timestampMillis, String message) {
+            this.timestampMillis = timestampMillis;
             this.message = message;
         }
 
+        public LocalDateTime getTimestamp() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault());
+        }
+
         @Override
         public String toString() {
-            return String.format("[%s] %s", 
-                timestamp.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                message);
+            return "[" + FORMATTER.format(getTimestamp()) + "] " + message;
         }
     }
 }
@@ -0,0 +1,77 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Admission gate for operations that must not overlap a state change, e.g. votes and closing
+// the election. Callers enter() and exit() around the operation; close() stops new entries and
+// waits until everyone already inside has left. The count of callers inside is striped by
+// thread, one cache line per stripe, so entering costs one uncontended atomic increment and a
+// volatile read, and callers on different threads never write the same line.
+//
+// A caller increments its stripe before reading the open flag and close() clears the flag
+// before reading the stripes, so either the caller sees the gate closed and backs out, or
+// close() sees it inside and waits for it.
+public final class EntryGate {
+    private static final int PAD = 16; // longs per stripe: 128 bytes, so neighbours don't share a line
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final AtomicLongArray inside;
+    private final int mask;
+    private volatile boolean open;
+
+    public EntryGate() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() * 2) {
+            stripes <<= 1;
+        }
+        this.inside = new AtomicLongArray(stripes * PAD);
+        this.mask = stripes - 1;
+    }
+
+    // Returns the stripe to pass to exit(), or -1 if the gate is closed
+    public int enter() {
+        int stripe = stripe();
+        inside.getAndIncrement(stripe * PAD);
+        if (open) {
+            return stripe;
+        }
+        inside.getAndDecrement(stripe * PAD);
+        return -1;
+    }
+
+    public void exit(int stripe) {
+        inside.getAndDecrement(stripe * PAD);
+    }
+
+    public void open() {
+        open = true;
+    }
+
+    // Callers still inside may be waiting on a journal fsync, so the wait spins briefly and then
+    // parks in short steps
+    public void close() {
+        open = false;
+        for (int stripe = 0; stripe <= mask; stripe++) {
+            int spins = 0;
+            while (inside.get(stripe * PAD) != 0) {
+                if (++spins < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
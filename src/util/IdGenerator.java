@@ -0,0 +1,11 @@
+package util;
+
+// Source of unique, positive 64-bit IDs. Implementations must be safe to call from any thread.
+public interface IdGenerator {
+    long nextId();
+
+    // Called with the highest ID recovered from storage; IDs issued afterwards must not repeat
+    // it, whatever the clock says
+    default void advancePast(long id) {
+    }
+}
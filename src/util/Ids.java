@@ -0,0 +1,74 @@
+package util;
+
+// Entry point for model IDs. IDs are 64-bit values from a pluggable IdGenerator and are only
+// turned into text at the edges, as 13 characters of Crockford base32. The text has a fixed
+// width, so it sorts in the same order as the numbers.
+public final class Ids {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    // -Dvoting.id.node=N gives every process sharing data its own node number, so IDs issued
+    // concurrently by different processes can't collide; nodeBits defaults to 8
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator(
+        Integer.getInteger("voting.id.node", 0),
+        Integer.getInteger("voting.id.nodeBits", System.getProperty("voting.id.node") == null ? 0 : 8));
+
+    private Ids() {
+    }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+
+    public static long next() {
+        return generator.nextId();
+    }
+
+    public static String nextString() {
+        return format(generator.nextId());
+    }
+
+    // Recovery hands over the highest replayed or restored ID, so a restarted process never
+    // reissues one, even if the clock has stepped back since
+    public static void advancePast(long id) {
+        if (id >= 0) {
+            generator.advancePast(id);
+        }
+    }
+
+    public static String format(long id) {
+        byte[] text = new byte[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            text[i] = (byte) ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(text, java.nio.charset.StandardCharsets.US_ASCII);
+    }
+
+    // Returns the ID for text produced by format(), or -1 for anything else (such as UUIDs from
+    // older data), so that parse and format round-trip exactly for every accepted string
+    public static long parse(String text) {
+        if (text == null || text.length() != LENGTH) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = text.charAt(i);
+            int digit = c < 128 ? DECODE[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            id = (id << 5) | digit;
+        }
+        // The first character only carries one bit; a 1 there would make the ID negative
+        return text.charAt(0) == '0' ? id : -1;
+    }
+}
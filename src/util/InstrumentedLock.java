@@ -0,0 +1,39 @@
+package util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// A reentrant lock that reports how often acquiring it had to wait, how long callers waited
+// and how long it was held (outermost hold only). The uncontended path is one tryLock and a
+// clock read on each side.
+public final class InstrumentedLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter contended;
+    private final LatencyTimer waited;
+    private final LatencyTimer held;
+    private long acquiredAt;
+
+    public InstrumentedLock(Counter contended, LatencyTimer waited, LatencyTimer held) {
+        this.contended = contended;
+        this.waited = waited;
+        this.held = held;
+    }
+
+    public void lock() {
+        if (!lock.tryLock()) {
+            long requested = System.nanoTime();
+            lock.lock();
+            contended.increment();
+            waited.recordSince(requested);
+        }
+        if (lock.getHoldCount() == 1) {
+            acquiredAt = System.nanoTime();
+        }
+    }
+
+    public void unlock() {
+        if (lock.getHoldCount() == 1) {
+            held.recordSince(acquiredAt);
+        }
+        lock.unlock();
+    }
+}
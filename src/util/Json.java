@@ -0,0 +1,148 @@
+package util;
+
+import exception.VotingException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Just enough JSON for the HTTP front end: request bodies are flat objects whose values are
+// strings, numbers, booleans or null, and responses are written with quote().
+public final class Json {
+    private Json() {
+    }
+
+    // Parses a flat object; every value is returned as its text (null for JSON null)
+    public static Map<String, String> parseObject(String text) throws VotingException {
+        Map<String, String> fields = new HashMap<>();
+        int[] pos = {skipWhitespace(text, 0)};
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}') {
+            pos[0]++;
+        } else {
+            while (true) {
+                String key = readString(text, pos);
+                expect(text, pos, ':');
+                fields.put(key, readValue(text, pos));
+                char next = peek(text, pos);
+                pos[0]++;
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw malformed(pos[0] - 1);
+                }
+            }
+        }
+        if (skipWhitespace(text, pos[0]) != text.length()) {
+            throw malformed(pos[0]);
+        }
+        return fields;
+    }
+
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    private static String readValue(String text, int[] pos) throws VotingException {
+        char c = peek(text, pos);
+        if (c == '"') {
+            return readString(text, pos);
+        }
+        int start = pos[0];
+        while (pos[0] < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos[0])) < 0) {
+            pos[0]++;
+        }
+        String literal = text.substring(start, pos[0]);
+        if (literal.equals("null")) {
+            return null;
+        }
+        if (literal.equals("true") || literal.equals("false") || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+            return literal;
+        }
+        throw malformed(start);
+    }
+
+    private static String readString(String text, int[] pos) throws VotingException {
+        expect(text, pos, '"');
+        StringBuilder out = new StringBuilder();
+        while (pos[0] < text.length()) {
+            char c = text.charAt(pos[0]++);
+            if (c == '"') {
+                return out.toString();
+            }
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            if (pos[0] >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(pos[0]++);
+            switch (escaped) {
+                case '"', '\\', '/' -> out.append(escaped);
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    if (pos[0] + 4 > text.length()) {
+                        throw malformed(pos[0]);
+                    }
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed(pos[0]);
+                    }
+                    pos[0] += 4;
+                }
+                default -> throw malformed(pos[0] - 1);
+            }
+        }
+        throw malformed(text.length());
+    }
+
+    private static void expect(String text, int[] pos, char expected) throws VotingException {
+        if (peek(text, pos) != expected) {
+            throw malformed(pos[0]);
+        }
+        pos[0]++;
+    }
+
+    // Skips whitespace and returns the next character, or 0 at the end of the text
+    private static char peek(String text, int[] pos) {
+        pos[0] = skipWhitespace(text, pos[0]);
+        return pos[0] < text.length() ? text.charAt(pos[0]) : 0;
+    }
+
+    private static int skipWhitespace(String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static VotingException malformed(int pos) {
+        return new VotingException("Malformed JSON at position " + pos);
+    }
+}
@@ -0,0 +1,82 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency histogram shared by many threads. Recording threads are spread over stripes by
+// thread ID; each stripe is one AtomicLongArray holding the LatencyHistogram buckets followed
+// by count, sum and max, so a record is a few atomic adds on memory other threads rarely touch,
+// and never allocates. Readers merge the stripes into a LatencyHistogram snapshot.
+public final class LatencyTimer implements MetricsRegistry.TimerMXBean {
+    private static final int STRIPES = Math.min(16,
+        Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+    private static final int COUNT = LatencyHistogram.BUCKETS;
+    private static final int SUM = COUNT + 1;
+    private static final int MAX = COUNT + 2;
+
+    private final AtomicLongArray[] stripes;
+    private final boolean enabled;
+
+    LatencyTimer(boolean enabled) {
+        this.enabled = enabled;
+        this.stripes = new AtomicLongArray[enabled ? STRIPES : 0];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLongArray(MAX + 1);
+        }
+    }
+
+    public void record(long nanos) {
+        if (!enabled) {
+            return;
+        }
+        long value = Math.max(0, nanos);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        stripe.getAndIncrement(LatencyHistogram.index(value));
+        stripe.getAndIncrement(COUNT);
+        stripe.getAndAdd(SUM, value);
+        long max = stripe.get(MAX);
+        while (value > max && !stripe.compareAndSet(MAX, max, value)) {
+            max = stripe.get(MAX);
+        }
+    }
+
+    public void recordSince(long startNanos) {
+        if (enabled) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    // Not an atomic cut across stripes; values recorded meanwhile may be partly included
+    public LatencyHistogram snapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (AtomicLongArray stripe : stripes) {
+            for (int bucket = 0; bucket < COUNT; bucket++) {
+                long count = stripe.get(bucket);
+                if (count > 0) {
+                    histogram.add(bucket, count);
+                }
+            }
+            histogram.addTotals(stripe.get(SUM), stripe.get(MAX));
+        }
+        return histogram;
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (AtomicLongArray stripe : stripes) {
+            count += stripe.get(COUNT);
+        }
+        return count;
+    }
+
+    @Override
+    public double getMeanMillis() { return snapshot().mean() / 1e6; }
+    @Override
+    public double getP50Millis() { return snapshot().percentile(50) / 1e6; }
+    @Override
+    public double getP99Millis() { return snapshot().percentile(99) / 1e6; }
+    @Override
+    public double getP999Millis() { return snapshot().percentile(99.9) / 1e6; }
+    @Override
+    public double getMaxMillis() { return snapshot().max() / 1e6; }
+}
@@ -0,0 +1,267 @@
+package util;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+// Named counters, gauges and latency timers, exposed as Prometheus-style text (scrape()) and,
+// once enableJmx() is called, as one MXBean per metric.
+//
+// Metrics are identified by name plus label pairs, e.g. counter("voting_votes_cast_total",
+// help, "election", name); asking again for the same identity returns the same instrument.
+// Gauges only hold their owner weakly, so a discarded service doesn't stay reachable through
+// the registry; its gauges disappear from the output once it is collected.
+//
+// A registry created with disabled() hands out instruments that record nothing, for measuring
+// the cost of the instrumentation itself.
+public final class MetricsRegistry {
+    private static volatile MetricsRegistry defaultRegistry = new MetricsRegistry(true);
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface GaugeMXBean {
+        double getValue();
+    }
+
+    public interface TimerMXBean {
+        long getCount();
+        double getMeanMillis();
+        double getP50Millis();
+        double getP99Millis();
+        double getP999Millis();
+        double getMaxMillis();
+    }
+
+    private static final class Gauge<T> implements GaugeMXBean {
+        private final WeakReference<T> owner;
+        private final ToDoubleFunction<T> value;
+
+        Gauge(T owner, ToDoubleFunction<T> value) {
+            this.owner = new WeakReference<>(owner);
+            this.value = value;
+        }
+
+        boolean isLive() {
+            return owner.get() != null;
+        }
+
+        @Override
+        public double getValue() {
+            T current = owner.get();
+            return current == null ? Double.NaN : value.applyAsDouble(current);
+        }
+    }
+
+    private static final class Metric {
+        final String name;
+        final String help;
+        final String type;
+        final String[] labels;
+        final Object instrument;
+
+        Metric(String name, String help, String type, String[] labels, Object instrument) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labels = labels;
+            this.instrument = instrument;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+    private volatile String jmxDomain;
+
+    private MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static MetricsRegistry create() {
+        return new MetricsRegistry(true);
+    }
+
+    public static MetricsRegistry disabled() {
+        return new MetricsRegistry(false);
+    }
+
+    public static MetricsRegistry getDefault() {
+        return defaultRegistry;
+    }
+
+    // Services pick up the default registry when they are created
+    public static void setDefault(MetricsRegistry registry) {
+        defaultRegistry = registry;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) register(name, help, "counter", labels, () -> new Counter(enabled), false);
+    }
+
+    public LatencyTimer timer(String name, String help, String... labels) {
+        return (LatencyTimer) register(name, help, "summary", labels, () -> new LatencyTimer(enabled), false);
+    }
+
+    // Replaces any gauge with the same identity, e.g. from a service that was recreated
+    public <T> void gauge(String name, String help, T owner, ToDoubleFunction<T> value, String... labels) {
+        if (enabled) {
+            register(name, help, "gauge", labels, () -> new Gauge<>(owner, value), true);
+        }
+    }
+
+    private interface Factory {
+        Object create();
+    }
+
+    private Object register(String name, String help, String type, String[] labels, Factory factory, boolean replace) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        String key = name + renderLabels(labels, null);
+        Metric metric;
+        if (replace) {
+            metric = new Metric(name, help, type, labels.clone(), factory.create());
+            metrics.put(key, metric);
+        } else {
+            metric = metrics.computeIfAbsent(key,
+                ignored -> new Metric(name, help, type, labels.clone(), factory.create()));
+            if (!metric.type.equals(type)) {
+                throw new IllegalArgumentException(name + " is already registered as a " + metric.type);
+            }
+        }
+        String domain = jmxDomain;
+        if (domain != null) {
+            registerMBean(domain, metric, replace);
+        }
+        return metric.instrument;
+    }
+
+    // Registers every metric, present and future, with the platform MBean server
+    public synchronized void enableJmx(String domain) {
+        if (jmxDomain != null) {
+            return;
+        }
+        jmxDomain = domain;
+        for (Metric metric : metrics.values()) {
+            registerMBean(domain, metric, false);
+        }
+    }
+
+    private void registerMBean(String domain, Metric metric, boolean replace) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            StringBuilder name = new StringBuilder(domain).append(":type=").append(metric.type)
+                .append(",name=").append(metric.name);
+            for (int i = 0; i < metric.labels.length; i += 2) {
+                name.append(',').append(metric.labels[i]).append('=').append(ObjectName.quote(metric.labels[i + 1]));
+            }
+            ObjectName objectName = new ObjectName(name.toString());
+            if (server.isRegistered(objectName)) {
+                if (!replace) {
+                    return;
+                }
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean(metric.instrument), objectName);
+        } catch (JMException e) {
+            // Another registry (or an earlier run in this JVM) already exported the name
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StandardMBean mbean(Object instrument) throws JMException {
+        if (instrument instanceof Counter) {
+            return new StandardMBean((Counter) instrument, CounterMXBean.class, true);
+        }
+        if (instrument instanceof LatencyTimer) {
+            return new StandardMBean((LatencyTimer) instrument, TimerMXBean.class, true);
+        }
+        return new StandardMBean((Gauge<Object>) instrument, GaugeMXBean.class, true);
+    }
+
+    // Prometheus text exposition format, version 0.0.4. Timers are summaries in seconds, with
+    // a separate _max gauge.
+    public String scrape() {
+        List<Metric> sorted = new ArrayList<>();
+        metrics.forEach((key, metric) -> {
+            if (metric.instrument instanceof Gauge && !((Gauge<?>) metric.instrument).isLive()) {
+                metrics.remove(key, metric);
+            } else {
+                sorted.add(metric);
+            }
+        });
+        sorted.sort(Comparator.comparing((Metric metric) -> metric.name)
+            .thenComparing(metric -> renderLabels(metric.labels, null)));
+
+        StringBuilder out = new StringBuilder();
+        String family = null;
+        for (Metric metric : sorted) {
+            if (!metric.name.equals(family)) {
+                family = metric.name;
+                out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+            }
+            if (metric.instrument instanceof Counter) {
+                sample(out, metric.name, metric.labels, null, ((Counter) metric.instrument).getCount());
+            } else if (metric.instrument instanceof Gauge) {
+                sample(out, metric.name, metric.labels, null, ((Gauge<?>) metric.instrument).getValue());
+            } else {
+                LatencyHistogram histogram = ((LatencyTimer) metric.instrument).snapshot();
+                for (String quantile : new String[] {"0.5", "0.9", "0.99", "0.999"}) {
+                    sample(out, metric.name, metric.labels, quantile,
+                        histogram.percentile(Double.parseDouble(quantile) * 100) / 1e9);
+                }
+                sample(out, metric.name + "_sum", metric.labels, null, histogram.sum() / 1e9);
+                sample(out, metric.name + "_count", metric.labels, null, histogram.count());
+            }
+        }
+        for (Metric metric : sorted) {
+            if (metric.instrument instanceof LatencyTimer) {
+                sample(out, metric.name + "_max", metric.labels, null,
+                    ((LatencyTimer) metric.instrument).getMaxMillis() / 1e3);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String[] labels, String quantile, double value) {
+        out.append(name).append(renderLabels(labels, quantile)).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String renderLabels(String[] labels, String quantile) {
+        if (labels.length == 0 && quantile == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        if (quantile != null) {
+            out.append(labels.length > 0 ? "," : "").append("quantile=\"").append(quantile).append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
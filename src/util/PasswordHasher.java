@@ -0,0 +1,92 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// PBKDF2-HMAC-SHA256 password hashing. Hashes are self-describing
+// ("pbkdf2-sha256$<iterations>$<salt>$<hash>"), so the cost can be raised later without
+// invalidating existing credentials: each one is verified with the cost it was created with.
+// Credentials that are not in this format are treated as legacy plaintext.
+public class PasswordHasher {
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private static volatile PasswordHasher defaultHasher = new PasswordHasher(DEFAULT_ITERATIONS);
+
+    private final int iterations;
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    // Hasher used when voters are created from a plaintext password
+    public static PasswordHasher getDefault() {
+        return defaultHasher;
+    }
+
+    public static void setDefault(PasswordHasher hasher) {
+        defaultHasher = hasher;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return PREFIX + iterations + "$" + ENCODER.encodeToString(salt) + "$"
+            + ENCODER.encodeToString(derive(password, salt, iterations));
+    }
+
+    public static boolean isHashed(String credential) {
+        return credential != null && credential.startsWith(PREFIX);
+    }
+
+    // Constant-time check of a password against a stored credential
+    public static boolean verify(String password, String credential) {
+        if (password == null || credential == null) {
+            return false;
+        }
+        if (!isHashed(credential)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                credential.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = credential.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            int cost = Integer.parseInt(parts[0]);
+            byte[] expected = DECODER.decode(parts[2]);
+            return MessageDigest.isEqual(expected, derive(password, DECODER.decode(parts[1]), cost));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Read-side cache for values that are expensive to build and read far more often than they
+// change, such as serialized results pages.
+//
+// Every value is built for a version supplied by the caller (a results snapshot version, a
+// candidate count); a hit is any entry at that version or newer, so readers never rebuild per
+// request, only when the version moves. A miss installs a future before building, and every
+// other reader of the same key and version waits on that future, so one miss means one build.
+//
+// Entries are weighed (e.g. by payload bytes) and the total is bounded: once it goes over,
+// the least recently used entries are dropped until it is back under 90% of the bound.
+// Recency is a clock that ticks per build, so a hit is a volatile read and, at most, a write
+// of the entry's own timestamp.
+public final class ReadCache<K, V> {
+    private static final int LOADING = 0;
+    private static final int COUNTED = 1;
+    private static final int REMOVED = 2;
+
+    private static final class Entry<V> {
+        final long version;
+        final CompletableFuture<V> value = new CompletableFuture<>();
+        // Its weight is added to the total once (LOADING -> COUNTED) and taken off once on
+        // removal, whichever of the build and the removal happens first
+        final AtomicInteger state = new AtomicInteger(LOADING);
+        volatile long lastUsed;
+        long weight;
+
+        Entry(long version, long lastUsed) {
+            this.version = version;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    // labels identify the cache in the metrics registry, e.g. "cache", "http", "election", name
+    public ReadCache(long maxWeight, ToLongFunction<V> weigher, String... labels) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        this.hits = registry.counter("voting_cache_hits_total", "Read cache hits", labels);
+        this.misses = registry.counter("voting_cache_misses_total", "Read cache misses (builds)", labels);
+        this.evictions = registry.counter("voting_cache_evictions_total", "Read cache evictions", labels);
+    }
+
+    // Returns the value cached for key at version or newer, building it with loader otherwise.
+    // A loader failure reaches every caller waiting on that build and nothing is cached.
+    public V get(K key, long version, Supplier<V> loader) {
+        while (true) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.version >= version) {
+                long now = clock.get();
+                if (entry.lastUsed != now) {
+                    entry.lastUsed = now;
+                }
+                hits.increment();
+                return join(entry);
+            }
+            Entry<V> mine = new Entry<>(version, clock.incrementAndGet());
+            boolean installed = entry == null
+                ? entries.putIfAbsent(key, mine) == null
+                : entries.replace(key, entry, mine);
+            if (!installed) {
+                continue;
+            }
+            if (entry != null) {
+                release(entry);
+            }
+            misses.increment();
+            V value;
+            try {
+                value = loader.get();
+            } catch (RuntimeException | Error e) {
+                remove(key, mine);
+                mine.value.completeExceptionally(e);
+                throw e;
+            }
+            mine.weight = weigher.applyAsLong(value);
+            if (mine.state.compareAndSet(LOADING, COUNTED)) {
+                weight.addAndGet(mine.weight);
+            }
+            mine.value.complete(value);
+            if (weight.get() > maxWeight) {
+                evict();
+            }
+            return value;
+        }
+    }
+
+    private V join(Entry<V> entry) {
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        entries.forEach((key, entry) -> remove(key, entry));
+    }
+
+    private synchronized void evict() {
+        if (weight.get() <= maxWeight) {
+            return;
+        }
+        List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<>();
+        entries.entrySet().forEach(e -> {
+            if (e.getValue().value.isDone()) {
+                candidates.add(Map.entry(e.getKey(), e.getValue()));
+            }
+        });
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+        long target = maxWeight - maxWeight / 10;
+        for (Map.Entry<K, Entry<V>> candidate : candidates) {
+            if (weight.get() <= target) {
+                break;
+            }
+            if (remove(candidate.getKey(), candidate.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(K key, Entry<V> entry) {
+        if (!entries.remove(key, entry)) {
+            return false;
+        }
+        release(entry);
+        return true;
+    }
+
+    private void release(Entry<V> entry) {
+        if (entry.state.getAndSet(REMOVED) == COUNTED) {
+            weight.addAndGet(-entry.weight);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+}
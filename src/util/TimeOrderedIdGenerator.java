@@ -0,0 +1,90 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 64-bit IDs laid out as [42 bits: milliseconds since 2020-01-01][22 bits: sequence], with the
+// top nodeBits of the sequence optionally holding a node number so separate processes never
+// collide. IDs sort by creation time at block granularity and stay unique even if the clock
+// steps back, because the shared counter never decreases; advancePast() carries that guarantee
+// across a restart by raising the counter above the highest ID recovered from storage.
+//
+// Threads lease blocks of BLOCK_SIZE IDs from one AtomicLong and hand them out from a
+// ThreadLocal, so there is one atomic update per block rather than per ID and no contention
+// between threads in between. A block that has gone stale is dropped, so a thread that was idle
+// doesn't issue old timestamps.
+public class TimeOrderedIdGenerator implements IdGenerator {
+    public static final long EPOCH_MILLIS = 1_577_836_800_000L; // 2020-01-01T00:00:00Z
+    private static final int SEQUENCE_BITS = 22;
+    private static final int BLOCK_SIZE = 256;
+    private static final long MAX_BLOCK_AGE_MILLIS = 1000;
+
+    private static final class Block {
+        long next;
+        long end;
+        long leasedAtMillis;
+        int generation;
+    }
+
+    private final AtomicLong counter = new AtomicLong();
+    // Bumped by advancePast() so blocks leased below the new floor are dropped
+    private volatile int generation;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    private final int nodeBits;
+    private final long nodeMask;
+
+    public TimeOrderedIdGenerator() {
+        this(0, 0);
+    }
+
+    public TimeOrderedIdGenerator(int node, int nodeBits) {
+        if (nodeBits < 0 || nodeBits > 12 || node < 0 || node >= (1 << nodeBits)) {
+            throw new IllegalArgumentException("Node " + node + " does not fit in " + nodeBits + " bits");
+        }
+        this.nodeBits = nodeBits;
+        this.nodeMask = (long) node << (SEQUENCE_BITS - nodeBits);
+    }
+
+    @Override
+    public long nextId() {
+        Block block = blocks.get();
+        long now = System.currentTimeMillis();
+        if (block.next == block.end || now - block.leasedAtMillis > MAX_BLOCK_AGE_MILLIS
+                || block.generation != generation) {
+            lease(block, now);
+        }
+        return spread(block.next++);
+    }
+
+    // Maps a position in the node-local sequence space onto the ID layout, inserting the node
+    private long spread(long local) {
+        if (nodeBits == 0) {
+            return local;
+        }
+        int localBits = SEQUENCE_BITS - nodeBits;
+        long millis = local >>> localBits;
+        long sequence = local & ((1L << localBits) - 1);
+        return (millis << SEQUENCE_BITS) | nodeMask | sequence;
+    }
+
+    @Override
+    public synchronized void advancePast(long id) {
+        int localBits = SEQUENCE_BITS - nodeBits;
+        long millis = id >>> SEQUENCE_BITS;
+        long sequence = id & ((1L << localBits) - 1);
+        long local = (millis << localBits) | sequence;
+        if (counter.getAndAccumulate(local + 1, Math::max) <= local) {
+            generation++;
+        }
+    }
+
+    private void lease(Block block, long now) {
+        // Read before leasing: a block taken below a floor raised meanwhile is then stale
+        int leasedGeneration = generation;
+        long floor = Math.max(0, now - EPOCH_MILLIS) << (SEQUENCE_BITS - nodeBits);
+        long start = counter.getAndUpdate(current -> Math.max(current, floor) + BLOCK_SIZE);
+        block.next = Math.max(start, floor);
+        block.end = block.next + BLOCK_SIZE;
+        block.leasedAtMillis = now;
+        block.generation = leasedGeneration;
+    }
+}
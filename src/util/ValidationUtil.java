@@ -1,33 +1,151 @@
 package util;
 
 import model.*;
+import exception.RejectReason;
 import exception.VotingException;
 import service.ElectionService.ElectionStatus;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The check* methods return null when the input is acceptable and otherwise a preallocated
+// rejection (see RejectReason), without throwing or allocating; hot paths such as castVote count
+// the reason and throw it themselves. The validate* methods throw the same instances.
 public class ValidationUtil {
+    // [required][current]
+    private static final VotingException[][] STATUS_REJECTIONS = statusRejections();
+
+    // At most 8 preferences are checked for duplicates pairwise, longer rankings with a set
+    private static final int PAIRWISE_RANKING_CHECK = 8;
+
+    // Station names are stored, journaled and hashed with every vote
+    public static final int MAX_STATION_LENGTH = 128;
+
+    public static VotingException checkElectionStatus(ElectionStatus current, ElectionStatus required) {
+        return current == required ? null : STATUS_REJECTIONS[required.ordinal()][current.ordinal()];
+    }
+
     public static void validateElectionStatus(ElectionStatus current, ElectionStatus required) 
             throws VotingException {
-        if (current != required) {
-            throw new VotingException("Invalid election status. Required: " + required + 
-                                    ", Current: " + current);
+        throwIfRejected(checkElectionStatus(current, required));
+    }
+
+    // hasVoted is passed in for elections that track who has voted themselves rather than on the Voter
+    public static VotingException checkVoter(Voter voter, boolean hasVoted) {
+        if (voter == null) {
+            return RejectReason.UNKNOWN_VOTER.exception();
+        }
+        if (hasVoted) {
+            return RejectReason.ALREADY_VOTED.exception();
+        }
+        if (voter.getStatus() != Voter.VoterStatus.VERIFIED) {
+            return RejectReason.VOTER_NOT_VERIFIED.exception();
         }
+        return null;
     }
 
     public static void validateVoter(Voter voter) throws VotingException {
+        validateVoter(voter, voter != null && voter.hasVoted());
+    }
+
+    public static void validateVoter(Voter voter, boolean hasVoted) throws VotingException {
+        throwIfRejected(checkVoter(voter, hasVoted));
+    }
+
+    public static VotingException checkStation(String votingStation) {
+        return votingStation != null && votingStation.length() > MAX_STATION_LENGTH
+            ? RejectReason.INVALID_STATION.exception() : null;
+    }
+
+    public static void validateStation(String votingStation) throws VotingException {
+        throwIfRejected(checkStation(votingStation));
+    }
+
+    public static void validateRegistration(Voter voter) throws VotingException {
         if (voter == null) {
-            throw new VotingException("Voter not found");
+            throw new VotingException("Voter details are required");
         }
-        if (voter.hasVoted()) {
-            throw new VotingException("Voter has already cast their vote");
+        validateRegistration(voter.getEmail(), voter.getNationalId());
+    }
+
+    // The same checks before a Voter exists, e.g. to refuse an import row before hashing its password
+    public static void validateRegistration(String email, String nationalId) throws VotingException {
+        if (isBlank(nationalId)) {
+            throw new VotingException("National ID is required");
         }
-        if (voter.getStatus() != Voter.VoterStatus.VERIFIED) {
-            throw new VotingException("Voter is not verified");
+        if (isBlank(email)) {
+            throw new VotingException("Email is required");
+        }
+    }
+
+    // Every preference must be a known candidate, ranked at most once
+    public static VotingException checkRanking(List<String> preferences, Map<String, Candidate> candidates) {
+        if (preferences == null || preferences.isEmpty()) {
+            return RejectReason.EMPTY_RANKING.exception();
+        }
+        int size = preferences.size();
+        for (int i = 0; i < size; i++) {
+            String candidateId = preferences.get(i);
+            if (candidateId == null || candidates.get(candidateId) == null) {
+                return RejectReason.UNKNOWN_CANDIDATE.exception();
+            }
+            for (int j = 0; j < i && i < PAIRWISE_RANKING_CHECK; j++) {
+                if (candidateId.equals(preferences.get(j))) {
+                    return RejectReason.DUPLICATE_RANKING.exception();
+                }
+            }
+        }
+        if (size > PAIRWISE_RANKING_CHECK) {
+            Set<String> ranked = new HashSet<>(preferences);
+            if (ranked.size() != size) {
+                return RejectReason.DUPLICATE_RANKING.exception();
+            }
         }
+        return null;
+    }
+
+    public static void validateRanking(List<String> preferences, Map<String, Candidate> candidates)
+            throws VotingException {
+        throwIfRejected(checkRanking(preferences, candidates));
+    }
+
+    public static Voter.VoterStatus parseVoterStatus(String value) throws VotingException {
+        try {
+            return Voter.VoterStatus.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new VotingException("Unknown voter status: " + value.trim());
+        }
+    }
+
+    public static VotingException checkCandidate(Candidate candidate) {
+        return candidate == null ? RejectReason.UNKNOWN_CANDIDATE.exception() : null;
     }
 
     public static void validateCandidate(Candidate candidate) throws VotingException {
-        if (candidate == null) {
-            throw new VotingException("Candidate not found");
+        throwIfRejected(checkCandidate(candidate));
+    }
+
+    private static void throwIfRejected(VotingException rejection) throws VotingException {
+        if (rejection != null) {
+            throw rejection;
         }
     }
+
+    private static VotingException[][] statusRejections() {
+        ElectionStatus[] statuses = ElectionStatus.values();
+        VotingException[][] rejections = new VotingException[statuses.length][statuses.length];
+        for (ElectionStatus required : statuses) {
+            for (ElectionStatus current : statuses) {
+                rejections[required.ordinal()][current.ordinal()] = new VotingException(RejectReason.ELECTION_STATUS,
+                    "Invalid election status. Required: " + required + ", Current: " + current);
+            }
+        }
+        return rejections;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
 }
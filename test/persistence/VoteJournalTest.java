@@ -0,0 +1,217 @@
+package persistence;
+
+import model.Candidate;
+import model.RankedBallot;
+import model.Vote;
+import model.Voter;
+import service.BatchResult;
+import service.ElectionService.ElectionStatus;
+import service.VoteBatch;
+import service.VoteLedger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VoteJournalTest {
+    private static final int HEADER_BYTES = 8;
+    private static final int BATCH_HEADER_BYTES = 16;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysEveryRecordInOrder() throws IOException {
+        Path file = write(2, 1);
+        Names names = new Names();
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertEquals(3, journal.replay(names));
+        }
+        assertEquals(List.of("Candidate 0", "Candidate 1", "Candidate 2"), names.candidates);
+    }
+
+    @Test
+    void truncatesBatchCutShortByEndOfFile() throws IOException {
+        Path file = write(2, 2);
+        long intact = batchEnd(file, 1);
+        truncate(file, Files.size(file) - 3);
+
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertEquals(2, journal.replay(new Names()));
+            assertEquals(intact, Files.size(file));
+            journal.awaitDurable(journal.appendCandidate(candidate(9)));
+        }
+        Names names = new Names();
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertEquals(3, journal.replay(names));
+        }
+        assertEquals(List.of("Candidate 0", "Candidate 1", "Candidate 9"), names.candidates);
+    }
+
+    @Test
+    void truncatesBatchWithOnlyPartOfItsHeader() throws IOException {
+        Path file = write(2);
+        long intact = Files.size(file);
+        append(file, new byte[] {0x56, 0x42});
+
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertEquals(2, journal.replay(new Names()));
+        }
+        assertEquals(intact, Files.size(file));
+    }
+
+    @Test
+    void truncatesZeroFilledTail() throws IOException {
+        Path file = write(2);
+        long intact = Files.size(file);
+        append(file, new byte[4096]);
+
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertEquals(2, journal.replay(new Names()));
+        }
+        assertEquals(intact, Files.size(file));
+    }
+
+    @Test
+    void truncatesLastBatchWithDamagedMiddleRecord() throws IOException {
+        Path file = write(2, 3);
+        long intact = batchEnd(file, 1);
+        flipByte(file, recordStart(file, intact, 1) + 6);
+
+        Names names = new Names();
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertEquals(2, journal.replay(names));
+        }
+        assertEquals(List.of("Candidate 0", "Candidate 1"), names.candidates);
+        assertEquals(intact, Files.size(file));
+    }
+
+    @Test
+    void failsOnDamagedBatchFollowedByIntactBatch() throws IOException {
+        Path file = write(1, 2, 1);
+        long size = Files.size(file);
+        long damaged = batchEnd(file, 1);
+        flipByte(file, recordStart(file, damaged, 1) + 6);
+
+        try (VoteJournal journal = new VoteJournal(file)) {
+            IOException e = assertThrows(IOException.class, () -> journal.replay(new Names()));
+            assertEquals("Journal batch at offset " + damaged + " is damaged and is followed by durable batches",
+                e.getMessage());
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void failsOnNegativeBatchLengthFollowedByIntactBatch() throws IOException {
+        Path file = write(1, 1);
+        long size = Files.size(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(HEADER_BYTES + 4);
+            raf.writeInt(-7);
+        }
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertThrows(IOException.class, () -> journal.replay(new Names()));
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void rejectsFileThatIsNotAJournal() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        try (VoteJournal journal = new VoteJournal(file)) {
+            assertThrows(IOException.class, () -> journal.replay(new Names()));
+        }
+    }
+
+    // Writes one group commit per argument, each holding that many candidates; the long commit
+    // window keeps the appends of a batch in a single write
+    private Path write(int... batches) throws IOException {
+        Path file = dir.resolve("election.journal");
+        try (VoteJournal journal = new VoteJournal(file, 50_000, 1 << 20)) {
+            journal.replay(new Names());
+            int next = 0;
+            for (int candidates : batches) {
+                long sequence = 0;
+                for (int i = 0; i < candidates; i++) {
+                    sequence = journal.appendCandidate(candidate(next++));
+                }
+                journal.awaitDurable(sequence);
+            }
+            assertEquals(batches.length, journal.getSyncCount());
+        }
+        return file;
+    }
+
+    private static Candidate candidate(int i) {
+        return new Candidate("C" + i, "Candidate " + i, "Party", "", "", "");
+    }
+
+    // File offset just past the first `batches` batches
+    private static long batchEnd(Path file, int batches) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long position = HEADER_BYTES;
+            for (int i = 0; i < batches; i++) {
+                raf.seek(position + 4);
+                position += BATCH_HEADER_BYTES + raf.readInt();
+            }
+            return position;
+        }
+    }
+
+    // File offset of the given record within the batch starting at `batch`
+    private static long recordStart(Path file, long batch, int record) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long position = batch + BATCH_HEADER_BYTES;
+            for (int i = 0; i < record; i++) {
+                raf.seek(position);
+                position += 4 + 1 + raf.readInt();
+            }
+            return position;
+        }
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length());
+            raf.write(bytes);
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+        }
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(offset);
+            int b = raf.read();
+            raf.seek(offset);
+            raf.write(b ^ 0xFF);
+        }
+    }
+
+    private static class Names implements JournalListener {
+        final List<String> candidates = new ArrayList<>();
+
+        @Override public void onStatus(ElectionStatus status) { }
+        @Override public void onCandidate(Candidate candidate) { candidates.add(candidate.getName()); }
+        @Override public void onVoter(Voter voter) { }
+        @Override public void onVote(Vote vote) { }
+        @Override public void onVoteBatch(VoteBatch batch, BatchResult.Outcome[] outcomes, LocalDateTime castAt) { }
+        @Override public void onRankedBallot(RankedBallot ballot) { }
+        @Override public void onLedgerBlock(VoteLedger.Block block, String[] voterIds) { }
+    }
+}
@@ -0,0 +1,52 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BatchWindowTest {
+
+    @Test
+    void keepsOnlyTheLastBatchesOfEachStation() {
+        BatchWindow window = new BatchWindow(4);
+        for (int i = 0; i < 10; i++) {
+            window.put("S1", "B" + i, result("B" + i));
+        }
+        window.put("S2", "B0", result("B0"));
+
+        assertEquals(4, window.size("S1"));
+        assertEquals(1, window.size("S2"));
+        assertNull(window.putIfAbsent("S1", "B0", new CompletableFuture<>()));
+    }
+
+    @Test
+    void neverDropsAnUploadInProgress() {
+        BatchWindow window = new BatchWindow(2);
+        CompletableFuture<BatchResult> running = new CompletableFuture<>();
+        assertNull(window.putIfAbsent("S1", "B0", running));
+        for (int i = 1; i < 5; i++) {
+            window.put("S1", "B" + i, result("B" + i));
+        }
+
+        assertSame(running, window.putIfAbsent("S1", "B0", new CompletableFuture<>()));
+        assertEquals(2, window.size("S1"));
+    }
+
+    @Test
+    void withdrawnAttemptCanBeRetried() {
+        BatchWindow window = new BatchWindow(2);
+        CompletableFuture<BatchResult> failed = new CompletableFuture<>();
+        window.putIfAbsent("S1", "B0", failed);
+        window.remove("S1", "B0", failed);
+
+        assertNull(window.putIfAbsent("S1", "B0", new CompletableFuture<>()));
+    }
+
+    private static BatchResult result(String batchId) {
+        return new BatchResult(batchId, "S1", new BatchResult.Outcome[0], false);
+    }
+}
@@ -0,0 +1,58 @@
+package service;
+
+import model.Voter;
+import exception.VotingException;
+import util.PasswordHasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CredentialVerifierTest {
+    private CredentialVerifier verifier;
+
+    @BeforeAll
+    static void cheapPasswordHashing() {
+        PasswordHasher.setDefault(new PasswordHasher(1));
+    }
+
+    @BeforeEach
+    void setUp() {
+        verifier = new CredentialVerifier(2, 16, 2000, 100, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifier.close();
+    }
+
+    @Test
+    void hashesOnThePoolIntoAVerifiableCredential() throws VotingException {
+        String credential = verifier.hash("secret", false);
+        assertTrue(PasswordHasher.isHashed(credential));
+        Voter voter = new Voter("Ann", "ann@example.org", "NID1", credential);
+        assertEquals(credential, voter.getCredential());
+        assertTrue(verifier.verify(voter, "secret"));
+        assertFalse(verifier.verify(voter, "wrong"));
+    }
+
+    @Test
+    void unknownVoterPaysTheKdfLikeAWrongPassword() throws VotingException {
+        assertFalse(verifier.verify(null, "secret"));
+        assertEquals(1, verifier.getVerificationCount());
+    }
+
+    @Test
+    void repeatLoginIsServedFromTheCache() throws VotingException {
+        Voter voter = new Voter("Ann", "ann@example.org", "NID1", verifier.hash("secret", false));
+        assertTrue(verifier.verify(voter, "secret"));
+        assertTrue(verifier.verify(voter, "secret"));
+        assertEquals(1, verifier.getVerificationCount());
+        assertEquals(1, verifier.getCacheHitCount());
+    }
+}
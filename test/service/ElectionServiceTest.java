@@ -0,0 +1,425 @@
+package service;
+
+import model.*;
+import exception.RejectReason;
+import exception.VotingException;
+import util.ElectionLogger;
+import util.MetricsRegistry;
+import util.PasswordHasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElectionServiceTest {
+    private static final int THREADS = 8;
+    private static final int VOTERS_PER_THREAD = 2_000;
+
+    @TempDir
+    Path dir;
+
+    private ElectionLogger logger;
+    private ElectionService service;
+    private Candidate candidate;
+
+    @BeforeAll
+    static void cheapPasswordHashing() {
+        PasswordHasher.setDefault(new PasswordHasher(1));
+    }
+
+    @BeforeEach
+    void setUp() throws VotingException {
+        logger = new ElectionLogger(null, 65536, ElectionLogger.OverflowPolicy.DROP_AND_COUNT, false, 0);
+        service = new ElectionService("Test", LocalDateTime.now(), logger);
+        candidate = new Candidate("Alice", "Party A", "", "", "");
+        service.addCandidate(candidate);
+        service.openRegistration();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.close();
+    }
+
+    // Every vote castVote accepted must already be counted when closeElection returns, and
+    // every vote after that must be refused as out of status
+    @RepeatedTest(10)
+    void closeElectionWaitsForVotesInFlight() throws Exception {
+        List<String> voterIds = registerVoters(THREADS * VOTERS_PER_THREAD);
+        service.openVoting();
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> voting = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<String> mine = voterIds.subList(t * VOTERS_PER_THREAD, (t + 1) * VOTERS_PER_THREAD);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (String voterId : mine) {
+                        service.castVote(voterId, candidate.getId(), "STATION-1");
+                        accepted.incrementAndGet();
+                    }
+                } catch (VotingException e) {
+                    if (e.getReason() != RejectReason.ELECTION_STATUS) {
+                        failure.set(e);
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            thread.start();
+            voting.add(thread);
+        }
+
+        start.countDown();
+        while (accepted.get() < THREADS * VOTERS_PER_THREAD / 4) {
+            Thread.onSpinWait();
+        }
+        service.closeElection();
+        long countedAtClose = service.getStationTurnout().getOrDefault("STATION-1", 0L);
+        for (Thread thread : voting) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(accepted.get(), countedAtClose);
+        assertEquals(accepted.get(), candidate.getVoteCount());
+        assertEquals(accepted.get(), (int) service.getResults().get("Alice"));
+    }
+
+    @Test
+    void refusesVotesOnceClosed() throws VotingException {
+        String voterId = registerVoters(1).get(0);
+        service.openVoting();
+        service.closeElection();
+
+        VotingException e = assertThrows(VotingException.class,
+            () -> service.castVote(voterId, candidate.getId(), "STATION-1"));
+        assertEquals(RejectReason.ELECTION_STATUS, e.getReason());
+        assertEquals(0, candidate.getVoteCount());
+    }
+
+    @Test
+    void refusalsCarryTheirReasonAsThePreallocatedException() throws VotingException {
+        List<String> voterIds = registerVoters(2);
+        Voter unverified = new Voter("Pending", "pending@example.org", "NID-P", "pw");
+        service.registerVoter(unverified);
+
+        assertRejected(RejectReason.ELECTION_STATUS,
+            () -> service.castVote(voterIds.get(0), candidate.getId(), "STATION-1"));
+        service.openVoting();
+        assertRejected(RejectReason.UNKNOWN_VOTER, () -> service.castVote("no-such-voter", candidate.getId(), "STATION-1"));
+        assertRejected(RejectReason.UNKNOWN_CANDIDATE, () -> service.castVote(voterIds.get(0), "no-such-candidate", "STATION-1"));
+        assertRejected(RejectReason.VOTER_NOT_VERIFIED, () -> service.castVote(unverified.getId(), candidate.getId(), "STATION-1"));
+        service.castVote(voterIds.get(0), candidate.getId(), "STATION-1");
+        assertRejected(RejectReason.ALREADY_VOTED, () -> service.castVote(voterIds.get(0), candidate.getId(), "STATION-1"));
+        assertRejected(RejectReason.EMPTY_RANKING, () -> service.castRankedVote(voterIds.get(1), List.of(), "STATION-1"));
+        assertRejected(RejectReason.DUPLICATE_RANKING,
+            () -> service.castRankedVote(voterIds.get(1), List.of(candidate.getId(), candidate.getId()), "STATION-1"));
+
+        assertEquals(1, candidate.getVoteCount());
+    }
+
+    @Test
+    void statusRefusalNamesRequiredAndCurrentStatus() {
+        VotingException e = assertThrows(VotingException.class,
+            () -> service.castVote("no-such-voter", candidate.getId(), "STATION-1"));
+        assertEquals(RejectReason.ELECTION_STATUS, e.getReason());
+        assertEquals("Invalid election status. Required: VOTING_OPEN, Current: REGISTRATION_OPEN", e.getMessage());
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    // Every bad row is reported with its line number and reason, and doesn't stop the rows after it
+    @Test
+    void importReportsEveryRejectedRow() throws IOException, VotingException {
+        Path csv = dir.resolve("voters.csv");
+        Files.write(csv, List.of(
+            "name,email,nationalId,password,status",
+            "Ann,ann@example.org,N1,pw,VERIFIED",
+            "Bob,bob@example.org,N2",
+            "Cat,,N3,pw",
+            "Dan,dan@example.org, ,pw",
+            "Eve,ANN@example.org,N6,pw",
+            "Fay,fay@example.org,N1,pw",
+            "Gus,gus@example.org,N8,pw,MAYBE",
+            "Hal,hal@example.org,N9,pw,VERIFIED,extra",
+            "Ivy,ivy@example.org,N10,pw"));
+
+        ImportReport report = service.importVoters(csv);
+
+        Map<Long, String> rejects = new TreeMap<>();
+        report.getRejects().forEach(reject -> rejects.put(reject.getRowNumber(), reject.getReason()));
+        assertEquals(Map.of(
+            3L, "Expected 4 or 5 columns, found 3",
+            4L, "Email is required",
+            5L, "National ID is required",
+            6L, "Email already registered",
+            7L, "Voter already registered",
+            8L, "Unknown voter status: MAYBE",
+            9L, "Expected 4 or 5 columns, found 6"), rejects);
+        assertEquals(9, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(7, report.getRejected());
+        assertEquals(Voter.VoterStatus.VERIFIED, service.findVoterByEmail("ann@example.org").getStatus());
+        assertEquals("Ann", service.findVoterByNationalId("N1").getName());
+        assertTrue(service.findVoterByEmail("ivy@example.org").verifyPassword("pw"));
+    }
+
+    @Test
+    void importIsRefusedOutsideRegistration() throws IOException, VotingException {
+        Path csv = dir.resolve("voters.csv");
+        Files.write(csv, List.of("Ann,ann@example.org,N1,pw"));
+        service.openVoting();
+
+        VotingException e = assertThrows(VotingException.class, () -> service.importVoters(csv));
+
+        assertEquals(RejectReason.ELECTION_STATUS, e.getReason());
+        assertNull(service.findVoterByEmail("ann@example.org"));
+    }
+
+    @Test
+    void restoredSnapshotMatchesTheClosedElection() throws IOException, VotingException {
+        service = new ElectionService("Snapshot", LocalDateTime.now(), logger);
+        candidate = new Candidate("Alice", "Party A", "", "", "");
+        Candidate bob = new Candidate("Bob", "Party B", "", "", "");
+        service.addCandidate(candidate);
+        service.addCandidate(bob);
+        service.openRegistration();
+        List<String> voterIds = registerVoters(40);
+        Voter pending = new Voter("Pending", "pending@example.org", "NID-P", "secret");
+        service.registerVoter(pending);
+        service.openVoting();
+        for (int i = 0; i < 30; i++) {
+            String station = "STATION-" + (i % 3);
+            if (i % 2 == 0) {
+                service.castVote(voterIds.get(i), i % 4 == 0 ? bob.getId() : candidate.getId(), station);
+            } else {
+                service.castRankedVote(voterIds.get(i), List.of(bob.getId(), candidate.getId()), station);
+            }
+        }
+        service.closeElection();
+        Path file = dir.resolve("election.snapshot");
+        service.writeSnapshot(file);
+
+        ElectionService restored = ElectionService.restore(file, logger);
+
+        assertEquals(ElectionService.ElectionStatus.CLOSED, restored.getStatus());
+        assertEquals(service.getElectionName(), restored.getElectionName());
+        assertEquals(service.getResults(), restored.getResults());
+        assertEquals(service.getStationTurnout(), restored.getStationTurnout());
+        assertEquals(service.getStatistics().getTotalVoters(), restored.getStatistics().getTotalVoters());
+        assertEquals(service.getStatistics().getTotalVotes(), restored.getStatistics().getTotalVotes());
+        assertEquals(service.getRankedResults(1).getWinners(), restored.getRankedResults(1).getWinners());
+        assertEquals(service.getRankedResults(1).getValidBallots(), restored.getRankedResults(1).getValidBallots());
+        Voter restoredPending = restored.findVoterByEmail("pending@example.org");
+        assertEquals(pending.getId(), restoredPending.getId());
+        assertEquals(Voter.VoterStatus.PENDING_VERIFICATION, restoredPending.getStatus());
+        assertTrue(restoredPending.verifyPassword("secret"));
+        assertEquals(voterIds.get(7), restored.findVoterByNationalId("NID7").getId());
+    }
+
+    // Who has voted is part of the snapshot: restored mid-vote, earlier voters are refused
+    // and the rest can still vote
+    @Test
+    void restoredSnapshotRemembersWhoVoted() throws IOException, VotingException {
+        List<String> voterIds = registerVoters(4);
+        service.openVoting();
+        service.castVote(voterIds.get(0), candidate.getId(), "STATION-1");
+        service.castVote(voterIds.get(1), candidate.getId(), "STATION-1");
+        Path file = dir.resolve("election.snapshot");
+        service.writeSnapshot(file);
+
+        ElectionService restored = ElectionService.restore(file, logger);
+
+        assertEquals(ElectionService.ElectionStatus.VOTING_OPEN, restored.getStatus());
+        assertRejected(RejectReason.ALREADY_VOTED, () -> restored.castVote(voterIds.get(0), candidate.getId(), "STATION-2"));
+        restored.castVote(voterIds.get(2), candidate.getId(), "STATION-2");
+        restored.closeElection();
+        assertEquals(3, (int) restored.getResults().get("Alice"));
+    }
+
+    @Test
+    void resubmittedBatchReturnsTheOriginalResult() throws VotingException {
+        List<String> voterIds = registerVoters(2);
+        voterIds.add("no-such-voter");
+        service.openVoting();
+
+        BatchResult first = service.castVotes(batch("B1", "STATION-1", voterIds));
+        BatchResult retry = service.castVotes(batch("B1", "STATION-1", voterIds));
+
+        assertFalse(first.isRepeated());
+        assertTrue(retry.isRepeated());
+        assertEquals(List.of(BatchResult.Outcome.ACCEPTED, BatchResult.Outcome.ACCEPTED,
+            BatchResult.Outcome.UNKNOWN_VOTER), retry.getOutcomes());
+        assertEquals(2, candidate.getVoteCount());
+    }
+
+    @Test
+    void ballotWithoutACandidateIsRejectedInsideTheBatch() throws VotingException {
+        List<String> voterIds = registerVoters(2);
+        service.openVoting();
+        VoteBatch upload = new VoteBatch("B1", "STATION-1", List.of(
+            new VoteBatch.Ballot(voterIds.get(0), candidate.getId()),
+            new VoteBatch.Ballot(voterIds.get(1), null)));
+
+        BatchResult result = service.castVotes(upload);
+
+        assertEquals(List.of(BatchResult.Outcome.ACCEPTED, BatchResult.Outcome.UNKNOWN_CANDIDATE),
+            result.getOutcomes());
+        assertEquals(1, candidate.getVoteCount());
+        assertRejected(RejectReason.UNKNOWN_CANDIDATE, () -> service.castVote(voterIds.get(1), null, "STATION-1"));
+        service.castVote(voterIds.get(1), candidate.getId(), "STATION-1");
+        assertEquals(2, candidate.getVoteCount());
+    }
+
+    @Test
+    void sameBatchIdFromAnotherStationIsADifferentBatch() throws VotingException {
+        List<String> voterIds = registerVoters(2);
+        service.openVoting();
+
+        service.castVotes(batch("B1", "STATION-1", voterIds.subList(0, 1)));
+        BatchResult other = service.castVotes(batch("B1", "STATION-2", voterIds.subList(1, 2)));
+
+        assertFalse(other.isRepeated());
+        assertEquals(1, other.getAccepted());
+        assertEquals(2, candidate.getVoteCount());
+    }
+
+    @Test
+    void concurrentRetriesApplyTheBatchOnce() throws Exception {
+        List<String> voterIds = registerVoters(500);
+        service.openVoting();
+        VoteBatch upload = batch("B1", "STATION-1", voterIds);
+
+        ConcurrentLinkedQueue<BatchResult> results = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> retries = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(service.castVotes(upload));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            retries.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : retries) {
+            thread.join();
+        }
+
+        assertEquals(THREADS, results.size());
+        assertEquals(1, results.stream().filter(result -> !result.isRepeated()).count());
+        assertTrue(results.stream().allMatch(result -> result.getAccepted() == 500));
+        assertEquals(500, candidate.getVoteCount());
+    }
+
+    // Only the station's most recent batch IDs are remembered; an older retry is applied again
+    // but can't count its ballots twice
+    @Test
+    void forgetsOldBatchesWithoutDoubleCounting() throws VotingException {
+        List<String> voterIds = registerVoters(300);
+        service.openVoting();
+        BatchResult first = service.castVotes(batch("B0", "STATION-1", voterIds.subList(0, 1)));
+        for (int i = 1; i < 300; i++) {
+            service.castVotes(batch("B" + i, "STATION-1", voterIds.subList(i, i + 1)));
+        }
+
+        BatchResult late = service.castVotes(batch("B0", "STATION-1", voterIds.subList(0, 1)));
+
+        assertEquals(1, first.getAccepted());
+        assertFalse(late.isRepeated());
+        assertEquals(List.of(BatchResult.Outcome.ALREADY_VOTED), late.getOutcomes());
+        assertEquals(300, candidate.getVoteCount());
+    }
+
+    @Test
+    void turnoutReportIsRebuiltOnlyWhenVotesChange() throws VotingException {
+        List<String> voterIds = registerVoters(2);
+        service.openVoting();
+        service.castVote(voterIds.get(0), candidate.getId(), "STATION-1");
+
+        TurnoutReport first = service.getTurnoutReport();
+        assertSame(first, service.getTurnoutReport());
+        service.castVote(voterIds.get(1), candidate.getId(), "STATION-2");
+        TurnoutReport second = service.getTurnoutReport();
+
+        assertEquals(1, first.getTotalVotes());
+        assertEquals(2, second.getTotalVotes());
+        assertEquals(1L, second.getVotesByStation().get("STATION-2"));
+    }
+
+    @Test
+    void servicesWithTheSameNameKeepSeparateMetrics() throws VotingException {
+        MetricsRegistry previous = MetricsRegistry.getDefault();
+        MetricsRegistry registry = MetricsRegistry.create();
+        MetricsRegistry.setDefault(registry);
+        try {
+            ElectionService first = new ElectionService("Test", LocalDateTime.now(), logger);
+            ElectionService restored = new ElectionService("Test", LocalDateTime.now(), logger);
+            first.openRegistration();
+
+            String scrape = registry.scrape();
+            assertTrue(scrape.contains("voting_status{election=\"Test\",instance=\"" + first.getInstanceId() + "\"} 1\n"));
+            assertTrue(scrape.contains("voting_status{election=\"Test\",instance=\"" + restored.getInstanceId() + "\"} 0\n"));
+        } finally {
+            MetricsRegistry.setDefault(previous);
+        }
+    }
+
+    private static void assertRejected(RejectReason reason, Executable call) {
+        VotingException e = assertThrows(VotingException.class, call);
+        assertEquals(reason, e.getReason());
+        if (reason != RejectReason.ELECTION_STATUS) {
+            assertSame(reason.exception(), e);
+        }
+    }
+
+    private VoteBatch batch(String batchId, String station, List<String> voterIds) {
+        List<VoteBatch.Ballot> ballots = new ArrayList<>();
+        for (String voterId : voterIds) {
+            ballots.add(new VoteBatch.Ballot(voterId, candidate.getId()));
+        }
+        return new VoteBatch(batchId, station, ballots);
+    }
+
+    private List<String> registerVoters(int count) throws VotingException {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            ids.add(voter.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,111 @@
+package service;
+
+import model.*;
+import exception.VotingException;
+import util.ElectionLogger;
+import util.PasswordHasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PartitionedElectionServiceTest {
+    private static final int SHARDS = 4;
+
+    private ElectionLogger logger;
+    private PartitionedElectionService election;
+    private Candidate candidate;
+
+    @BeforeAll
+    static void cheapPasswordHashing() {
+        PasswordHasher.setDefault(new PasswordHasher(1));
+    }
+
+    @BeforeEach
+    void setUp() throws VotingException {
+        logger = new ElectionLogger(null, 65536, ElectionLogger.OverflowPolicy.DROP_AND_COUNT, false, 0);
+        election = new PartitionedElectionService("Partitioned", LocalDateTime.now(), SHARDS, logger);
+        candidate = new Candidate("Alice", "Party A", "", "", "");
+        election.addCandidate(candidate);
+        election.openRegistration();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.close();
+    }
+
+    // Each registration lands on a shard picked by its own voter ID, so without a cross-shard
+    // check both could succeed
+    @RepeatedTest(5)
+    void concurrentRegistrationsWithOneEmailAdmitOne() throws InterruptedException {
+        AtomicInteger registered = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Voter voter = new Voter("Voter " + t, (t % 2 == 0 ? "Same@Example.org" : "same@example.org "),
+                "NID" + t, "pw");
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    election.registerVoter(voter);
+                    registered.incrementAndGet();
+                } catch (VotingException | InterruptedException e) {
+                    // the duplicates
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, registered.get());
+        assertEquals(1, election.getStatistics().getTotalVoters());
+    }
+
+    @Test
+    void duplicateNationalIdOnAnotherShardIsRefused() throws VotingException {
+        election.registerVoter(new Voter("Ann", "ann@example.org", "NID1", "pw"));
+        for (int i = 0; i < 20; i++) {
+            Voter other = new Voter("Bob " + i, "bob" + i + "@example.org", " NID1 ", "pw");
+            VotingException e = assertThrows(VotingException.class, () -> election.registerVoter(other));
+            assertEquals("Voter already registered", e.getMessage());
+        }
+    }
+
+    @Test
+    void votesAndLookupsReachTheOwningShard() throws VotingException {
+        List<Voter> registered = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            election.registerVoter(voter);
+            registered.add(voter);
+        }
+        election.openVoting();
+        for (Voter voter : registered) {
+            assertSame(voter, election.getVoter(voter.getId()));
+            assertSame(voter, election.findVoterByEmail(voter.getEmail()));
+            assertSame(voter, election.findVoterByNationalId(voter.getNationalId()));
+            election.castVote(voter.getId(), candidate.getId(), "STATION-1");
+        }
+        election.closeElection();
+
+        assertEquals(100, (int) election.getResults().get("Alice"));
+    }
+}
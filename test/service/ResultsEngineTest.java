@@ -0,0 +1,41 @@
+package service;
+
+import model.Candidate;
+import service.ElectionService.ElectionStatus;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ResultsEngineTest {
+    @Test
+    void callerWithAnOlderStatusGetsThePublishedSnapshot() {
+        ResultsEngine engine = new ResultsEngine(0);
+        engine.addCandidate(new Candidate("Alice", "Party A", "", "", ""));
+        engine.snapshot(ElectionStatus.VOTING_OPEN, 1, 1);
+        ResultsSnapshot closed = engine.snapshot(ElectionStatus.CLOSED, 1, 1);
+
+        ResultsSnapshot late = engine.snapshot(ElectionStatus.VOTING_OPEN, 1, 1);
+
+        assertSame(closed, late);
+        assertEquals(ElectionStatus.CLOSED, engine.snapshot(ElectionStatus.CLOSED, 1, 1).getStatus());
+    }
+
+    @Test
+    void callerWithAnOlderVoteStampDoesNotRebuild() {
+        ResultsEngine engine = new ResultsEngine(0);
+        Candidate alice = new Candidate("Alice", "Party A", "", "", "");
+        engine.addCandidate(alice);
+        alice.incrementVote();
+        ResultsSnapshot newer = engine.snapshot(ElectionStatus.VOTING_OPEN, 1, 1);
+
+        ResultsSnapshot late = engine.snapshot(ElectionStatus.VOTING_OPEN, 1, 0);
+
+        assertSame(newer, late);
+        alice.incrementVote();
+        ResultsSnapshot next = engine.snapshot(ElectionStatus.VOTING_OPEN, 1, 2);
+        assertEquals(newer.getVersion() + 1, next.getVersion());
+        assertEquals(2, next.getTotalVotes());
+    }
+}
@@ -0,0 +1,73 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionStoreTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    void evictsTheSessionClosestToExpiryNotTheFirstFiled() throws InterruptedException {
+        try (SessionStore store = new SessionStore(HOUR, 12 * HOUR, 3, 5)) {
+            String first = store.create("V1");
+            String second = store.create("V2");
+            String third = store.create("V3");
+            Thread.sleep(20);
+            // Refreshes the first session's deadline while it stays filed where it was
+            assertEquals("V1", store.lookup(first));
+
+            String fourth = store.create("V4");
+
+            assertNull(store.lookup(second));
+            assertEquals("V1", store.lookup(first));
+            assertEquals("V3", store.lookup(third));
+            assertEquals("V4", store.lookup(fourth));
+            assertEquals(1, store.getMetrics().getEvicted());
+        }
+    }
+
+    @Test
+    void concurrentCreatesNeverExceedTheCap() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        int cap = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (SessionStore store = new SessionStore(HOUR, 12 * HOUR, cap, 1000)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> peaks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                peaks.add(pool.submit(() -> {
+                    start.await();
+                    int peak = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        store.create("V" + thread + "-" + i);
+                        peak = Math.max(peak, store.getMetrics().getActiveSessions());
+                    }
+                    return peak;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> peak : peaks) {
+                assertTrue(peak.get() <= cap, "active sessions went over the cap");
+            }
+
+            SessionMetrics metrics = store.getMetrics();
+            assertEquals(cap, metrics.getActiveSessions());
+            assertEquals(threads * perThread - cap, metrics.getEvicted());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
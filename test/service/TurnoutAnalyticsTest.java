@@ -0,0 +1,55 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TurnoutAnalyticsTest {
+    private static final long START = 1_700_000_000_000L;
+
+    // Enough votes for several fork-join leaves, with stations and candidates first seen late
+    @Test
+    void countsEveryVoteAcrossLeaves() {
+        VoteStore votes = new VoteStore();
+        TurnoutAnalytics analytics = new TurnoutAnalytics(votes);
+        Map<String, Map<String, Long>> expected = new HashMap<>();
+        int total = 700_000;
+        for (int i = 0; i < total; i++) {
+            int stations = i < total / 2 ? 5 : 40;
+            String station = "S" + (i * 7 % stations);
+            String candidate = "C" + (i % (i < total - 1000 ? 10 : 25));
+            votes.append("V" + i, candidate, station, START + i * 10L);
+            expected.computeIfAbsent(station, key -> new HashMap<>()).merge(candidate, 1L, Long::sum);
+        }
+
+        TurnoutReport report = analytics.report(Duration.ofMinutes(5));
+
+        assertEquals(total, report.getTotalVotes());
+        assertEquals(expected, report.getCandidateVotesByStation());
+        assertEquals(total, report.getVotesByStation().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(total, report.getVotesByBucket().values().stream().mapToLong(Long::longValue).sum());
+        long stationBuckets = report.getVotesByStationAndBucket().values().stream()
+            .flatMap(perBucket -> perBucket.values().stream()).mapToLong(Long::longValue).sum();
+        assertEquals(total, stationBuckets);
+        assertEquals(expected.size(), report.getVotesByStation().size());
+    }
+
+    @Test
+    void bucketsVotesByTime() {
+        VoteStore votes = new VoteStore();
+        TurnoutAnalytics analytics = new TurnoutAnalytics(votes);
+        votes.append("V1", "C1", "S1", START);
+        votes.append("V2", "C1", "S1", START + 1);
+        votes.append("V3", "C2", "S2", START + Duration.ofMinutes(10).toMillis());
+
+        TurnoutReport report = analytics.report(Duration.ofMinutes(5));
+
+        assertEquals(2, report.getVotesByBucket().size());
+        assertEquals(2L, report.getVotesByBucket().get(report.getVotesByBucket().firstKey()));
+        assertEquals(Map.of("S1", 2L, "S2", 1L), report.getVotesByStation());
+    }
+}
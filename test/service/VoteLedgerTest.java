@@ -0,0 +1,188 @@
+package service;
+
+import model.*;
+import exception.RejectReason;
+import exception.VotingException;
+import persistence.VoteJournal;
+import util.ElectionLogger;
+import util.PasswordHasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoteLedgerTest {
+    private static final int THREADS = 4;
+    private static final int VOTES_PER_THREAD = 300;
+
+    @TempDir
+    Path dir;
+
+    private ElectionLogger logger;
+
+    @BeforeAll
+    static void cheapPasswordHashing() {
+        PasswordHasher.setDefault(new PasswordHasher(1));
+    }
+
+    @BeforeEach
+    void setUp() {
+        logger = new ElectionLogger(null, 65536, ElectionLogger.OverflowPolicy.DROP_AND_COUNT, false, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.close();
+    }
+
+    // Votes reach the store in a different order than the journal; the recovered ledger must
+    // still hold the blocks published before the restart and extend them
+    @Test
+    void recoveredLedgerKeepsPublishedBlockHashes() throws Exception {
+        Path file = dir.resolve("election.journal");
+        List<VoteLedger.Block> published = new ArrayList<>();
+        List<String> late;
+        Candidate candidate = new Candidate("Alice", "Party A", "", "", "");
+        try (VoteJournal journal = new VoteJournal(file, 50, 1 << 20)) {
+            ElectionService service = ElectionService.recover("Ledger", LocalDateTime.now(), logger, journal);
+            service.addCandidate(candidate);
+            service.openRegistration();
+            List<String> voterIds = registerVoters(service, THREADS * VOTES_PER_THREAD + 10);
+            service.openVoting();
+            VoteLedger ledger = service.enableLedger();
+            castConcurrently(service, candidate, voterIds.subList(0, THREADS * VOTES_PER_THREAD));
+            ledger.flush();
+            for (int i = 0; i < ledger.getBlockCount(); i++) {
+                published.add(ledger.getBlock(i));
+            }
+            late = voterIds.subList(THREADS * VOTES_PER_THREAD, voterIds.size());
+            for (String voterId : late) {
+                service.castVote(voterId, candidate.getId(), "STATION-9");
+            }
+            ledger.close();
+        }
+
+        try (VoteJournal journal = new VoteJournal(file, 50, 1 << 20)) {
+            ElectionService service = ElectionService.recover("Ledger", LocalDateTime.now(), logger, journal);
+            VoteLedger ledger = service.enableLedger();
+            ledger.flush();
+
+            assertTrue(ledger.getBlockCount() >= published.size());
+            for (VoteLedger.Block block : published) {
+                assertArrayEquals(block.getHash(), ledger.getBlock((int) block.getNumber()).getHash());
+            }
+            assertEquals(THREADS * VOTES_PER_THREAD + late.size(), ledger.getSealedVotes());
+            assertTrue(ledger.verify().isValid());
+            assertTrue(service.proveVote(late.get(0)).verify());
+            ledger.close();
+        }
+    }
+
+    // The sealer parks while the store is idle and must still pick up a vote cast afterwards
+    @Test
+    void idleSealerWakesForTheNextVote() throws Exception {
+        VoteStore store = new VoteStore();
+        VoteLedger ledger = new VoteLedger(store, 1, 60_000, 1);
+
+        store.append("voter-1", "candidate-1", "STATION-1", System.currentTimeMillis());
+        awaitSealed(ledger, 1);
+        Thread.sleep(50);
+        store.append("voter-2", "candidate-1", "STATION-1", System.currentTimeMillis());
+        awaitSealed(ledger, 2);
+
+        assertEquals(2, ledger.getBlockCount());
+        ledger.close();
+    }
+
+    @Test
+    void hashesAStationNameOfAnyLength() {
+        VoteStore store = new VoteStore();
+        VoteLedger ledger = new VoteLedger(store, 16, 60_000, 1);
+        store.append("voter-1", "candidate-1", "S".repeat(100_000), System.currentTimeMillis());
+        store.append("voter-2", "candidate-1", "STATION-1", System.currentTimeMillis());
+
+        ledger.flush();
+
+        assertEquals(2, ledger.getSealedVotes());
+        assertTrue(ledger.verify().isValid());
+        assertTrue(ledger.prove(0).verify());
+        ledger.close();
+    }
+
+    // An over-long station is refused at the door, and the election still closes with its ledger
+    @Test
+    void longStationNameIsRefusedAndTheElectionStillCloses() throws VotingException {
+        ElectionService service = new ElectionService("Stations", LocalDateTime.now(), logger);
+        Candidate candidate = new Candidate("Alice", "Party A", "", "", "");
+        service.addCandidate(candidate);
+        service.openRegistration();
+        List<String> voterIds = registerVoters(service, 2);
+        service.openVoting();
+        VoteLedger ledger = service.enableLedger();
+
+        VotingException e = assertThrows(VotingException.class,
+            () -> service.castVote(voterIds.get(0), candidate.getId(), "S".repeat(5000)));
+        assertEquals(RejectReason.INVALID_STATION, e.getReason());
+        service.castVote(voterIds.get(1), candidate.getId(), "STATION-1");
+        service.closeElection();
+
+        assertEquals(ElectionService.ElectionStatus.CLOSED, service.getStatus());
+        assertEquals(1, ledger.getSealedVotes());
+        ledger.close();
+    }
+
+    private static void castConcurrently(ElectionService service, Candidate candidate, List<String> voterIds)
+            throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<String> mine = voterIds.subList(t * VOTES_PER_THREAD, (t + 1) * VOTES_PER_THREAD);
+            String station = "STATION-" + t;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (String voterId : mine) {
+                        service.castVote(voterId, candidate.getId(), station);
+                    }
+                } catch (VotingException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    // Block size 1: each vote is sealed on its own as soon as the sealer wakes for it
+    private static void awaitSealed(VoteLedger ledger, int votes) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (ledger.getSealedVotes() < votes && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(votes, ledger.getSealedVotes());
+    }
+
+    private static List<String> registerVoters(ElectionService service, int count) throws VotingException {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Voter voter = new Voter("Voter " + i, "voter" + i + "@example.org", "NID" + i, "pw");
+            voter.setStatus(Voter.VoterStatus.VERIFIED);
+            service.registerVoter(voter);
+            ids.add(voter.getId());
+        }
+        return ids;
+    }
+}
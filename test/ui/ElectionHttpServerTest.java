@@ -0,0 +1,90 @@
+package ui;
+
+import model.*;
+import service.AuthenticationService;
+import service.CredentialVerifier;
+import service.ElectionService;
+import service.SessionStore;
+import exception.VotingException;
+import util.ElectionLogger;
+import util.PasswordHasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElectionHttpServerTest {
+    private ElectionLogger logger;
+    private CredentialVerifier verifier;
+    private ElectionHttpServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void cheapPasswordHashing() {
+        PasswordHasher.setDefault(new PasswordHasher(1));
+    }
+
+    @BeforeEach
+    void setUp() throws IOException, VotingException {
+        logger = new ElectionLogger(null, 1024, ElectionLogger.OverflowPolicy.DROP_AND_COUNT, false, 0);
+        ElectionService service = new ElectionService("Http", LocalDateTime.now(), logger);
+        service.addCandidate(new Candidate("Alice", "Party A", "", "", ""));
+        service.openRegistration();
+        verifier = new CredentialVerifier(1, 4, 2000, 100, 60_000);
+        server = new ElectionHttpServer(service, new AuthenticationService(new SessionStore(), verifier),
+            new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        verifier.close();
+        logger.close();
+    }
+
+    @Test
+    void loginAnswersBadCredentialsWith401AndReason() throws Exception {
+        assertEquals(201, post("/api/voters",
+            "{\"name\":\"Ann\",\"email\":\"ann@example.org\",\"nationalId\":\"N1\",\"password\":\"secret\"}").statusCode());
+
+        HttpResponse<String> wrong = post("/api/sessions", "{\"email\":\"ann@example.org\",\"password\":\"nope\"}");
+        assertEquals(401, wrong.statusCode());
+        assertTrue(wrong.body().contains("\"reason\":\"INVALID_CREDENTIALS\""), wrong.body());
+
+        HttpResponse<String> unknown = post("/api/sessions", "{\"email\":\"bob@example.org\",\"password\":\"secret\"}");
+        assertEquals(401, unknown.statusCode());
+        assertEquals(wrong.body(), unknown.body());
+
+        HttpResponse<String> ok = post("/api/sessions", "{\"email\":\"ann@example.org\",\"password\":\"secret\"}");
+        assertEquals(201, ok.statusCode());
+        assertTrue(ok.body().contains("\"sessionId\""), ok.body());
+    }
+
+    @Test
+    void registrationStoresAHashedCredential() throws Exception {
+        post("/api/voters", "{\"name\":\"Ann\",\"email\":\"ann@example.org\",\"nationalId\":\"N1\","
+            + "\"password\":\"pbkdf2-sha256$1$AAAA$AAAA\"}");
+        HttpResponse<String> login = post("/api/sessions",
+            "{\"email\":\"ann@example.org\",\"password\":\"pbkdf2-sha256$1$AAAA$AAAA\"}");
+        assertEquals(201, login.statusCode());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        return client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,127 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElectionLoggerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void dropsAndCountsEntriesThatFindTheBufferFull() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PrintStream console = System.out;
+        // Holds the writer inside its first console echo so the buffer can only fill up
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }));
+        try (ElectionLogger logger = new ElectionLogger(null, 4, ElectionLogger.OverflowPolicy.DROP_AND_COUNT,
+                true, 100)) {
+            logger.logAction("entry 0");
+            writing.await();
+            for (int i = 1; i <= 7; i++) {
+                logger.logAction("entry " + i);
+            }
+            release.countDown();
+            logger.flush();
+
+            assertEquals(3, logger.getDroppedCount());
+            assertEquals(List.of("entry 0", "entry 1", "entry 2", "entry 3", "entry 4"), messages(logger));
+        } finally {
+            release.countDown();
+            System.setOut(console);
+        }
+    }
+
+    @Test
+    void flushReturnsOnlyOnceEntriesAreInTheFile() throws IOException {
+        Path file = dir.resolve("election.log");
+        try (ElectionLogger logger = new ElectionLogger(file, 1024, ElectionLogger.OverflowPolicy.BLOCK,
+                false, 0)) {
+            for (int i = 0; i < 500; i++) {
+                logger.logAction("entry " + i);
+            }
+            logger.flush();
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(500, lines.size());
+            assertTrue(lines.get(499).endsWith("] entry 499"));
+        }
+    }
+
+    @Test
+    void tailKeepsTheMostRecentEntries() {
+        try (ElectionLogger logger = new ElectionLogger(null, 1024, ElectionLogger.OverflowPolicy.BLOCK,
+                false, 3)) {
+            for (int i = 0; i < 10; i++) {
+                logger.logAction("entry " + i);
+            }
+            logger.flush();
+
+            assertEquals(List.of("entry 7", "entry 8", "entry 9"), messages(logger));
+        }
+    }
+
+    @Test
+    void rollsTheFileBeforeItOutgrowsTheLimit() throws IOException {
+        Path file = dir.resolve("election.log");
+        long maxBytes = 200;
+        try (ElectionLogger logger = new ElectionLogger(file, 1024, ElectionLogger.OverflowPolicy.BLOCK,
+                false, 0, maxBytes, 2)) {
+            for (int i = 0; i < 30; i++) {
+                logger.logAction("entry " + i);
+                logger.flush();
+            }
+        }
+
+        Path first = dir.resolve("election.log.1");
+        Path second = dir.resolve("election.log.2");
+        assertTrue(Files.exists(first));
+        assertTrue(Files.exists(second));
+        assertFalse(Files.exists(dir.resolve("election.log.3")));
+        for (Path log : List.of(file, first, second)) {
+            assertTrue(Files.size(log) <= maxBytes, log + " is " + Files.size(log) + " bytes");
+        }
+        List<String> current = Files.readAllLines(file);
+        List<String> previous = Files.readAllLines(first);
+        assertTrue(current.get(current.size() - 1).endsWith("] entry 29"));
+        String lastRolled = previous.get(previous.size() - 1);
+        String firstCurrent = current.get(0);
+        assertEquals(number(lastRolled) + 1, number(firstCurrent));
+    }
+
+    private static List<String> messages(ElectionLogger logger) {
+        List<String> messages = new ArrayList<>();
+        for (Object entry : logger.getLogs()) {
+            String line = entry.toString();
+            messages.add(line.substring(line.indexOf("] ") + 2));
+        }
+        return messages;
+    }
+
+    private static int number(String line) {
+        return Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+    }
+}
@@ -0,0 +1,44 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdGeneratorTest {
+    // An hour ahead of the clock: what a previous run left behind before the clock stepped back
+    private static final long FUTURE_ID = (System.currentTimeMillis() - TimeOrderedIdGenerator.EPOCH_MILLIS
+        + 3_600_000L) << 22;
+
+    @Test
+    void idsAfterAdvancePastExceedTheRecoveredId() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        long leased = generator.nextId();
+
+        generator.advancePast(FUTURE_ID + 5);
+
+        assertTrue(leased < FUTURE_ID);
+        assertEquals(FUTURE_ID + 6, generator.nextId());
+    }
+
+    @Test
+    void advancePastKeepsTheNodeBits() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3, 4);
+        long recovered = generator.nextId() + FUTURE_ID;
+
+        generator.advancePast(recovered);
+        long next = generator.nextId();
+
+        assertTrue(next > recovered);
+        assertEquals(3, (next >>> 18) & 0xF);
+    }
+
+    @Test
+    void olderIdsDoNotMoveTheCounterBack() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        generator.advancePast(FUTURE_ID);
+        generator.advancePast(1);
+
+        assertTrue(generator.nextId() > FUTURE_ID);
+    }
+}